@@ -0,0 +1,385 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * The accounts of a bank laid out as columns: parallel primitive arrays of account
+ * numbers, balances, dates opened, account types, and terms or overdraft limits, one
+ * row per account.
+ * Bank-wide questions, such as the total of all balances, are answered with tight
+ * loops over the arrays instead of a walk over the account objects. Large banks are
+ * scanned in parallel on the common fork/join pool, a block of rows per task.
+ * <p>
+ * Rows are added and removed while the bank holds its write lock, and the columns are
+ * read while it holds its read lock. A removed row is filled with the last row, so the
+ * rows stay packed. The balances change all the time, though, and not only through the
+ * bank, so each account copies its new balance into its row after every change (see
+ * {@code update}). The balances are kept in blocks that never move once allocated, so
+ * a balance can be copied while another thread adds accounts. A bank-wide total taken
+ * while balances are changing is only as consistent as a walk over the accounts would
+ * be.
+ */
+final class AccountColumns {
+    /**
+     * The number of rows in a block is {@code 1 << BLOCK_SHIFT}.
+     */
+    private static final int BLOCK_SHIFT = 14;
+
+    /**
+     * The number of rows in a block.
+     */
+    private static final int BLOCK_ROWS = 1 << BLOCK_SHIFT;
+
+    /**
+     * A handle for volatile access to the elements of a block of balances.
+     */
+    private static final VarHandle CENTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * A handle for volatile access to the elements of {@code owners}.
+     */
+    private static final VarHandle OWNERS = MethodHandles.arrayElementVarHandle(BankAccount[].class);
+
+    /**
+     * The balances, in cents, in blocks of {@code BLOCK_ROWS} rows.
+     */
+    private volatile long[][] cents = new long[0][];
+
+    /**
+     * The account numbers, as index keys (see {@code AccountIndex.toKey}).
+     */
+    private int[] keys = new int[16];
+
+    /**
+     * The dates opened, as epoch days.
+     */
+    private long[] opened = new long[16];
+
+    /**
+     * The types of account, as {@code BankSnapshot.TYPE} constants.
+     */
+    private byte[] types = new byte[16];
+
+    /**
+     * The terms in months, the overdraft limits in cents, or 0 (see
+     * {@code BankAccount.snapshotExtra}).
+     */
+    private long[] extras = new long[16];
+
+    /**
+     * The accounts the rows belong to, or {@code null} if the columns are a copy that
+     * isn't kept up to date. Read by {@code update} without the bank's lock.
+     */
+    private volatile BankAccount[] owners;
+
+    /**
+     * The number of rows.
+     */
+    private int size;
+
+    /**
+     * Constructs empty columns.
+     * @param tracking Whether the rows are kept in sync with their accounts; if not,
+     *        rows can only be added, with {@code append}
+     */
+    AccountColumns(boolean tracking) {
+        owners = tracking ? new BankAccount[16] : null;
+    }
+
+    /**
+     * Adds a row for an account, which from now on copies every change to its balance
+     * into the row.
+     * @param account The account
+     */
+    void add(BankAccount account) {
+        int row = append(AccountIndex.toKey(account.getAccountNumber()), account.snapshotType(),
+                account.getDateOpened().toEpochDay(),
+                account.snapshotExtra(), account.getBalanceCents());
+        OWNERS.setVolatile(owners, row, account);
+        account.setColumns(this, row);
+        update(account);
+    }
+
+    /**
+     * Adds a row that isn't tied to an account.
+     * @param key The account number, as an index key
+     * @param type The type of account
+     * @param epochDay The date opened, as an epoch day
+     * @param extra The term in months, the overdraft limit in cents, or 0
+     * @param balance The balance, in cents
+     * @return The row
+     */
+    int append(int key, int type, long epochDay, long extra, long balance) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        keys[row] = key;
+        types[row] = (byte) type;
+        opened[row] = epochDay;
+        extras[row] = extra;
+        CENTS.setVolatile(cents[row >>> BLOCK_SHIFT], row & (BLOCK_ROWS - 1), balance);
+        return row;
+    }
+
+    /**
+     * Removes an account's row, moving the last row into its place, and stops the
+     * account from copying its balance.
+     * @param account The account, which must have a row
+     */
+    void remove(BankAccount account) {
+        int row = account.getColumnRow();
+        account.setColumns(null, -1);
+        int last = --size;
+        if (row != last) {
+            keys[row] = keys[last];
+            types[row] = types[last];
+            opened[row] = opened[last];
+            extras[row] = extras[last];
+            BankAccount moved = owners[last];
+            OWNERS.setVolatile(owners, row, moved);
+            moved.setColumns(this, row);
+            update(moved);
+        }
+        OWNERS.setVolatile(owners, last, null);
+    }
+
+    /**
+     * Copies an account's balance into its row. If the balance changes, or the row
+     * moves, while it's being copied, it's copied again, so once no change to the account
+     * is in progress its row holds its balance.
+     * <p>
+     * If the account is removed while its balance is being copied, the row may already
+     * have been given to another account, whose balance the copy overwrote. So after
+     * copying, the row's owner is checked, and if it's another account, that account's
+     * balance is copied back. {@code remove} sets the new owner before copying its
+     * balance, so either that copy or this one comes last.
+     * @param account The account
+     */
+    void update(BankAccount account) {
+        int row;
+        long balance;
+        do {
+            row = account.getColumnRow();
+            if (row < 0) {
+                return;
+            }
+            balance = account.getBalanceCents();
+            CENTS.setVolatile(cents[row >>> BLOCK_SHIFT], row & (BLOCK_ROWS - 1), balance);
+            BankAccount owner = (BankAccount) OWNERS.getVolatile(owners, row);
+            if (owner != account && owner != null) {
+                update(owner);
+            }
+        } while (row != account.getColumnRow() || balance != account.getBalanceCents());
+    }
+
+    /**
+     * Makes room for {@code expected} rows in total.
+     * @param expected The expected number of rows
+     */
+    void ensureCapacity(int expected) {
+        long[][] blocks = cents;
+        int needed = (expected + BLOCK_ROWS - 1) >>> BLOCK_SHIFT;
+        if (needed > blocks.length) {
+            long[][] grown = Arrays.copyOf(blocks, needed);
+            for (int b = blocks.length; b < needed; b++) {
+                grown[b] = new long[BLOCK_ROWS];
+            }
+            cents = grown;
+        }
+        if (expected > types.length) {
+            int capacity = Math.max(expected, types.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            opened = Arrays.copyOf(opened, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            if (owners != null) {
+                owners = Arrays.copyOf(owners, capacity);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return The number of rows
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the total of all the balances.
+     * @return The total, in cents
+     * @throws ArithmeticException If the total overflows
+     */
+    long totalBalanceCents() {
+        return blocks().mapToLong(b -> {
+            long[] block = cents[b];
+            long total = 0;
+            for (int i = 0, n = rowsIn(b); i < n; i++) {
+                total = Math.addExact(total, block[i]);
+            }
+            return total;
+        }).reduce(0, Math::addExact);
+    }
+
+    /**
+     * Returns the total amount by which checking accounts are below zero.
+     * @return The total, in cents
+     * @throws ArithmeticException If the total overflows
+     */
+    long totalOverdraftCents() {
+        return blocks().mapToLong(b -> {
+            long[] block = cents[b];
+            int base = b << BLOCK_SHIFT;
+            long total = 0;
+            for (int i = 0, n = rowsIn(b); i < n; i++) {
+                if (types[base + i] == BankSnapshot.TYPE_CHECKING && block[i] < 0) {
+                    total = Math.subtractExact(total, block[i]);
+                }
+            }
+            return total;
+        }).reduce(0, Math::addExact);
+    }
+
+    /**
+     * Returns the total of the overdraft limits of the checking accounts.
+     * @return The total, in cents
+     * @throws ArithmeticException If the total overflows
+     */
+    long totalOverdraftLimitCents() {
+        return blocks().mapToLong(b -> {
+            int base = b << BLOCK_SHIFT;
+            long total = 0;
+            for (int i = base, end = base + rowsIn(b); i < end; i++) {
+                if (types[i] == BankSnapshot.TYPE_CHECKING) {
+                    total = Math.addExact(total, extras[i]);
+                }
+            }
+            return total;
+        }).reduce(0, Math::addExact);
+    }
+
+    /**
+     * Counts the accounts opened between two dates, inclusive.
+     * @param from The first date
+     * @param to The last date
+     * @return The number of accounts
+     */
+    long countOpened(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay(), last = to.toEpochDay();
+        return blocks().mapToLong(b -> {
+            int base = b << BLOCK_SHIFT;
+            long count = 0;
+            for (int i = base, end = base + rowsIn(b); i < end; i++) {
+                if (opened[i] >= first && opened[i] <= last) {
+                    count++;
+                }
+            }
+            return count;
+        }).sum();
+    }
+
+    /**
+     * Counts the CD accounts with each length of term.
+     * @return The number of CD accounts for each term, in months, that any CD account
+     *         has
+     */
+    SortedMap<Integer, Long> countCDsByTerm() {
+        long[] counts = blocks().mapToObj(b -> {
+            int base = b << BLOCK_SHIFT;
+            long[] partial = new long[0];
+            for (int i = base, end = base + rowsIn(b); i < end; i++) {
+                if (types[i] == BankSnapshot.TYPE_CD) {
+                    int months = (int) extras[i];
+                    if (months >= partial.length) {
+                        partial = Arrays.copyOf(partial, Math.max(months + 1, partial.length * 2));
+                    }
+                    partial[months]++;
+                }
+            }
+            return partial;
+        }).reduce(new long[0], AccountColumns::add);
+
+        SortedMap<Integer, Long> byTerm = new TreeMap<>();
+        for (int months = 0; months < counts.length; months++) {
+            if (counts[months] != 0) {
+                byTerm.put(months, counts[months]);
+            }
+        }
+        return byTerm;
+    }
+
+    /**
+     * Returns the account numbers, one per row.
+     * @return A copy of the account numbers, as index keys
+     */
+    int[] keys() {
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Computes the month-end adjustment to every balance: interest credited to CD
+     * accounts, and fees charged to overdrawn checking accounts (see
+     * {@code MonthEndRates}). Each block of rows is computed in one loop over the
+     * primitive arrays, and blocks are computed in parallel.
+     * @param rates The rates
+     * @return The adjustment to each row's balance, in cents: positive for interest,
+     *         negative for fees, and 0 for accounts that are left alone
+     * @throws ArithmeticException If an adjustment overflows
+     */
+    long[] monthEndAdjustments(MonthEndRates rates) {
+        long[] adjustments = new long[size];
+        blocks().forEach(b -> {
+            long[] block = cents[b];
+            int base = b << BLOCK_SHIFT;
+            for (int i = 0, n = rowsIn(b); i < n; i++) {
+                long balance = block[i];
+                byte type = types[base + i];
+                if (type == BankSnapshot.TYPE_CD && balance > 0) {
+                    adjustments[base + i] = rates.interestCents(balance, extras[base + i]);
+                } else if (type == BankSnapshot.TYPE_CHECKING && balance < 0) {
+                    adjustments[base + i] = -rates.overdraftFeeCents(balance);
+                }
+            }
+        });
+        return adjustments;
+    }
+
+    /**
+     * Adds two arrays of counts element by element.
+     * @param a The first counts
+     * @param b The second counts
+     * @return The sums, as long as the longer array
+     */
+    private static long[] add(long[] a, long[] b) {
+        long[] sum = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length));
+        long[] other = a.length >= b.length ? b : a;
+        for (int i = 0; i < other.length; i++) {
+            sum[i] += other[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the numbers of the blocks that hold rows, as a stream that's parallel if
+     * there is more than one block.
+     * @return The block numbers
+     */
+    private IntStream blocks() {
+        int count = (size + BLOCK_ROWS - 1) >>> BLOCK_SHIFT;
+        IntStream blocks = IntStream.range(0, count);
+        return count > 1 ? blocks.parallel() : blocks;
+    }
+
+    /**
+     * Returns the number of rows in use in a block.
+     * @param block The block number
+     * @return The number of rows
+     */
+    private int rowsIn(int block) {
+        return Math.min(BLOCK_ROWS, size - (block << BLOCK_SHIFT));
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * A hash index from account numbers to bank accounts.
+ * <p>
+ * A valid account number is always exactly 8 digits, so it fits in an {@code int}
+ * and can be used directly as the key, without hashing any {@code String}s. The
+ * entries live in two parallel arrays (an open-addressing table with linear probing),
+ * so a lookup normally touches just one or two slots.
+ */
+class AccountIndex extends IntKeyTable {
+    /**
+     * The accounts; {@code values[i]} is the account whose key is in slot {@code i} of
+     * the table.
+     */
+    private BankAccount[] values;
+
+    /**
+     * Constructs an empty index.
+     */
+    AccountIndex() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty index with room for about {@code expected} accounts
+     * before it needs to grow.
+     * @param expected The expected number of accounts
+     */
+    AccountIndex(int expected) {
+        super(expected);
+        values = new BankAccount[capacity()];
+    }
+
+    /**
+     * Converts an account number to the key used by the index.
+     * @param accountNumber The account number
+     * @return The account number as an {@code int}, or -1 if it isn't exactly
+     *         8 characters long, all digits
+     */
+    static int toKey(String accountNumber) {
+        if (accountNumber.length() != 8) {
+            return -1;
+        }
+
+        int key = 0;
+        for (int i = 0; i < 8; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Returns the account with the specified key.
+     * @param key The key (see {@code toKey})
+     * @return The account, or {@code null} if there is none
+     */
+    BankAccount get(int key) {
+        int i = find(key);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * Adds the specified account under the specified key, unless the key is already
+     * in the index.
+     * @param key The key (see {@code toKey})
+     * @param account The account
+     * @return {@code true} if the account was added, {@code false} if the key was
+     *         already in use
+     * @throws IllegalArgumentException If the key is negative, which {@code toKey}
+     *         returns for invalid account numbers
+     */
+    boolean putIfAbsent(int key, BankAccount account) {
+        int i = insert(key);
+        if (i < 0) {
+            return false;
+        }
+        values[i] = account;
+        return true;
+    }
+
+    /**
+     * Removes the account with the specified key, if any.
+     * @param key The key (see {@code toKey})
+     * @return The removed account, or {@code null} if there was none
+     */
+    BankAccount remove(int key) {
+        int i = find(key);
+        if (i < 0) {
+            return null;
+        }
+        BankAccount removed = values[i];
+        delete(i);
+        return removed;
+    }
+
+    /**
+     * Moves the value in one slot to another.
+     * @param from The slot the value is in
+     * @param to The slot to move it to
+     */
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    /**
+     * Drops the value in a slot that no longer holds a key.
+     * @param i The slot
+     */
+    @Override
+    void clearValue(int i) {
+        values[i] = null;
+    }
+
+    /**
+     * Replaces the values with ones for a table of the specified capacity.
+     * @param capacity The new number of slots
+     * @param sources For each new slot, the old slot whose value goes there, or -1
+     */
+    @Override
+    void resizeValues(int capacity, int[] sources) {
+        BankAccount[] old = values;
+        values = new BankAccount[capacity];
+        for (int i = 0; i < capacity; i++) {
+            if (sources[i] >= 0) {
+                values[i] = old[sources[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,378 @@
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Period;
+import java.time.Year;
+import java.util.function.IntPredicate;
+
+/**
+ * Turns one line of an accounts file, given as a range of bytes, into an account.
+ * The fields are found and parsed in place: numbers and dates are read straight from
+ * the bytes, and the only strings created are the ones the account keeps (its account
+ * number and the parts of its holder's name).
+ * <p>
+ * The line is expected to be made up of the following five (or six)
+ * comma-separated values:
+ * <ul>
+ * <li>The type of account: "BankAccount" or "CDAccount" or
+ * "CheckingAccount"</li>
+ * <li>The account number</li>
+ * <li>The balance as a decimal amount (see {@code CentsParser})</li>
+ * <li>The date the account was opened, in the form year-month-dayOfMonth (for
+ * example, 2020-08-23)</li>
+ * <li>The name of the account holder</li>
+ * </ul>
+ * At the end the line, if it's a CD account, there should be an integer representing
+ * the length of the term in months; if it's a checking account there should instead be
+ * the overdraft limit as a decimal amount.
+ * <p>
+ * A line that's wrong in any way is rejected with a reason code rather than an
+ * exception, so bad lines are as cheap as good ones.
+ * <p>
+ * A parser reuses its scratch space from line to line, so each thread needs its own.
+ */
+final class AccountLineParser {
+    /**
+     * The character set of the names in the file.
+     */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /**
+     * The account type names, as bytes.
+     */
+    private static final byte[] BANK_ACCOUNT = "BankAccount".getBytes(StandardCharsets.US_ASCII),
+            CD_ACCOUNT = "CDAccount".getBytes(StandardCharsets.US_ASCII),
+            CHECKING_ACCOUNT = "CheckingAccount".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The bounds of the fields of the line being parsed: {@code fields[2 * i]} and
+     * {@code fields[2 * i + 1]} are the bounds of field i.
+     */
+    private final int[] fields = new int[12];
+
+    /**
+     * The account number of the last line parsed, as an index key, or -1 if parsing
+     * stopped before the account number was looked at.
+     */
+    private int lastKey;
+
+    /**
+     * The reason the last line parsed was rejected (see {@code LoadRejects}), or -1 if
+     * it wasn't.
+     */
+    private byte reason;
+
+    /**
+     * Parses one line. Nothing is thrown for a bad line: instead {@code null} is returned
+     * and {@code reason()} tells what was wrong with it. The checks are made in the same
+     * order as they always have been: the account type, then whether the account number
+     * is taken, then the name, the date, the amounts and finally the account number
+     * itself.
+     *
+     * @param buf   The buffer holding the line
+     * @param start The index of the first byte of the line
+     * @param end   The index after the last byte of the line
+     * @param taken Tells whether an account number (as an index key, see
+     *              {@code AccountIndex.toKey}) is already in use; may be {@code null}
+     *              if duplicates are checked later
+     * @return The account described by the line, or {@code null} if the line is rejected
+     */
+    BankAccount parse(byte[] buf, int start, int end, IntPredicate taken) {
+        lastKey = -1;
+        int count = split(buf, start, end);
+
+        byte[] accounttype = type(buf, fields[0], fields[1]);
+        if (accounttype == null) {
+            return reject(LoadRejects.BAD_TYPE);
+        }
+        if (count < 5 || (accounttype != BANK_ACCOUNT && count < 6)) {
+            return reject(LoadRejects.MISSING_FIELDS);
+        }
+
+        int key = toKey(buf, fields[2], fields[3]);
+        lastKey = key;
+        if (taken != null && key >= 0 && taken.test(key)) {
+            return reject(LoadRejects.DUPLICATE);
+        }
+
+        Name name = name(buf, fields[8], fields[9]);
+        if (name == null) {
+            return reject(LoadRejects.BAD_NAME);
+        }
+        LocalDate date = date(buf, fields[6], fields[7]);
+        if (date == null) {
+            return reject(LoadRejects.BAD_DATE);
+        }
+        long balance = CentsParser.tryParseCents(buf, fields[4], fields[5]);
+        if (balance == CentsParser.INVALID) {
+            return reject(LoadRejects.BAD_BALANCE);
+        }
+
+        long extra = 0;
+        if (accounttype == CD_ACCOUNT) {
+            extra = parseInt(buf, fields[10], fields[11]);
+            if (extra == CentsParser.INVALID) {
+                return reject(LoadRejects.BAD_TERM);
+            }
+        } else if (accounttype == CHECKING_ACCOUNT) {
+            extra = CentsParser.tryParseCents(buf, fields[10], fields[11]);
+            if (extra == CentsParser.INVALID) {
+                return reject(LoadRejects.BAD_OVERDRAFT);
+            }
+        }
+        if (key < 0) {
+            return reject(LoadRejects.BAD_ACCOUNT_NUMBER);
+        }
+
+        reason = -1;
+        String accountNumber = new String(buf, fields[2], fields[3] - fields[2], CHARSET);
+        try {
+            if (accounttype == CD_ACCOUNT) {
+                return new CDAccount(accountNumber, MonetaryValue.valueOf(balance), date, name,
+                        Period.ofMonths((int) extra));
+            } else if (accounttype == CHECKING_ACCOUNT) {
+                return new CheckingAccount(accountNumber, MonetaryValue.valueOf(balance), date, name,
+                        MonetaryValue.valueOf(extra));
+            } else {
+                return new BankAccount(accountNumber, MonetaryValue.valueOf(balance), date, name);
+            }
+        } catch (InvalidAccountNumberException ex) {
+            // can't happen: the account number has already been checked
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the reason the last line parsed was rejected.
+     * @return One of the reason codes in {@code LoadRejects}, or -1 if the line was
+     *         not rejected
+     */
+    byte reason() {
+        return reason;
+    }
+
+    /**
+     * Returns the account number of the last line parsed, as an index key. If the line
+     * was rejected, this tells whether the rejection came after the point where a
+     * duplicate account number would have been reported.
+     * @return The key, or -1 if the account number is invalid or parsing stopped
+     *         before the account number was looked at
+     */
+    int lastKey() {
+        return lastKey;
+    }
+
+    /**
+     * Records the reason the line being parsed is rejected.
+     * @param reason The reason code
+     * @return {@code null}, for the caller to return
+     */
+    private BankAccount reject(byte reason) {
+        this.reason = reason;
+        return null;
+    }
+
+    /**
+     * Finds the bounds of the first six comma-separated fields of a line. Anything after
+     * the sixth field is ignored.
+     * @param buf The buffer holding the line
+     * @param start The index of the first byte of the line
+     * @param end The index after the last byte of the line
+     * @return The number of fields found (at most six), not counting empty trailing fields
+     */
+    private int split(byte[] buf, int start, int end) {
+        int count = 0, fieldStart = start, nonEmpty = 0;
+        for (int i = start; i <= end && count < 6; i++) {
+            if (i == end || buf[i] == ',') {
+                fields[2 * count] = fieldStart;
+                fields[2 * count + 1] = i;
+                count++;
+                if (i > fieldStart) {
+                    nonEmpty = count;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        return nonEmpty;
+    }
+
+    /**
+     * Identifies the account type in the specified range.
+     * @param buf The buffer
+     * @param from The index of the first byte of the field
+     * @param to The index after the last byte of the field
+     * @return One of the account type constants, or {@code null} if it's none of them
+     */
+    private static byte[] type(byte[] buf, int from, int to) {
+        if (matches(buf, from, to, BANK_ACCOUNT)) {
+            return BANK_ACCOUNT;
+        } else if (matches(buf, from, to, CHECKING_ACCOUNT)) {
+            return CHECKING_ACCOUNT;
+        } else if (matches(buf, from, to, CD_ACCOUNT)) {
+            return CD_ACCOUNT;
+        }
+        return null;
+    }
+
+    /**
+     * Determines whether the specified range holds exactly the specified bytes.
+     * @param buf The buffer
+     * @param from The index of the first byte of the range
+     * @param to The index after the last byte of the range
+     * @param expected The bytes to compare with
+     * @return {@code true} if they're the same, {@code false} otherwise
+     */
+    private static boolean matches(byte[] buf, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the account number in the specified range to an index key.
+     * @param buf The buffer
+     * @param from The index of the first byte of the account number
+     * @param to The index after the last byte of the account number
+     * @return The account number as an {@code int}, or -1 if it isn't exactly
+     *         8 digits (see {@code AccountIndex.toKey})
+     */
+    static int toKey(byte[] buf, int from, int to) {
+        if (to - from != 8) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = from; i < to; i++) {
+            if (buf[i] < '0' || buf[i] > '9') {
+                return -1;
+            }
+            key = key * 10 + (buf[i] - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Parses the name in the specified range. Like splitting the name on single spaces,
+     * empty parts in the middle count, but empty parts at the end don't.
+     * @param buf The buffer
+     * @param from The index of the first byte of the name
+     * @param to The index after the last byte of the name
+     * @return The name, or {@code null} if it does not consist of either two or three parts
+     */
+    private static Name name(byte[] buf, int from, int to) {
+        int last = to;
+        while (last > from && buf[last - 1] == ' ') {
+            last--;
+        }
+
+        int first = -1, second = -1, parts = 1;
+        for (int i = from; i < last; i++) {
+            if (buf[i] == ' ') {
+                if (parts == 1) {
+                    first = i;
+                } else if (parts == 2) {
+                    second = i;
+                }
+                parts++;
+            }
+        }
+
+        if (parts != 2 && parts != 3) {
+            return null;
+        }
+
+        String firstName = new String(buf, from, first - from, CHARSET);
+        if (parts == 2) {
+            return new Name(firstName, new String(buf, first + 1, last - first - 1, CHARSET));
+        }
+        return new Name(firstName,
+                new String(buf, first + 1, second - first - 1, CHARSET),
+                new String(buf, second + 1, last - second - 1, CHARSET));
+    }
+
+    /**
+     * Parses the date in the specified range, which is normally of the form yyyy-mm-dd;
+     * that form is checked without going through {@code LocalDate.parse}. Other forms
+     * are handed to {@code LocalDate.parse}, so they are accepted or rejected exactly as
+     * before.
+     * @param buf The buffer
+     * @param from The index of the first byte of the date
+     * @param to The index after the last byte of the date
+     * @return The date, or {@code null} if it's malformed or invalid
+     */
+    private static LocalDate date(byte[] buf, int from, int to) {
+        if (to - from == 10 && buf[from + 4] == '-' && buf[from + 7] == '-') {
+            int year = digits(buf, from, from + 4);
+            int month = digits(buf, from + 5, from + 7);
+            int day = digits(buf, from + 8, from + 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                if (month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+                    return null;
+                }
+                return LocalDate.of(year, month, day);
+            }
+        }
+        try {
+            return LocalDate.parse(new String(buf, from, to - from, CHARSET));
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the specified range of decimal digits.
+     * @param buf The buffer
+     * @param from The index of the first digit
+     * @param to The index after the last digit
+     * @return The value, or -1 if the range contains something other than a digit
+     */
+    private static int digits(byte[] buf, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            if (buf[i] < '0' || buf[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Parses the integer in the specified range, accepting what {@code Integer.parseInt}
+     * would: an optional sign followed by one or more digits.
+     * @param buf The buffer
+     * @param from The index of the first byte of the integer
+     * @param to The index after the last byte of the integer
+     * @return The integer, or {@code CentsParser.INVALID} if the range doesn't hold an
+     *         {@code int}
+     */
+    private static long parseInt(byte[] buf, int from, int to) {
+        boolean negative = false;
+        if (from < to && (buf[from] == '-' || buf[from] == '+')) {
+            negative = buf[from] == '-';
+            from++;
+        }
+        if (from == to) {
+            return CentsParser.INVALID;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            if (buf[i] < '0' || buf[i] > '9') {
+                return CentsParser.INVALID;
+            }
+            value = value * 10 + (buf[i] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return CentsParser.INVALID;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? CentsParser.INVALID : value;
+    }
+}
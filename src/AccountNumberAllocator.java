@@ -0,0 +1,140 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps track of which account numbers are in use, and hands out unused ones.
+ * <p>
+ * Generated account numbers lie between 10,000,000 and 99,999,999 (so that they are
+ * always exactly 8 digits without leading zeros). One bit per number records whether
+ * it's in use, which takes about 11 MB for the whole range. Checking, claiming and
+ * releasing a number are all constant time, and several threads can claim numbers at
+ * once: each bit is claimed with a compare-and-set, so no number is handed out twice.
+ * <p>
+ * New numbers are drawn from the generator exactly as {@code BankAccount} always drew
+ * them, redrawing when a number is taken, so a given generator hands out the same
+ * numbers in the same order.
+ */
+class AccountNumberAllocator {
+    /**
+     * The smallest account number this allocator hands out.
+     */
+    static final int MIN = 10_000_000;
+
+    /**
+     * The largest account number this allocator hands out.
+     */
+    static final int MAX = 99_999_999;
+
+    /**
+     * One bit per account number in the range; bit {@code n - MIN} is set if
+     * account number {@code n} is in use.
+     */
+    private final AtomicLongArray used = new AtomicLongArray((MAX - MIN + 64) / 64);
+
+    /**
+     * The random number generator used to pick where to look for an unused number.
+     */
+    private final Random generator;
+
+    /**
+     * The number of numbers that {@code allocate} can draw (every number in the range but
+     * {@code MAX}) that aren't in use.
+     */
+    private final AtomicInteger free = new AtomicInteger(MAX - MIN);
+
+    /**
+     * Constructs an allocator in which no number is in use yet.
+     * @param generator The random number generator used to pick new numbers
+     */
+    AccountNumberAllocator(Random generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Claims and returns an account number that isn't in use. Random numbers are drawn
+     * until one is free, as {@code BankAccount} has always done.
+     * @return The new account number
+     * @throws IllegalStateException If every number that can be drawn is in use
+     */
+    int allocate() {
+        while (free.get() > 0) {
+            int offset = generator.nextInt(MAX - MIN);
+            if (claim(offset)) {
+                return MIN + offset;
+            }
+        }
+        throw new IllegalStateException("no unused account numbers left");
+    }
+
+    /**
+     * Marks the specified account number as in use. Numbers outside the range this
+     * allocator hands out are ignored, since they can never clash with a new one.
+     * @param accountNumber The account number
+     * @return {@code true} if the number was not in use before, {@code false} otherwise
+     */
+    boolean markUsed(int accountNumber) {
+        if (accountNumber < MIN || accountNumber > MAX) {
+            return true;
+        }
+        return claim(accountNumber - MIN);
+    }
+
+    /**
+     * Determines whether the specified account number is in use.
+     * @param accountNumber The account number
+     * @return {@code true} if the number is in use, {@code false} otherwise
+     */
+    boolean isUsed(int accountNumber) {
+        if (accountNumber < MIN || accountNumber > MAX) {
+            return false;
+        }
+        int offset = accountNumber - MIN;
+        return (used.get(offset >>> 6) & (1L << offset)) != 0;
+    }
+
+    /**
+     * Marks the specified account number as no longer in use, so that it can be
+     * handed out again.
+     * @param accountNumber The account number
+     */
+    void release(int accountNumber) {
+        if (accountNumber < MIN || accountNumber > MAX) {
+            return;
+        }
+        int offset = accountNumber - MIN;
+        int word = offset >>> 6;
+        long mask = 1L << offset;
+        long bits;
+        do {
+            bits = used.get(word);
+            if ((bits & mask) == 0) {
+                return;
+            }
+        } while (!used.compareAndSet(word, bits, bits & ~mask));
+        if (offset < MAX - MIN) {
+            free.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets the bit for the specified offset, if it isn't set already.
+     * @param offset The account number minus {@code MIN}
+     * @return {@code true} if this call set the bit, {@code false} if it was already set
+     */
+    private boolean claim(int offset) {
+        int word = offset >>> 6;
+        long mask = 1L << offset;
+        long bits;
+        do {
+            bits = used.get(word);
+            if ((bits & mask) != 0) {
+                return false;
+            }
+        } while (!used.compareAndSet(word, bits, bits | mask));
+        if (offset < MAX - MIN) {
+            free.decrementAndGet();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.List;
+
+/**
+ * Where a bank keeps its accounts: the accounts in the order they were added (except
+ * that removing an account moves the last one into its place), and an index from
+ * account numbers to accounts.
+ * <p>
+ * A store isn't thread-safe by itself. The bank calls {@code add} and {@code remove}
+ * while holding its write lock, and everything else while holding its read lock.
+ * Balances can be changed through the accounts returned by a store while other
+ * threads hold the read lock.
+ */
+interface AccountStore {
+    /**
+     * Returns the account with the specified key.
+     * @param key The account number as an index key (see {@code AccountIndex.toKey})
+     * @return The account, or {@code null} if there is none
+     */
+    BankAccount get(int key);
+
+    /**
+     * Adds an account at the end of the store, unless the store already has an account
+     * with the same account number.
+     * @param account The account
+     * @return {@code true} if the account was added, {@code false} if its account
+     *         number was already in use
+     * @throws IllegalArgumentException If the account number isn't a valid index key;
+     *         nothing is added
+     */
+    boolean add(BankAccount account);
+
+    /**
+     * Removes the account with the specified key.
+     * @param key The account number as an index key
+     * @return The account removed, which no longer depends on the store, or
+     *         {@code null} if there was none
+     */
+    BankAccount remove(int key);
+
+    /**
+     * Returns the number of accounts in the store.
+     * @return The number of accounts
+     */
+    int size();
+
+    /**
+     * Makes room for about {@code expected} accounts in total, so that adding that many
+     * doesn't make the store grow step by step.
+     * @param expected The expected number of accounts
+     */
+    void ensureCapacity(int expected);
+
+    /**
+     * Returns the accounts, in the order they were added, except that removing an
+     * account moves the last one into its place. The list can't be modified, and only
+     * reflects the store while no account is added or removed.
+     * @return The accounts
+     */
+    List<BankAccount> accounts();
+
+    /**
+     * Returns the accounts laid out as columns, for bank-wide questions such as the
+     * total of all balances. The columns only reflect the store while no account is
+     * added or removed.
+     * @return The columns
+     */
+    AccountColumns columns();
+
+    /**
+     * Starts or stops marking changes to the accounts' balances, for every account in
+     * the store and every account added later.
+     * @param dirty The set in which to mark changed accounts, or {@code null} to stop
+     *        marking changes
+     */
+    void trackChanges(DirtyAccounts dirty);
+}
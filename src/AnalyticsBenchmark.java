@@ -0,0 +1,96 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how fast bank-wide totals are computed from the accounts laid out as
+ * columns (see {@code AccountColumns}), compared with walking the account objects. A
+ * bank with the requested number of random accounts is built, then the total balance
+ * and the total overdraft are computed both ways several times, and the number of
+ * accounts scanned per second is printed. Then month-end interest and fees (see
+ * {@code Bank.applyMonthEnd}) are applied, and the number of accounts processed per
+ * second is printed. Finally the whole end-of-day batch of a month's last day (see
+ * {@code EndOfDay}) is run into a temporary directory, and its report is printed.
+ * <p>
+ * Usage: {@code java AnalyticsBenchmark [accounts] [runs]}. Give the JVM enough heap
+ * (for example {@code -Xmx4g}) for the accounts.
+ */
+public class AnalyticsBenchmark {
+    /**
+     * Runs the benchmark.
+     * @param args The number of accounts, and the number of times to compute the totals
+     * @throws Exception If an account can't be created
+     */
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Bank bank = new Bank();
+        bank.getBusinessDate().set(LocalDate.parse("2022-01-31"));
+        List<BankAccount> list = new ArrayList<>(accounts);
+        Random random = new Random(1);
+        LocalDate opened = LocalDate.parse("2022-01-01");
+        for (int i = 0; i < accounts; i++) {
+            String number = String.valueOf(10_000_000 + i);
+            MonetaryValue balance = MonetaryValue.valueOf(random.nextInt(200_000) - 50_000);
+            BankAccount account;
+            switch (random.nextInt(3)) {
+                case 0:
+                    account = new BankAccount(number, balance.isNegative() ? MonetaryValue.ZERO : balance, opened,
+                            new Name("Jane", "Doe"));
+                    break;
+                case 1:
+                    account = new CDAccount(number, balance.isNegative() ? MonetaryValue.ZERO : balance, opened,
+                            new Name("Jane", "Doe"), Period.ofMonths(1 + random.nextInt(60)));
+                    break;
+                default:
+                    account = new CheckingAccount(number, balance, opened, new Name("Jane", "Doe"),
+                            MonetaryValue.valueOf(50_000));
+                    break;
+            }
+            bank.addAccount(account);
+            list.add(account);
+        }
+
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            long total = 0, overdraft = 0;
+            for (BankAccount account : list) {
+                long cents = account.getBalanceCents();
+                total += cents;
+                if (account instanceof CheckingAccount && cents < 0) {
+                    overdraft -= cents;
+                }
+            }
+            double walk = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            boolean same = bank.getTotalBalance().getCents() == total
+                    && bank.getTotalOverdraft().getCents() == overdraft;
+            double columns = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("run %d: objects %,.0f accounts/s, columns %,.0f accounts/s, same totals %b%n",
+                    run, accounts / walk, accounts / columns, same);
+        }
+
+        MonthEndRates rates = new MonthEndRates(new int[] {1, 12, 36}, new int[] {100, 250, 400}, 2500, 1800);
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            MonthEndSummary summary = bank.applyMonthEnd(rates);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("month end %d: %,.0f accounts/s, %s%n", run, accounts / seconds, summary);
+        }
+
+        File directory = Files.createTempDirectory("eod").toFile();
+        System.out.println("end of day " + new EndOfDay(bank, rates, directory, Duration.ofMinutes(5)).rollover());
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+}
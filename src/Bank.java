@@ -1,152 +1,355 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.time.LocalDate;
-import java.time.Period;
 import java.util.ArrayList;
-import java.util.InputMismatchException;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * A class for representing a bank. A bank has a list of accounts, which can be
  * plain bank accounts, checking accounts, or CD accounts.
+ * <p>
+ * A bank can be used from several threads at once. Operations on different accounts
+ * run in parallel, while operations on the same account are serialized by a lock
+ * chosen from a fixed set of lock stripes according to the account number. Adding and
+ * closing accounts take an exclusive lock on the list of accounts, so that duplicate
+ * account numbers are always rejected.
+ * <p>
+ * A bank can record its changes in a journal (see {@code openJournal}), so that they
+ * survive a crash; the journal is replayed on top of the last snapshot by
+ * {@code recover}. It can also write incremental checkpoints in the background (see
+ * {@code startCheckpoints}), which save only the accounts that changed and keep the
+ * journal short.
  */
 public class Bank {
     /**
-     * The list of accounts in this bank.
+     * The accounts in this bank, and an index of them keyed on account number (see
+     * {@code AccountStore}).
      */
-    private ArrayList<BankAccount> accounts;
+    private final AccountStore store;
 
     /**
-     * Creates the ArrayList. Then reads the file line by line, passing each line to
-     * the
-     * processLine method for processing. If any exception occurs during the
-     * processing of a
-     * line, prints the exception and moves on to the next line.
+     * The business date, which CD withdrawals are checked against.
+     */
+    private final BusinessDate businessDate;
+
+    /**
+     * The number of lock stripes. Must be a power of two.
+     */
+    private static final int STRIPES = 1024;
+
+    /**
+     * The lock stripes. All operations on an account synchronize on
+     * {@code stripes[stripe(accountNumber)]}.
+     */
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * Guards the store of accounts: lookups hold the read lock, while
+     * adding or closing an account holds the write lock.
+     */
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    /**
+     * The CD accounts that haven't matured yet, in order of maturity date. Guarded by the
+     * write lock of {@code structureLock}.
+     */
+    private final MaturitySchedule maturities = new MaturitySchedule();
+
+    /**
+     * Told about the CD accounts that mature.
+     */
+    private final List<MaturityListener> maturityListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The lines rejected when the accounts were read from a file.
+     */
+    private final LoadRejects loadRejects = new LoadRejects();
+
+    /**
+     * The journal every change to the bank is recorded in, or {@code null} if changes
+     * aren't being recorded.
+     */
+    private volatile Journal journal;
+
+    /**
+     * The set in which changed accounts are marked while checkpoints are being written,
+     * or {@code null} otherwise.
+     */
+    private volatile DirtyAccounts dirty;
+
+    /**
+     * Writes the checkpoints, or {@code null} if none are being written. Guarded by
+     * this bank's lock.
+     */
+    private Checkpointer checkpointer;
+
+    /**
+     * Creates a bank with no accounts.
+     */
+    public Bank() {
+        this(new BusinessDate());
+    }
+
+    /**
+     * Creates a bank with no accounts, whose business date is the specified one. CD
+     * withdrawals are checked against it, and the end-of-day batch moves it on.
+     * 
+     * @param businessDate The business date
+     */
+    public Bank(BusinessDate businessDate) {
+        this(new HeapAccountStore(businessDate), businessDate);
+    }
+
+    /**
+     * Creates a bank with no accounts, which keeps its accounts in the specified store.
+     * 
+     * @param store        The store, which must be empty
+     * @param businessDate The business date, which must be the store's
+     */
+    Bank(AccountStore store, BusinessDate businessDate) {
+        this.store = store;
+        this.businessDate = businessDate;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Creates the bank, then reads the file line by line, turning each line into an
+     * account and adding it to the bank. If anything is wrong with a line (see
+     * {@code AccountLineParser} for the expected format), records the line number, the
+     * reason and the position of the line, and moves on to the next line. Blank lines
+     * are skipped. At the end, if any lines were rejected, they are written to a file
+     * named after the input file with ".rejects" appended (see
+     * {@code LoadRejects.writeTo}), and a summary is printed.
+     * <p>
+     * The file is read through a {@code FileChannel} into a reusable buffer, and each
+     * line is parsed in place, without splitting it into strings first.
      * 
      * @param file The file from which to read the accounts
      */
     public Bank(File file) {
-        accounts = new ArrayList<>();
-        try (Scanner sc = new Scanner(file)) {
-            while (sc.hasNext()) {
-
-                try {
-                    processLine(sc.nextLine());
-                } catch (Exception ex) {
-                    System.out.println(ex);
-                }
+        this(file, false);
+    }
 
+    /**
+     * Creates the bank and reads the accounts from the file, as {@code Bank(File)} does,
+     * optionally parsing the file in parallel. In parallel mode the file is split into
+     * chunks at line boundaries, the chunks are parsed on the common fork/join pool, and
+     * the results are then added to the bank in file order. The outcome, including which
+     * lines are rejected and why, is the same as in sequential mode: when an account
+     * number appears more than once, the first occurrence wins.
+     * 
+     * @param file     The file from which to read the accounts
+     * @param parallel Whether to parse the file in parallel
+     */
+    public Bank(File file, boolean parallel) {
+        this();
+        try {
+            if (parallel) {
+                loadParallel(file);
+            } else {
+                loadSequential(file);
             }
-        } catch (FileNotFoundException ex) {
+        } catch (IOException ex) {
             System.out.println(ex);
         }
+        reportRejects(file);
     }
 
     /**
-     * Processes one line of input. Divides the line up into its parts, creates an
-     * account of
-     * the appropriate type containing the information from the line, and adds the
-     * account
-     * to the list of accounts.
-     * <p>
-     * The line is expected to be made up of the following five (or six)
-     * comma-separated values:
-     * <ul>
-     * <li>The type of account: "BankAccount" or "CDAccount" or
-     * "CheckingAccount"</li>
-     * <li>The account number</li>
-     * <li>The balance as a {@code double}</li>
-     * <li>The date the account was opened, in the form year-month-dayOfMonth (for
-     * example, 2020-08-23)</li>
-     * <li>The name of the account holder</li>
-     * </ul>
-     * At the end the line, if it's a CD account, there should be an integer
-     * representing
-     * the length of the term in months; if it's a checking account there should
-     * instead be
-     * the overdraft limit as a {@code double}.
+     * Creates a bank with no accounts, which keeps its accounts outside the Java heap in
+     * fixed-width records (see {@code OffHeapAccountStore}). Each account takes 72 bytes,
+     * and the garbage collector has nothing to trace for it, so a bank with millions of
+     * accounts uses far less heap and causes much shorter pauses.
      * <p>
-     * <b>Note:</b> The following methods may be helpful: the
-     * <a href=
-     * "https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/lang/String.html#split(java.lang.String)"
-     * target="_blank">split method</a>
-     * of the String class, and the
-     * <a href=
-     * "https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/time/LocalDate.html#parse(java.lang.CharSequence)"
-     * target="_blank">parse method</a>
-     * or <a href=
-     * "https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/time/LocalDate.html#of(int,int,int)"
-     * target="_blank">of method</a>
-     * of the LocalDate class.
+     * The bank works just like any other, but the accounts it returns, such as from
+     * {@code closeAccount}, aren't the objects that were added: an account is copied into
+     * the bank when it's added, and changes made afterwards to the object that was added
+     * don't change the bank.
      * 
-     * @param line The line to process
-     * @throws DuplicateAccountNumberException If the account number already exists
-     *                                         in the bank
-     * @throws InvalidAccountNumberException   If the account number is invalid
-     * @throws InvalidNameException            If the name does not consist of
-     *                                         either two or three parts
-     * @throws InputMismatchException          If the first item on the line isn't
-     *                                         one of the three account types
+     * @return The bank
      */
-    private void processLine(String line)
-            throws DuplicateAccountNumberException, InvalidAccountNumberException,
-            InvalidNameException, InputMismatchException {
-
-        String[] tokens = line.split(",");
+    public static Bank offHeap() {
+        return offHeap(new BusinessDate());
+    }
 
-        String accounttype = tokens[0];
+    /**
+     * Creates a bank with no accounts, which keeps its accounts outside the Java heap
+     * (see {@code offHeap()}), and whose business date is the specified one.
+     * 
+     * @param businessDate The business date
+     * @return The bank
+     */
+    public static Bank offHeap(BusinessDate businessDate) {
+        return new Bank(new OffHeapAccountStore(businessDate), businessDate);
+    }
 
-        if (! (accounttype.equals("BankAccount") || accounttype.equals("CDAccount")
-                || accounttype.equals("CheckingAccount"))) {
-            throw new InputMismatchException("incorrect accounttype: " + accounttype);
-        }
+    /**
+     * Reads the accounts from the file on the calling thread.
+     * 
+     * @param file The file from which to read the accounts
+     * @throws IOException If the file can't be read
+     */
+    private void loadSequential(File file) throws IOException {
+        AccountLineParser parser = new AccountLineParser();
+        IntPredicate taken = key -> fetchaccount(key) != null;
+        CsvLineReader.read(file, (buf, start, end, lineNumber, offset) -> {
+            BankAccount acc = parser.parse(buf, start, end, taken);
+            if (acc == null) {
+                loadRejects.add(lineNumber, parser.reason(), offset);
+            } else if (!add(acc)) {
+                loadRejects.add(lineNumber, LoadRejects.DUPLICATE, offset);
+            }
+        });
+    }
 
-        String accountNumber = tokens[1];
+    /**
+     * Parses the file in parallel, then adds the accounts to the bank and records the
+     * rejected lines in file order. A line that was rejected after the point where its
+     * account number would have been checked is rejected as a duplicate if the number is
+     * already taken by then, just as {@code loadSequential} would reject it.
+     * 
+     * @param file The file from which to read the accounts
+     * @throws IOException If the file can't be read
+     */
+    private void loadParallel(File file) throws IOException {
+        List<ParallelAccountLoader.Chunk> chunks = ParallelAccountLoader.parse(file, ForkJoinPool.commonPool());
 
-        if (fetchaccount(accountNumber) != null) {
-            throw new DuplicateAccountNumberException(accountNumber);
+        int total = 0;
+        for (ParallelAccountLoader.Chunk chunk : chunks) {
+            total += chunk.accounts.size();
         }
-
-        String[] accountname = tokens[4].split(" ");
-
-        if (accountname.length != 2 && accountname.length != 3) {
-            throw new InvalidNameException(tokens[4]);
+        structureLock.writeLock().lock();
+        try {
+            store.ensureCapacity(store.size() + total);
+        } finally {
+            structureLock.writeLock().unlock();
         }
 
-        Name name;
-
-        if (accountname.length == 2) {
-            name = new Name(accountname[0], accountname[1]);
-        } else {
-            name = new Name(accountname[0], accountname[1], accountname[2]);
+        long firstLine = 0;
+        for (ParallelAccountLoader.Chunk chunk : chunks) {
+            LoadRejects rejects = chunk.rejects;
+            int a = 0, r = 0;
+            while (a < chunk.accounts.size() || r < rejects.size()) {
+                if (r == rejects.size()
+                        || (a < chunk.accounts.size() && chunk.accountLines[a] < rejects.lineNumber(r))) {
+                    if (!add(chunk.accounts.get(a))) {
+                        loadRejects.add(firstLine + chunk.accountLines[a], LoadRejects.DUPLICATE,
+                                chunk.accountOffsets[a]);
+                    }
+                    a++;
+                } else {
+                    int key = chunk.rejectKeys[r];
+                    byte reason = key >= 0 && fetchaccount(key) != null ? LoadRejects.DUPLICATE : rejects.reason(r);
+                    loadRejects.add(firstLine + rejects.lineNumber(r), reason, rejects.offset(r));
+                    r++;
+                }
+            }
+            firstLine += chunk.lines;
         }
-        
-        LocalDate date = LocalDate.parse(tokens[3]);
+    }
 
-        MonetaryValue balance = new MonetaryValue(Double.parseDouble(tokens[2]));
+    /**
+     * Writes the lines rejected while reading the specified file to its rejects file,
+     * and prints a summary. Does nothing if no lines were rejected.
+     * 
+     * @param file The file from which the accounts were read
+     */
+    private void reportRejects(File file) {
+        if (loadRejects.size() == 0) {
+            return;
+        }
+        File rejectsFile = new File(file.getPath() + ".rejects");
+        try {
+            loadRejects.writeTo(rejectsFile);
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+        System.out.println(loadRejects.summary(rejectsFile));
+    }
 
-        BankAccount acc;
-        
-        switch (accounttype) {
-            
-            case "CDAccount":
-                int period = Integer.parseInt(tokens[5]);
-                Period term = Period.ofMonths(period);
-                acc = new CDAccount(accountNumber, balance, date, name, term);
-                break;
-            case "CheckingAccount":
-                MonetaryValue overdraftlimit = new MonetaryValue(Double.parseDouble(tokens[5]));
-                acc = new CheckingAccount(accountNumber, balance, date, name, overdraftlimit);
-                break;
-            default:
-                acc = new BankAccount(accountNumber, balance, date, name);
-                break;
+    /**
+     * Saves the accounts in this bank to a binary snapshot (see {@code BankSnapshot}),
+     * which {@code loadSnapshot} can read back much faster than an accounts file.
+     * 
+     * @param file The file to save the snapshot to
+     * @throws IOException If the file can't be written
+     */
+    public void saveSnapshot(File file) throws IOException {
+        writeSnapshot(file);
+    }
 
+    /**
+     * Saves the accounts in this bank to a binary snapshot, like {@code saveSnapshot}.
+     * 
+     * @param file The file to save the snapshot to
+     * @return The number of accounts saved
+     * @throws IOException If the file can't be written
+     */
+    int writeSnapshot(File file) throws IOException {
+        structureLock.readLock().lock();
+        try {
+            BankSnapshot.write(store.accounts(), file);
+            return store.size();
+        } finally {
+            structureLock.readLock().unlock();
         }
+    }
 
-        accounts.add(acc);
+    /**
+     * Creates a bank holding the accounts in a binary snapshot saved by
+     * {@code saveSnapshot}, in the same order. The snapshot is memory-mapped, and its
+     * records are decoded in parallel on the common fork/join pool.
+     * 
+     * @param file The snapshot file
+     * @return The bank
+     * @throws IOException If the file can't be read, isn't a snapshot, or is corrupt
+     */
+    public static Bank loadSnapshot(File file) throws IOException {
+        List<BankAccount> loaded = BankSnapshot.read(file, ForkJoinPool.commonPool());
+        Bank bank = new Bank();
+        bank.structureLock.writeLock().lock();
+        try {
+            bank.store.ensureCapacity(loaded.size());
+            for (BankAccount account : loaded) {
+                if (!bank.store.add(account)) {
+                    throw new IOException("Corrupt bank snapshot, duplicate account number "
+                            + account.getAccountNumber() + ": " + file);
+                }
+                bank.scheduleMaturity(account);
+            }
+        } finally {
+            bank.structureLock.writeLock().unlock();
+        }
+        return bank;
+    }
 
+    /**
+     * Returns the lines that were rejected when the accounts were read from a file.
+     * 
+     * @return The rejected lines; empty if the bank wasn't read from a file or no
+     *         lines were rejected
+     */
+    public LoadRejects getLoadRejects() {
+        return loadRejects;
     }
 
     /**
@@ -160,12 +363,156 @@ public class Bank {
      */
     public void addAccount(BankAccount account) throws DuplicateAccountNumberException {
 
-        BankAccount tocheck = fetchaccount(account.getAccountNumber());
-
-        if (tocheck != null) {
+        if (!add(account)) {
            throw new DuplicateAccountNumberException(account.getAccountNumber());
         }
-        accounts.add(account);
+    }
+
+    /**
+     * Closes the account with the specified account number. The account is removed
+     * from the bank, and its account number is released so that it can be given to
+     * a new account later.
+     * 
+     * @param accountNumber The account number of the account to close
+     * @return The account that was closed
+     * @throws NonexistentAccountException If there is no account in the bank with
+     *                                     the specified account number
+     */
+    public BankAccount closeAccount(String accountNumber) throws NonexistentAccountException {
+
+        int key = AccountIndex.toKey(accountNumber);
+        BankAccount tocheck;
+        Journal j = journal;
+        long position = -1;
+
+        synchronized (stripes[stripe(key)]) {
+            structureLock.writeLock().lock();
+            try {
+                tocheck = store.remove(key);
+                if (tocheck != null) {
+                    markDirty(key);
+                    position = log(j, journal -> journal.appendClose(key));
+                }
+            } finally {
+                structureLock.writeLock().unlock();
+            }
+        }
+
+        if (tocheck == null) {
+            throw new NonexistentAccountException(accountNumber);
+        }
+        sync(j, position);
+        BankAccount.releaseAccountNumber(accountNumber);
+        return tocheck;
+    }
+
+    /**
+     * Adds the specified account to the store of accounts, unless
+     * the bank already has an account with the same account number. The check and
+     * the insertion happen under the write lock, so they are atomic. If the bank has a
+     * journal, the new account is recorded in it before this method returns. If the bank
+     * is writing checkpoints, the account's changes are tracked from now on.
+     * 
+     * @param account The account to add
+     * @return {@code true} if the account was added, {@code false} if its account
+     *         number was already in use
+     */
+    private boolean add(BankAccount account) {
+        long position;
+        int key = AccountIndex.toKey(account.getAccountNumber());
+        Journal j = journal;
+        structureLock.writeLock().lock();
+        try {
+            if (!store.add(account)) {
+                return false;
+            }
+            scheduleMaturity(account);
+            markDirty(key);
+            position = j == null ? -1 : j.appendAdd(account);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+        sync(j, position);
+        return true;
+    }
+
+    /**
+     * Adds an account to the schedule of maturities if it's a CD account that hasn't
+     * matured yet. This is called while holding the write lock.
+     * 
+     * @param account The account
+     */
+    private void scheduleMaturity(BankAccount account) {
+        if (account instanceof CDAccount) {
+            long maturityDay = ((CDAccount) account).getMaturityDay();
+            if (maturityDay > businessDate.today()) {
+                maturities.add(maturityDay, AccountIndex.toKey(account.getAccountNumber()));
+            }
+        }
+    }
+
+    /**
+     * Registers a listener to be told about the CD accounts that mature (see
+     * {@code processMaturities}).
+     * 
+     * @param listener The listener
+     */
+    public void addMaturityListener(MaturityListener listener) {
+        maturityListeners.add(listener);
+    }
+
+    /**
+     * Finds the CD accounts in the bank that have matured since maturities were last
+     * processed, and tells the maturity listeners about them, all in one batch. This is
+     * meant to be called once a day, when the date changes. Withdrawals from a CD account
+     * are allowed from its maturity date on, whether or not this has been called.
+     * <p>
+     * The bank keeps its CD accounts that haven't matured in order of maturity date (see
+     * {@code MaturitySchedule}), so only the accounts that have matured are looked at.
+     * Accounts that were closed, or had already matured when they were added, are left
+     * out.
+     * 
+     * @return The accounts that have matured, in order of maturity date
+     */
+    public List<CDAccount> processMaturities() {
+        return processMaturities(LocalDate.ofEpochDay(businessDate.today()));
+    }
+
+    /**
+     * Processes the maturities up to the specified date, as {@code processMaturities()}
+     * does for today's date.
+     * 
+     * @param date The date
+     * @return The accounts that have matured on or before {@code date}, in order of
+     *         maturity date
+     */
+    List<CDAccount> processMaturities(LocalDate date) {
+        List<CDAccount> matured = new ArrayList<>();
+        structureLock.writeLock().lock();
+        try {
+            long previous = 0;
+            for (long entry : maturities.takeDue(date.toEpochDay())) {
+                if (entry == previous) {
+                    continue; // the account was closed and added again
+                }
+                previous = entry;
+                BankAccount account = store.get(MaturitySchedule.key(entry));
+                // the account may have been closed, or replaced by another with the same number
+                if (account instanceof CDAccount
+                        && ((CDAccount) account).getMaturityDay() == MaturitySchedule.day(entry)) {
+                    matured.add((CDAccount) account);
+                }
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+
+        if (!matured.isEmpty()) {
+            for (MaturityListener listener : maturityListeners) {
+                listener.matured(Collections.unmodifiableList(matured), date);
+            }
+        }
+        return matured;
     }
 
     /**
@@ -179,17 +526,68 @@ public class Bank {
      * @throws NonexistentAccountException    If there is no account in the bank
      *                                        with the
      *                                        specified account number
+     * @throws ArithmeticException            If the balance would overflow; nothing
+     *                                        is deposited
      */
     public void deposit(String accountNumber, MonetaryValue amount)
             throws NegativeMonetaryValueException, NonexistentAccountException {
 
-        BankAccount tocheck = fetchaccount(accountNumber);
-        
-        if (tocheck == null) {
+        byte status = tryDepositCents(accountNumber, amount.getCents());
+        if (status == OperationStatus.NO_ACCOUNT) {
             throw new NonexistentAccountException(accountNumber);
+        } else if (status == OperationStatus.NEGATIVE) {
+            throw new NegativeMonetaryValueException(amount);
+        } else if (status == OperationStatus.OVERFLOW) {
+            throw new ArithmeticException("The balance would overflow");
         }
-        
-        tocheck.deposit(amount);
+    }
+
+    /**
+     * Deposits the specified amount of money into the account with the specified
+     * account number, reporting a failure with a status code instead of an exception.
+     * See {@code tryDepositCents}.
+     * 
+     * @param accountNumber The account number of the account we are interested in
+     * @param amount        The amount to deposit
+     * @return The status of the deposit (see {@code OperationStatus})
+     */
+    public byte tryDeposit(String accountNumber, MonetaryValue amount) {
+        return tryDepositCents(accountNumber, amount.getCents());
+    }
+
+    /**
+     * Deposits the specified number of cents into the account with the specified
+     * account number, reporting a failure with a status code instead of an exception,
+     * so it allocates nothing, whether or not it succeeds. {@code deposit} calls this
+     * method.
+     * 
+     * @param accountNumber The account number of the account we are interested in
+     * @param cents         The amount to deposit, in cents
+     * @return {@code OperationStatus.OK}; {@code OperationStatus.NO_ACCOUNT} if there is
+     *         no account in the bank with the specified account number; or the reason
+     *         the account declined the deposit (see {@code BankAccount.tryDepositCents}).
+     *         Nothing is deposited unless the status is {@code OK}.
+     */
+    public byte tryDepositCents(String accountNumber, long cents) {
+        int key = AccountIndex.toKey(accountNumber);
+        Journal j = journal;
+        long position;
+
+        synchronized (stripes[stripe(key)]) {
+            BankAccount tocheck = fetchaccount(key);
+
+            if (tocheck == null) {
+                return OperationStatus.NO_ACCOUNT;
+            }
+
+            byte status = tocheck.tryDepositCents(cents);
+            if (status != OperationStatus.OK) {
+                return status;
+            }
+            position = logBalance(j, key, tocheck);
+        }
+        sync(j, position);
+        return OperationStatus.OK;
     }
 
     /**
@@ -218,13 +616,246 @@ public class Bank {
             throws NegativeMonetaryValueException, NonexistentAccountException,
             InsufficientFundsException, WithdrawalDuringTermException {
 
-        BankAccount tocheck = fetchaccount(accountNumber);
+        int key = AccountIndex.toKey(accountNumber);
+        long cents = amount.getCents();
+        Journal j = journal;
+        long position;
 
-        if (tocheck == null) {
-            throw new NonexistentAccountException(accountNumber);
+        synchronized (stripes[stripe(key)]) {
+            BankAccount tocheck = fetchaccount(key);
+
+            if (tocheck == null) {
+                throw new NonexistentAccountException(accountNumber);
+            }
+
+            byte status = tocheck.tryWithdrawCents(cents);
+            if (status != OperationStatus.OK) {
+                // the stripe is still held, so this is the balance the withdrawal was declined on
+                tocheck.fail(status, cents, tocheck.getBalanceCents());
+            }
+            position = logBalance(j, key, tocheck);
+        }
+        sync(j, position);
+    }
+
+    /**
+     * Withdraws the specified amount of money from the account with the specified
+     * account number, reporting a failure with a status code instead of an exception.
+     * See {@code tryWithdrawCents}.
+     * 
+     * @param accountNumber The account number of the account we are interested in
+     * @param amount        The amount to withdraw
+     * @return The status of the withdrawal (see {@code OperationStatus})
+     */
+    public byte tryWithdraw(String accountNumber, MonetaryValue amount) {
+        return tryWithdrawCents(accountNumber, amount.getCents());
+    }
+
+    /**
+     * Withdraws the specified number of cents from the account with the specified
+     * account number, reporting a failure with a status code instead of an exception.
+     * A declined withdrawal is normal traffic: it builds no exception or message and
+     * allocates nothing, and neither does a successful one.
+     * 
+     * @param accountNumber The account number of the account we are interested in
+     * @param cents         The amount to withdraw, in cents
+     * @return {@code OperationStatus.OK}; {@code OperationStatus.NO_ACCOUNT} if there is
+     *         no account in the bank with the specified account number; or the reason
+     *         the account declined the withdrawal (see
+     *         {@code BankAccount.tryWithdrawCents}). Nothing is withdrawn unless the
+     *         status is {@code OK}.
+     */
+    public byte tryWithdrawCents(String accountNumber, long cents) {
+        int key = AccountIndex.toKey(accountNumber);
+        Journal j = journal;
+        long position;
+
+        synchronized (stripes[stripe(key)]) {
+            BankAccount tocheck = fetchaccount(key);
+
+            if (tocheck == null) {
+                return OperationStatus.NO_ACCOUNT;
+            }
+
+            byte status = tocheck.tryWithdrawCents(cents);
+            if (status != OperationStatus.OK) {
+                return status;
+            }
+            position = logBalance(j, key, tocheck);
+        }
+        sync(j, position);
+        return OperationStatus.OK;
+    }
+
+    /**
+     * Transfers the specified amount of money from one account to another. The transfer
+     * is atomic: either the money leaves the first account and arrives in the second,
+     * or (if an exception is thrown) neither account changes. The withdrawal follows
+     * the rules of the source account's type, exactly as {@code withdraw} does.
+     * <p>
+     * Both accounts' lock stripes are held for the whole transfer. They are always
+     * acquired in stripe order, so two transfers going in opposite directions can't
+     * deadlock.
+     * 
+     * @param fromAccountNumber The account number of the account to take money from
+     * @param toAccountNumber   The account number of the account to put money into
+     * @param amount            The amount to transfer
+     * @throws NegativeMonetaryValueException If the amount to transfer is negative
+     * @throws NonexistentAccountException    If either account number doesn't belong
+     *                                        to an account in the bank
+     * @throws InsufficientFundsException     If there are insufficient funds in the
+     *                                        source account
+     * @throws WithdrawalDuringTermException  If the source account is a CD account
+     *                                        and it is still during the term
+     */
+    public void transfer(String fromAccountNumber, String toAccountNumber, MonetaryValue amount)
+            throws NegativeMonetaryValueException, NonexistentAccountException,
+            InsufficientFundsException, WithdrawalDuringTermException {
+
+        int fromKey = AccountIndex.toKey(fromAccountNumber);
+        int toKey = AccountIndex.toKey(toAccountNumber);
+        int fromStripe = stripe(fromKey), toStripe = stripe(toKey);
+        Journal j = journal;
+        long position;
+
+        synchronized (stripes[Math.min(fromStripe, toStripe)]) {
+            synchronized (stripes[Math.max(fromStripe, toStripe)]) {
+                BankAccount source = fetchaccount(fromKey);
+                if (source == null) {
+                    throw new NonexistentAccountException(fromAccountNumber);
+                }
+
+                BankAccount target = fetchaccount(toKey);
+                if (target == null) {
+                    throw new NonexistentAccountException(toAccountNumber);
+                }
+
+                source.withdraw(amount);
+                try {
+                    target.deposit(amount);
+                } catch (RuntimeException ex) {
+                    source.deposit(amount);
+                    throw ex;
+                }
+                position = log(j, journal -> journal.appendTransfer(fromKey, source.getBalanceCents(),
+                        toKey, target.getBalanceCents()));
+            }
+        }
+        sync(j, position);
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals, one at a time on the calling thread.
+     * See {@code applyBatch(List, boolean)}.
+     * 
+     * @param operations The operations to apply
+     * @return The status of each operation (see {@code OperationStatus})
+     */
+    public byte[] applyBatch(List<BankOperation> operations) {
+        return applyBatch(operations, false);
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals. See {@code applyBatch(List, boolean)}.
+     * 
+     * @param operations The operations to apply
+     * @param parallel   Whether to apply the operations on different accounts in parallel
+     * @return The status of each operation (see {@code OperationStatus})
+     */
+    public byte[] applyBatch(Stream<BankOperation> operations, boolean parallel) {
+        return applyBatch(operations.collect(Collectors.toList()), parallel);
+    }
+
+    /**
+     * Applies a batch of deposits and withdrawals. Instead of throwing an exception when
+     * an operation fails, the status of every operation is reported in the returned array:
+     * element {@code i} is one of the codes in {@code OperationStatus} for operation
+     * {@code i}. A failed operation has no effect, and doesn't stop the rest of the batch.
+     * <p>
+     * The operations are grouped by account, so each account is looked up and locked only
+     * once. If the bank has a journal, each account's balance after its operations is
+     * recorded, and the whole batch is on disk before this method returns. The
+     * operations on any one account are applied in the order they appear in the batch;
+     * if {@code parallel} is {@code true}, different accounts are processed in parallel
+     * on the common fork/join pool.
+     * 
+     * @param operations The operations to apply
+     * @param parallel   Whether to apply the operations on different accounts in parallel
+     * @return The status of each operation (see {@code OperationStatus})
+     */
+    public byte[] applyBatch(List<BankOperation> operations, boolean parallel) {
+        BankOperation[] ops = operations.toArray(new BankOperation[0]);
+        byte[] results = new byte[ops.length];
+
+        // sort (key, position) pairs, so that each account's operations end up together, in order
+        long[] order = new long[ops.length];
+        int valid = 0;
+        for (int i = 0; i < ops.length; i++) {
+            int key = AccountIndex.toKey(ops[i].getAccountNumber());
+            if (key < 0) {
+                results[i] = OperationStatus.NO_ACCOUNT;
+            } else {
+                order[valid++] = (long) key << 32 | i;
+            }
+        }
+        Arrays.sort(order, 0, valid);
+
+        int[] starts = new int[valid + 1];
+        int groups = 0;
+        for (int j = 0; j < valid; j++) {
+            if (j == 0 || (order[j] >>> 32) != (order[j - 1] >>> 32)) {
+                starts[groups++] = j;
+            }
+        }
+        starts[groups] = valid;
+
+        IntStream range = IntStream.range(0, groups);
+        if (parallel) {
+            range = range.parallel();
+        }
+        Journal j = journal;
+        sync(j, range.mapToLong(g -> applyGroup(j, ops, order, starts[g], starts[g + 1], results)).max().orElse(-1));
+        return results;
+    }
+
+    /**
+     * Applies the operations on one account, as part of {@code applyBatch}.
+     * 
+     * @param journal The journal to record the account's balance in, or {@code null}
+     * @param ops     The operations in the batch
+     * @param order   The sorted (key, position) pairs built by {@code applyBatch}
+     * @param from    The first element of {@code order} that belongs to the account
+     * @param to      One past the last element of {@code order} that belongs to the account
+     * @param results The array in which to record the status of each operation
+     * @return The journal position to wait for (see {@code log}), or -1 if there is
+     *         none
+     */
+    private long applyGroup(Journal journal, BankOperation[] ops, long[] order, int from, int to, byte[] results) {
+        int key = (int) (order[from] >>> 32);
+
+        synchronized (stripes[stripe(key)]) {
+            BankAccount account = fetchaccount(key);
+            boolean changed = false;
+
+            for (int j = from; j < to; j++) {
+                int i = (int) order[j];
+                results[i] = account == null ? OperationStatus.NO_ACCOUNT : apply(account, ops[i]);
+                changed |= results[i] == OperationStatus.OK;
+            }
+            return changed ? logBalance(journal, key, account) : -1;
         }
+    }
 
-        tocheck.withdraw(amount);
+    /**
+     * Applies one operation to the specified account.
+     * 
+     * @param account   The account
+     * @param operation The operation
+     * @return The status of the operation (see {@code OperationStatus})
+     */
+    private static byte apply(BankAccount account, BankOperation operation) {
+        long cents = operation.getAmount().getCents();
+        return operation.isDeposit() ? account.tryDepositCents(cents) : account.tryWithdrawCents(cents);
     }
 
     /**
@@ -237,26 +868,583 @@ public class Bank {
      */
     public MonetaryValue getBalance(String accountNumber) throws NonexistentAccountException {
 
-        BankAccount tocheck = fetchaccount(accountNumber);
-        if (tocheck == null) {
-            throw new NonexistentAccountException(accountNumber);
+        int key = AccountIndex.toKey(accountNumber);
+
+        synchronized (stripes[stripe(key)]) {
+            BankAccount tocheck = fetchaccount(key);
+            if (tocheck == null) {
+                throw new NonexistentAccountException(accountNumber);
+            }
+            return tocheck.getBalance();
         }
-        return tocheck.getBalance();
     }
 
-    /** Simple method to find an account in the arraylist of bankaccounts based on a string accountnumber.
+    /**
+     * Returns the total of the balances of all the accounts in the bank. Like the other
+     * bank-wide totals, this is computed from the accounts laid out as columns (see
+     * {@code AccountColumns}), not by walking the accounts, and isn't a consistent
+     * snapshot if balances change while it's computed.
+     * 
+     * @return The total balance
+     * @throws ArithmeticException If the total overflows
+     */
+    public MonetaryValue getTotalBalance() {
+        return MonetaryValue.valueOf(query(AccountColumns::totalBalanceCents));
+    }
+
+    /**
+     * Returns the total amount by which the checking accounts in the bank are
+     * overdrawn: the sum of the negative balances, as a positive amount.
+     * 
+     * @return The total overdraft
+     * @throws ArithmeticException If the total overflows
+     */
+    public MonetaryValue getTotalOverdraft() {
+        return MonetaryValue.valueOf(query(AccountColumns::totalOverdraftCents));
+    }
+
+    /**
+     * Returns the total of the overdraft limits of the checking accounts in the bank,
+     * which is the most they could be overdrawn by.
+     * 
+     * @return The total overdraft limit
+     * @throws ArithmeticException If the total overflows
+     */
+    public MonetaryValue getTotalOverdraftLimit() {
+        return MonetaryValue.valueOf(query(AccountColumns::totalOverdraftLimitCents));
+    }
+
+    /**
+     * Counts the accounts in the bank that were opened between two dates.
+     * 
+     * @param from The first date, inclusive
+     * @param to   The last date, inclusive
+     * @return The number of accounts
+     */
+    public long countAccountsOpened(LocalDate from, LocalDate to) {
+        return query(columns -> columns.countOpened(from, to));
+    }
+
+    /**
+     * Counts the CD accounts in the bank with each length of term.
+     * 
+     * @return The number of CD accounts for each term, in months, in order of term;
+     *         terms no CD account has are left out
+     */
+    public SortedMap<Integer, Long> countCDAccountsByTerm() {
+        structureLock.readLock().lock();
+        try {
+            return store.columns().countCDsByTerm();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the month-end rates to every account in the bank: credits interest to CD
+     * accounts, and charges fees to checking accounts that are overdrawn (see
+     * {@code MonthEndRates}). Fees are charged even if they take an account past its
+     * overdraft limit.
+     * <p>
+     * The amounts are computed from the balances as they are when this method is
+     * called, in tight loops over the accounts laid out as columns (see
+     * {@code AccountColumns}), in parallel. Each amount is then added to its account
+     * atomically, under the account's lock, so a deposit or withdrawal made in the
+     * meantime isn't lost. An account closed in the meantime, or closed and replaced by
+     * a different account with the same number (see {@code BankAccount.isSameAccount}),
+     * is skipped, as is an account whose balance would overflow; the summary counts
+     * the accounts skipped. If the bank has a journal, every changed balance is
+     * recorded, and all of them are on disk before this method returns, even if it
+     * throws an exception.
+     * 
+     * @param rates The rates
+     * @return What was credited and charged
+     * @throws ArithmeticException If an amount, or the total interest or fees, overflows;
+     *                             this is found out before any account is changed
+     */
+    public MonthEndSummary applyMonthEnd(MonthEndRates rates) {
+        int[] keys;
+        long[] adjustments;
+        BankAccount[] expected;
+        structureLock.readLock().lock();
+        try {
+            AccountColumns columns = store.columns();
+            keys = columns.keys();
+            adjustments = columns.monthEndAdjustments(rates);
+            expected = new BankAccount[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                if (adjustments[i] != 0) {
+                    expected[i] = store.get(keys[i]);
+                }
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+
+        // the totals of what is applied are parts of these, so can't overflow later
+        long interest = 0, fees = 0;
+        for (long adjustment : adjustments) {
+            if (adjustment > 0) {
+                interest = Math.addExact(interest, adjustment);
+            } else {
+                fees = Math.subtractExact(fees, adjustment);
+            }
+        }
+
+        boolean[] applied = new boolean[keys.length];
+        Journal j = journal;
+        LongAccumulator logged = new LongAccumulator(Math::max, -1);
+        try {
+            IntStream.range(0, keys.length).parallel()
+                    .filter(i -> adjustments[i] != 0)
+                    .forEach(i -> logged.accumulate(adjust(j, keys[i], expected[i], adjustments[i], applied, i)));
+        } finally {
+            sync(j, logged.get());
+        }
+
+        int credited = 0, charged = 0, skipped = 0;
+        interest = 0;
+        fees = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (adjustments[i] == 0) {
+                continue;
+            } else if (!applied[i]) {
+                skipped++;
+            } else if (adjustments[i] > 0) {
+                credited++;
+                interest += adjustments[i];
+            } else {
+                charged++;
+                fees -= adjustments[i];
+            }
+        }
+        return new MonthEndSummary(credited, interest, charged, fees, skipped);
+    }
+
+    /**
+     * Adds a month-end amount to an account, as part of {@code applyMonthEnd}.
+     * 
+     * @param j        The journal to record the new balance in, or {@code null}
+     * @param key      The account number as an index key
+     * @param expected The account the amount was computed for
+     * @param cents    The amount to add, in cents
+     * @param applied  The array in which to record that the amount was added
+     * @param row      The element of {@code applied} for this account
+     * @return The journal position to wait for (see {@code log}), or -1 if there is
+     *         none
+     */
+    private long adjust(Journal j, int key, BankAccount expected, long cents, boolean[] applied, int row) {
+        synchronized (stripes[stripe(key)]) {
+            BankAccount account = fetchaccount(key);
+            if (account == null || expected == null || !account.isSameAccount(expected)
+                    || !account.adjustBalanceCents(cents)) {
+                return -1;
+            }
+            applied[row] = true;
+            return logBalance(j, key, account);
+        }
+    }
+
+    /**
+     * Computes a number from the accounts laid out as columns, holding the read lock.
+     * 
+     * @param question Computes the number from the columns
+     * @return The number
+     */
+    private long query(ToLongFunction<AccountColumns> question) {
+        structureLock.readLock().lock();
+        try {
+            return question.applyAsLong(store.columns());
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /** Simple method to find an account in the bank based on a string accountnumber.
+     * The lookup goes through the index, so it takes constant time no matter how many
+     * accounts the bank has.
      * 
      * @param accountNumber
-     * @return null if the accountnumber does not exist in the arraylist of bankaccounts, the account if it does exist
+     * @return null if the accountnumber does not exist in the bank, the account if it does exist
      */
 
     private BankAccount fetchaccount(String accountNumber) {
-        for (BankAccount account : accounts) {
-            if (account.getAccountNumber().equals(accountNumber)) {
-                return account;
+        return fetchaccount(AccountIndex.toKey(accountNumber));
+    }
+
+    /** Finds an account in the bank based on its index key, holding the read lock
+     * while the index is searched.
+     * 
+     * @param key The account number as an index key (see {@code AccountIndex.toKey})
+     * @return null if the account does not exist in the bank, the account if it does exist
+     */
+    BankAccount fetchaccount(int key) {
+        structureLock.readLock().lock();
+        try {
+            return store.get(key);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks an account as changed, if the bank is writing checkpoints.
+     * 
+     * @param key The account number as an index key
+     */
+    private void markDirty(int key) {
+        DirtyAccounts d = dirty;
+        if (d != null) {
+            d.mark(key);
+        }
+    }
+
+    /**
+     * Returns the journal the bank records its changes in.
+     * 
+     * @return The journal, or {@code null} if the bank has none
+     */
+    Journal journal() {
+        return journal;
+    }
+
+    /**
+     * Returns the business date of this bank, which CD withdrawals are checked against
+     * and the end-of-day batch moves on. It follows the system clock unless the bank was
+     * created with another one, or it's set.
+     * 
+     * @return The business date
+     */
+    public BusinessDate getBusinessDate() {
+        return businessDate;
+    }
+
+    /**
+     * Returns the number of accounts in the bank.
+     * 
+     * @return The number of accounts
+     */
+    int size() {
+        structureLock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a change in a journal. This is called while the lock that protects the
+     * change is still held, so that the changes to any one account are recorded in the
+     * order they were made. The journal is read from {@code journal} once, before the
+     * change, and the same journal is then passed to {@code sync}, so a journal closed in
+     * the meantime is never replaced by {@code null} or by another journal halfway.
+     * 
+     * @param j      The journal, or {@code null} if the bank has none
+     * @param record Appends the record to the journal, returning its position
+     * @return The position to pass to {@code sync}, or -1 if nothing was recorded
+     */
+    private static long log(Journal j, ToLongFunction<Journal> record) {
+        return j == null ? -1 : record.applyAsLong(j);
+    }
+
+    /**
+     * Records an account's balance in a journal, as {@code log} does, but without
+     * creating a function to do it.
+     * 
+     * @param j       The journal, or {@code null} if the bank has none
+     * @param key     The account number as an index key
+     * @param account The account
+     * @return The position to pass to {@code sync}, or -1 if nothing was recorded
+     */
+    private static long logBalance(Journal j, int key, BankAccount account) {
+        return j == null ? -1 : j.appendBalance(key, account.getBalanceCents());
+    }
+
+    /**
+     * Waits until a change recorded by {@code log} is on disk. This is called after the
+     * lock that protected the change has been released, so other threads can make
+     * changes, and share the disk sync, in the meantime. If the journal has been closed
+     * since, the change was already put on disk by {@code closeJournal}.
+     * 
+     * @param j        The journal the change was recorded in
+     * @param position The position returned by {@code log}, or -1 to do nothing
+     * @throws UncheckedIOException If the journal can't be written; the change has been
+     *                              made, but may not survive a crash
+     */
+    private static void sync(Journal j, long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            j.await(position);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Starts recording every change to the bank in a journal. Any records already in
+     * the journal file, left there by an earlier run that didn't finish, are first
+     * replayed on the bank; a record that was only partly written is discarded. From
+     * then on every successful deposit, withdrawal, transfer, batch, new account and
+     * closed account is on disk before the method that made it returns.
+     * <p>
+     * Changes made directly to an account, without going through the bank, are not
+     * recorded.
+     * <p>
+     * While the bank writes checkpoints, the journal is split into segments, stored in
+     * files named after the journal file with ".1", ".2" and so on appended; they are
+     * all replayed in order.
+     * 
+     * @param file The journal file
+     * @return The number of records replayed
+     * @throws IOException If the journal can't be read or opened
+     */
+    public long openJournal(File file) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("The bank already has a journal");
+        }
+        Journal j = Journal.open(file, this);
+        journal = j;
+        return j.replayed();
+    }
+
+    /**
+     * Stops recording changes in the journal, making sure everything recorded so far is
+     * on disk, and closes the journal file. Does nothing if the bank has no journal.
+     * Changes being made at the same time are either recorded and put on disk before the
+     * journal is closed, or not recorded at all (see {@code Journal.close}).
+     * 
+     * @throws IOException If the journal can't be written or closed
+     */
+    public void closeJournal() throws IOException {
+        Journal j = journal;
+        if (j != null) {
+            journal = null;
+            j.close();
+        }
+    }
+
+    /**
+     * Restores a bank after a restart: loads the snapshot, if there is one, replays the
+     * journal on top of it, and goes on recording changes in the journal (see
+     * {@code openJournal}).
+     * 
+     * @param snapshot The snapshot file (see {@code saveSnapshot}); if it doesn't
+     *                 exist, the bank starts out empty
+     * @param journal  The journal file
+     * @return The bank
+     * @throws IOException If the snapshot or the journal can't be read
+     */
+    public static Bank recover(File snapshot, File journal) throws IOException {
+        Bank bank = snapshot.exists() ? loadSnapshot(snapshot) : new Bank();
+        bank.openJournal(journal);
+        return bank;
+    }
+
+    /**
+     * Restores a bank that was writing checkpoints (see {@code startCheckpoints}) after a
+     * restart: loads the snapshot, if there is one, replays the checkpoint file and then
+     * the journal on top of it, and goes on recording changes in the journal.
+     * Checkpoints aren't restarted.
+     * <p>
+     * The bank has the same accounts, in the same state, as when it stopped. Accounts
+     * that were added after the snapshot may be in a different order, since a
+     * checkpoint saves accounts in account number order. If the checkpoints were being
+     * compacted into the snapshot when the bank stopped, and the new snapshot was
+     * complete, it replaces the snapshot and the checkpoint file first.
+     * 
+     * @param snapshot    The snapshot file the checkpoints started from, or were last
+     *                    compacted into; if it doesn't exist, the bank starts out empty
+     * @param checkpoints The checkpoint file
+     * @param journal     The journal file
+     * @return The bank
+     * @throws IOException If the snapshot, the checkpoints or the journal can't be read
+     */
+    public static Bank recover(File snapshot, File checkpoints, File journal) throws IOException {
+        File compacted = Checkpointer.compacted(snapshot);
+        if (compacted.exists()) {
+            Checkpointer.finishCompaction(compacted, snapshot, checkpoints);
+        }
+        Bank bank = snapshot.exists() ? loadSnapshot(snapshot) : new Bank();
+        Journal.replayFile(checkpoints, bank);
+        bank.openJournal(journal);
+        return bank;
+    }
+
+    /**
+     * Starts writing incremental checkpoints in the background (see
+     * {@code Checkpointer}). From now on the bank tracks which accounts change, and
+     * at the specified interval it appends the accounts that changed to the checkpoint
+     * file, then deletes the part of the journal (if the bank has one) that came before.
+     * Deposits, withdrawals and transfers aren't held up while a checkpoint is written.
+     * <p>
+     * Only changes made from now on are saved, so the bank as it is now must already be
+     * recoverable from the snapshot, the checkpoint file and the journal that
+     * {@code recover(File, File, File)} will be given: for example, the bank was just
+     * restored with it, or just saved with {@code saveSnapshot}. The checkpoint file only
+     * ever grows; to have it compacted into the snapshot, use
+     * {@code startCheckpoints(File, File, long, TimeUnit)}.
+     * 
+     * @param file     The checkpoint file; checkpoints are appended to it
+     * @param interval The time between the end of one checkpoint and the start of the
+     *                 next
+     * @param unit     The unit of {@code interval}
+     * @throws IOException If the checkpoint file can't be opened
+     */
+    public void startCheckpoints(File file, long interval, TimeUnit unit) throws IOException {
+        startCheckpoints(null, file, interval, unit);
+    }
+
+    /**
+     * Starts writing incremental checkpoints in the background, like
+     * {@code startCheckpoints(File, long, TimeUnit)}, and compacts the checkpoint file
+     * into the snapshot whenever it holds more records than the bank has accounts: the
+     * checkpoint then saves the whole bank as the new snapshot, and empties the
+     * checkpoint file (see {@code Checkpointer}). Accounts can't be added or closed while
+     * the snapshot is saved, but deposits, withdrawals and transfers go on.
+     * 
+     * @param snapshot The snapshot file the bank as it is now is recoverable from, which
+     *                 is replaced when the checkpoints are compacted; may be
+     *                 {@code null}, to never compact them
+     * @param file     The checkpoint file
+     * @param interval The time between the end of one checkpoint and the start of the
+     *                 next
+     * @param unit     The unit of {@code interval}
+     * @throws IOException If the checkpoint file can't be opened
+     */
+    public synchronized void startCheckpoints(File snapshot, File file, long interval, TimeUnit unit)
+            throws IOException {
+        if (checkpointer != null) {
+            throw new IllegalStateException("The bank is already writing checkpoints");
+        }
+        DirtyAccounts d = new DirtyAccounts();
+        checkpointer = new Checkpointer(this, d, snapshot, file, interval, unit);
+        trackChanges(d);
+    }
+
+    /**
+     * Writes a checkpoint now, instead of waiting for the next one.
+     * 
+     * @return The number of accounts written
+     * @throws IOException If the checkpoint file or the journal can't be written
+     */
+    public synchronized long checkpoint() throws IOException {
+        if (checkpointer == null) {
+            throw new IllegalStateException("The bank isn't writing checkpoints");
+        }
+        return checkpointer.checkpoint();
+    }
+
+    /**
+     * Stops writing checkpoints, waiting for one in progress to finish, and closes the
+     * checkpoint file. Does nothing if the bank isn't writing checkpoints.
+     * 
+     * @throws IOException If the checkpoint file can't be closed, or a checkpoint
+     *                     written in the background failed
+     */
+    public synchronized void stopCheckpoints() throws IOException {
+        if (checkpointer != null) {
+            trackChanges(null);
+            Checkpointer c = checkpointer;
+            checkpointer = null;
+            c.close();
+        }
+    }
+
+    /**
+     * Starts or stops tracking which accounts change, for every account in the bank and
+     * every account added later.
+     * 
+     * @param d The set in which to mark changed accounts, or {@code null} to stop
+     *          tracking changes
+     */
+    private void trackChanges(DirtyAccounts d) {
+        structureLock.writeLock().lock();
+        try {
+            dirty = d;
+            store.trackChanges(d);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replays a journal record of an account's balance. Does nothing if there is no
+     * such account: when the journal is replayed on top of checkpoints, the account may
+     * already have been closed by a change recorded later in the journal.
+     * 
+     * @param key   The account number as an index key
+     * @param cents The balance, in cents
+     */
+    void replayBalance(int key, long cents) {
+        BankAccount account = fetchaccount(key);
+        if (account != null) {
+            account.setBalanceCents(cents);
+        }
+    }
+
+    /**
+     * Replays a journal record of a new account. If the bank already has the same
+     * account (see {@code BankAccount.isSameAccount}), only its balance is updated, so
+     * it keeps its place in the list of accounts; any other account with the same
+     * account number is replaced.
+     * 
+     * @param account The account
+     */
+    void replayAdd(BankAccount account) {
+        BankAccount existing = fetchaccount(AccountIndex.toKey(account.getAccountNumber()));
+        if (existing != null && existing.isSameAccount(account)) {
+            existing.setBalanceCents(account.getBalanceCents());
+            return;
+        }
+        remove(AccountIndex.toKey(account.getAccountNumber()));
+        add(account);
+    }
+
+    /**
+     * Replays a journal record of a closed account. Does nothing if there is no such
+     * account.
+     * 
+     * @param key The account number as an index key
+     */
+    void replayClose(int key) {
+        BankAccount account = remove(key);
+        if (account != null) {
+            BankAccount.releaseAccountNumber(account.getAccountNumber());
+        }
+    }
+
+    /**
+     * Removes the account with the specified key from the store of accounts, under the
+     * write lock.
+     * 
+     * @param key The account number as an index key
+     * @return The account removed, or {@code null} if there was none
+     */
+    private BankAccount remove(int key) {
+        structureLock.writeLock().lock();
+        try {
+            BankAccount account = store.remove(key);
+            if (account != null) {
+                markDirty(key);
             }
+            return account;
+        } finally {
+            structureLock.writeLock().unlock();
         }
-        return null;
+    }
+
+    /**
+     * Returns the lock stripe used for the account with the specified key. 
+     * 
+     * @param key The account number as an index key (see {@code AccountIndex.toKey})
+     * @return An index into {@code stripes}
+     */
+    private static int stripe(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
     }
 
     /**
@@ -268,8 +1456,13 @@ public class Bank {
     @Override
     public String toString() {
         StringBuilder res = new StringBuilder();
-        for (BankAccount account : accounts) {
-            res.append(account.toString() + "\n");
+        structureLock.readLock().lock();
+        try {
+            for (BankAccount account : store.accounts()) {
+                account.appendCsv(res).append('\n');
+            }
+        } finally {
+            structureLock.readLock().unlock();
         }
         return res.toString();
     }
@@ -277,14 +1470,71 @@ public class Bank {
     /**
      * Prints the bank to a file in comma-separated value format.
      * Each account is printed on its own line.
+     * <p>
+     * The file has exactly the contents it would have if {@code toString} were printed
+     * to it with {@code println}, but the accounts are written straight into a reusable
+     * buffer that's written to the file whenever it fills up, so no string holding the
+     * whole bank is built and the memory used doesn't grow with the number of accounts.
      * 
      * @param filename The name of the file to print to
      */
     public void printToFile(String filename) {
-        try (PrintWriter pw = new PrintWriter(filename)) {
-            pw.println(this.toString());
-        } catch (FileNotFoundException ex) {
+        printToFile(filename, false);
+    }
+
+    /**
+     * Prints the bank to a file, as {@code printToFile(String)} does, optionally
+     * formatting the accounts in parallel. In parallel mode the accounts are split into
+     * ranges, which are formatted into separate buffers on the common fork/join pool and
+     * written to the file in order (see {@code ParallelAccountExporter}); the file is
+     * exactly the same as in sequential mode.
+     * 
+     * @param filename The name of the file to print to
+     * @param parallel Whether to format the accounts in parallel
+     */
+    public void printToFile(String filename, boolean parallel) {
+        if (parallel) {
+            try {
+                printToFile(new File(filename), ForkJoinPool.commonPool());
+            } catch (IOException ex) {
+                System.out.println(ex);
+            }
+            return;
+        }
+
+        try (CsvWriter out = new CsvWriter(new FileOutputStream(filename).getChannel())) {
+            structureLock.readLock().lock();
+            try {
+                for (BankAccount account : store.accounts()) {
+                    account.writeCsv(out);
+                    out.write('\n');
+                }
+            } finally {
+                structureLock.readLock().unlock();
+            }
+            out.write(System.lineSeparator());
+        } catch (IOException ex) {
             System.out.println(ex);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Prints the bank to a file, as {@code printToFile(String, true)} does, formatting the
+     * accounts on the specified pool, and throwing an exception if the file can't be
+     * written instead of printing it.
+     * 
+     * @param file The file to print to
+     * @param pool The pool on which to format the accounts
+     * @throws IOException If the file can't be written
+     */
+    void printToFile(File file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            structureLock.readLock().lock();
+            try {
+                ParallelAccountExporter.write(store.accounts(), channel, pool);
+            } finally {
+                structureLock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -1,9 +1,22 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Random;
 
 /**
  * A class for representing bank accounts.
+ * <p>
+ * The balance is kept as a number of cents and updated with compare-and-set, so
+ * deposits and withdrawals are atomic without any locking, and don't allocate
+ * anything unless they fail. When the account belongs to a bank that writes
+ * checkpoints, every change to the balance also marks the account as changed, so that
+ * the next checkpoint saves it.
+ * <p>
+ * The account's fields are only ever read through {@code getAccountNumber},
+ * {@code getBalanceCents}, {@code getDateOpened} and {@code getName}, and the balance
+ * is only changed through {@code compareAndSetBalance} and {@code setBalanceCents}, so
+ * that a subclass can keep them somewhere else (see {@code OffHeapAccountStore}).
  */
 public class BankAccount {
     /**
@@ -12,9 +25,22 @@ public class BankAccount {
     private String accountNumber;
 
     /**
-     * The account balance.
+     * The account balance, in cents. Only ever updated through {@code BALANCE}.
      */
-    protected MonetaryValue balance;
+    private volatile long balanceCents;
+
+    /**
+     * A handle for compare-and-set updates of {@code balanceCents}.
+     */
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(BankAccount.class, "balanceCents", long.class);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
 
     /**
      * The date on which the account was opened.
@@ -22,9 +48,28 @@ public class BankAccount {
     protected LocalDate dateOpened;  
 
     /**
-     * The name of the account holder.
+     * The name of the account holder, or a view of it in the arena it's kept in (see
+     * {@code NameArena}). A view holds both the arena and the offset and never changes,
+     * so replacing the name is a single write that readers see whole.
+     */
+    private volatile Name name;
+
+    /**
+     * The set in which changes to this account's balance are marked, or {@code null} if
+     * changes aren't being tracked (see {@code Checkpointer}).
+     */
+    private volatile DirtyAccounts dirty;
+
+    /**
+     * The columns this account's balance is copied into, or {@code null} if it isn't in
+     * any (see {@code AccountColumns}).
+     */
+    private volatile AccountColumns columns;
+
+    /**
+     * This account's row in {@code columns}, or -1.
      */
-    private Name name;
+    private volatile int columnRow = -1;
 
     /**
      * A random number generator to be used in the {@code newAccountNumber()} method.
@@ -32,46 +77,54 @@ public class BankAccount {
     private static Random generator = new Random(33);
 
     /**
-     * A list of all account numbers that have been used so far. 
+     * Keeps track of all account numbers that have been used so far. 
      * <p>
-     * <b>Note:</b> Constructors of this class must make sure to update this list.
+     * <b>Note:</b> Constructors of this class must make sure to mark their account number as used.
      */
-    private static ArrayList<String> accountNumbers = new ArrayList<>(); 
+    private static AccountNumberAllocator accountNumbers = new AccountNumberAllocator(generator); 
 
     /**
      * Constructs a bank account for an account holder with the given name. 
      * Assigns a new unused valid account number (generated by the 
      * {@code newAccountNumber()} method) as the account number.
      * Assigns zero as the balance. 
-     * Assigns today's date (via the static
-     * <a href="https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/time/LocalDate.html#now()" target="_blank">now() method</a>
-     * of the {@code LocalDate} class) as the date opened.
+     * Assigns today's date, according to the system clock (see {@code BusinessDate.SYSTEM}),
+     * as the date opened.
      * And assigns the specified name as the account holder's name.
      * @param name The name of the account holder
      */
     public BankAccount(Name name) {
         this.accountNumber = newAccountNumber();
-        accountNumbers.add(accountNumber);
-        this.balance = MonetaryValue.ZERO;
-        this.dateOpened = LocalDate.now();
+        this.balanceCents = 0;
+        this.dateOpened = BusinessDate.SYSTEM.get();
         this.name = name;
     }
     
+    /**
+     * Constructs a bank account with no fields of its own, for a subclass that keeps
+     * them somewhere else and overrides the methods that read them. The account number
+     * isn't marked as used.
+     */
+    BankAccount() {
+    }
+
     /** 
      * Returns a new account number that is valid: exactly 8 characters long, all digits.
-     * The account number is unused: no bank account has used it yet. 
+     * The account number is unused: no bank account has used it yet. The number is
+     * marked as used before it is returned.
      * @return A new unused valid account number
      */
     private static String newAccountNumber() {
-        int min = 10_000_000, max = 99_999_999;
-        String accountNumber;
-
-        do {
-            int randomIntInRange = generator.nextInt(max - min) + min;
-            accountNumber = String.valueOf(randomIntInRange);
-        } while (accountNumbers.contains(accountNumber)); 
+        return String.valueOf(accountNumbers.allocate());
+    }
 
-        return accountNumber;
+    /** 
+     * Marks the specified account number as no longer used, so that it can be handed
+     * out again to a new account. This is called when an account is closed.
+     * @param accountNumber The account number to release
+     */
+    static void releaseAccountNumber(String accountNumber) {
+        accountNumbers.release(AccountIndex.toKey(accountNumber));
     }
 
     /**
@@ -81,7 +134,8 @@ public class BankAccount {
      * @param dateOpened The date on which the account was opened
      * @param name The name of the account holder
      * @throws InvalidAccountNumberException If the specified account number isn't exactly
-     *         8 characters long, or if it contains any non-digit characters
+     *         8 characters long, or if it contains any characters other than the digits
+     *         0 to 9 (digits from other scripts aren't account numbers)
      */
     public BankAccount(String accountNumber, MonetaryValue balance, LocalDate dateOpened, Name name) 
                    throws InvalidAccountNumberException {  
@@ -91,16 +145,17 @@ public class BankAccount {
         }
 
         for (int i = 0; i < accountNumber.length(); i++) {
-            if (!Character.isDigit(accountNumber.charAt(i))) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
                 throw new InvalidAccountNumberException(accountNumber);
             }
         }
         
         this.accountNumber = accountNumber;
-        this.balance = balance;
+        this.balanceCents = balance.getCents();
         this.dateOpened = dateOpened;
         this.name = name;
-        accountNumbers.add(accountNumber);
+        accountNumbers.markUsed(AccountIndex.toKey(accountNumber));
     }
 
     /** 
@@ -116,7 +171,166 @@ public class BankAccount {
      * @return MonetaryValue The balance
      */
     public MonetaryValue getBalance() {
-        return balance;
+        return MonetaryValue.valueOf(getBalanceCents());
+    }
+
+    /** 
+     * Returns the balance of this bank account as a number of cents.
+     * @return The balance, in cents
+     */
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+
+    /**
+     * Returns the date on which this bank account was opened.
+     * @return The date opened
+     */
+    LocalDate getDateOpened() {
+        return dateOpened;
+    }
+
+    /**
+     * Sets the balance of this bank account, bypassing the rules for deposits and
+     * withdrawals. This is only for restoring a balance that was recorded earlier, such
+     * as when a bank's journal is replayed.
+     * @param cents The balance, in cents
+     */
+    void setBalanceCents(long cents) {
+        balanceCents = cents;
+        balanceChanged();
+    }
+
+    /**
+     * Adds an amount to the balance of this bank account, bypassing the rules for
+     * deposits and withdrawals: the amount may be negative, and may take the balance
+     * below the minimum. This is for the bank's own charges and credits, such as
+     * month-end interest and fees.
+     * @param cents The amount to add, in cents
+     * @return {@code true} if the amount was added, {@code false} if the balance would
+     *         overflow, in which case nothing is changed
+     */
+    boolean adjustBalanceCents(long cents) {
+        long current, adjusted;
+        do {
+            current = getBalanceCents();
+            adjusted = current + cents;
+            if (((current ^ adjusted) & (cents ^ adjusted)) < 0) {
+                return false;
+            }
+        } while (!compareAndSetBalance(current, adjusted));
+        balanceChanged();
+        return true;
+    }
+
+    /**
+     * Sets the balance of this bank account to {@code updated} if it is currently
+     * {@code expected}, atomically.
+     * @param expected The balance the account must have, in cents
+     * @param updated The new balance, in cents
+     * @return {@code true} if the balance was set, {@code false} if it wasn't
+     *         {@code expected}
+     */
+    boolean compareAndSetBalance(long expected, long updated) {
+        return BALANCE.compareAndSet(this, expected, updated);
+    }
+
+    /**
+     * Starts or stops marking changes to this account's balance in the specified set.
+     * @param dirty The set, or {@code null} to stop marking changes
+     */
+    void trackChanges(DirtyAccounts dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Sets the columns this account's balance is copied into, and its row in them.
+     * @param columns The columns, or {@code null} if the account isn't in any
+     * @param row The row, or -1
+     */
+    void setColumns(AccountColumns columns, int row) {
+        this.columnRow = row;
+        this.columns = columns;
+    }
+
+    /**
+     * Returns this account's row in the columns its balance is copied into.
+     * @return The row, or -1 if the account isn't in any columns
+     */
+    int getColumnRow() {
+        return columnRow;
+    }
+
+    /**
+     * Marks this account as changed and copies its balance into its columns, after a
+     * change to the balance.
+     */
+    private void balanceChanged() {
+        markDirty();
+        AccountColumns c = columns;
+        if (c != null) {
+            c.update(this);
+        }
+    }
+
+    /**
+     * Marks this account as changed, if changes to it are being tracked.
+     */
+    void markDirty() {
+        DirtyAccounts d = dirty;
+        if (d != null) {
+            d.mark(AccountIndex.toKey(getAccountNumber()));
+        }
+    }
+
+    /**
+     * Determines whether the specified account is the same account as this one, apart
+     * from the balance: the same type of account, with the same account number, date
+     * opened, holder, and term or overdraft limit.
+     * @param other The account to compare this account with
+     * @return {@code true} if only the balances may differ, {@code false} otherwise
+     */
+    boolean isSameAccount(BankAccount other) {
+        return other.snapshotType() == snapshotType() && getAccountNumber().equals(other.getAccountNumber())
+                && getDateOpened().equals(other.getDateOpened()) && getName().equals(other.getName())
+                && snapshotExtra() == other.snapshotExtra();
+    }
+
+    /**
+     * Returns the name of the account holder. The name itself is returned, not a copy,
+     * so it must not be changed; if it's kept in an arena, a view of it is returned.
+     * @return The name of the account holder
+     */
+    Name getName() {
+        return name;
+    }
+
+    /**
+     * Replaces the name of the account holder with an equal name: a pooled name that
+     * accounts with the same holder share (see {@code NamePool}), or a view of the name
+     * in an arena (see {@code NameArena}). Only called while the bank holds its write
+     * lock.
+     * @param name The name, which must be equal to the current one
+     */
+    void setName(Name name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the type of this account as stored in a bank snapshot.
+     * @return One of the {@code BankSnapshot.TYPE} constants
+     */
+    int snapshotType() {
+        return BankSnapshot.TYPE_BANK;
+    }
+
+    /**
+     * Returns the number stored in a bank snapshot for what's particular to this type of
+     * account.
+     * @return 0, since a plain bank account has nothing particular to it
+     */
+    long snapshotExtra() {
+        return 0;
     }
 
     /** 
@@ -128,11 +342,59 @@ public class BankAccount {
      */
     @Override
     public String toString() {
-        return "BankAccount," + 
-            accountNumber + "," + 
-            balance.toDouble() + "," + 
-            dateOpened.toString() + "," +
-            name.toString();
+        return appendCsv(new StringBuilder(80)).toString();
+    }
+
+    /**
+     * Appends this bank account to a string builder, exactly as {@code toString} would
+     * return it. Subclasses append their own type and fields here, so {@code toString}
+     * and {@code Bank.toString} print every kind of account with one builder.
+     * @param out The string builder
+     * @return {@code out}
+     */
+    StringBuilder appendCsv(StringBuilder out) {
+        return appendCsvFields(out.append("BankAccount,"));
+    }
+
+    /**
+     * Appends the fields all bank accounts have to a string builder, as
+     * {@code writeCsvFields} writes them.
+     * @param out The string builder
+     * @return {@code out}
+     */
+    final StringBuilder appendCsvFields(StringBuilder out) {
+        out.append(getAccountNumber()).append(',');
+        MonetaryValue.appendDecimalTo(out, getBalanceCents()).append(',');
+        out.append(getDateOpened()).append(',');
+        getName().appendTo(out);
+        return out;
+    }
+
+    /**
+     * Writes this bank account to a CSV writer, exactly as {@code toString} would
+     * return it.
+     * @param out The writer
+     * @throws IOException If the writer can't write
+     */
+    void writeCsv(CsvWriter out) throws IOException {
+        out.write("BankAccount,");
+        writeCsvFields(out);
+    }
+
+    /**
+     * Writes the fields all bank accounts have to a CSV writer: the account number,
+     * balance, date opened and name, separated by commas.
+     * @param out The writer
+     * @throws IOException If the writer can't write
+     */
+    final void writeCsvFields(CsvWriter out) throws IOException {
+        out.write(getAccountNumber());
+        out.write(',');
+        out.writeAmount(getBalanceCents());
+        out.write(',');
+        out.write(getDateOpened());
+        out.write(',');
+        getName().writeCsv(out);
     }
     
     /** 
@@ -147,8 +409,8 @@ public class BankAccount {
     public boolean equals(Object o) {
         if (o instanceof BankAccount) {
             BankAccount other = (BankAccount) o;
-            return this.accountNumber.equals(other.accountNumber) && this.balance.equals(other.balance) && this.dateOpened.equals(other.dateOpened)
-            && this.name.equals(other.name);
+            return this.getAccountNumber().equals(other.getAccountNumber()) && this.getBalanceCents() == other.getBalanceCents() && this.getDateOpened().equals(other.getDateOpened())
+            && this.getName().equals(other.getName());
         } else {
             return false;
         }
@@ -160,12 +422,61 @@ public class BankAccount {
      * @throws NegativeMonetaryValueException If the specified amount of money is negative
      */
     public void deposit(MonetaryValue amount) throws NegativeMonetaryValueException {
-        
-        if (amount.isNegative()) {
-            throw new NegativeMonetaryValueException(amount);
-        } 
+        depositCents(amount.getCents());
+    }
+
+    /** 
+     * Deposits the specified number of cents into this bank account. This is the same
+     * as {@code deposit}, but takes a primitive amount, so it allocates nothing unless
+     * it fails.
+     * @param cents The amount of money to deposit, in cents
+     * @throws NegativeMonetaryValueException If the specified amount of money is negative
+     * @throws ArithmeticException If the balance would overflow
+     */
+    public void depositCents(long cents) throws NegativeMonetaryValueException {
+        byte status = tryDepositCents(cents);
+        if (status == OperationStatus.NEGATIVE) {
+            throw new NegativeMonetaryValueException(MonetaryValue.valueOf(cents));
+        } else if (status == OperationStatus.OVERFLOW) {
+            throw new ArithmeticException("The balance would overflow");
+        }
+    }
+
+    /**
+     * Deposits the specified amount of money into this bank account, reporting a failure
+     * with a status code instead of an exception.
+     * @param amount The amount of money to deposit
+     * @return {@code OperationStatus.OK}, or the reason nothing was deposited (see
+     *         {@code tryDepositCents})
+     */
+    public byte tryDeposit(MonetaryValue amount) {
+        return tryDepositCents(amount.getCents());
+    }
+
+    /**
+     * Deposits the specified number of cents into this bank account, reporting a failure
+     * with a status code instead of an exception, so it allocates nothing, whether or not
+     * it succeeds. {@code deposit} and {@code depositCents} call this method.
+     * @param cents The amount of money to deposit, in cents
+     * @return {@code OperationStatus.OK}; {@code OperationStatus.NEGATIVE} if the amount
+     *         is negative; or {@code OperationStatus.OVERFLOW} if the balance would be
+     *         too large to represent. Nothing is deposited unless the status is
+     *         {@code OK}.
+     */
+    public byte tryDepositCents(long cents) {
+        if (cents < 0) {
+            return OperationStatus.NEGATIVE;
+        }
 
-        balance = balance.plus(amount);
+        long current;
+        do {
+            current = getBalanceCents();
+            if (current > Long.MAX_VALUE - cents) {
+                return OperationStatus.OVERFLOW;
+            }
+        } while (!compareAndSetBalance(current, current + cents));
+        balanceChanged();
+        return OperationStatus.OK;
     }
 
     
@@ -173,25 +484,111 @@ public class BankAccount {
      * Withdraws the specified amount of money from this bank account. This will be
      * successful only if there are sufficient funds in this account for the withdrawal
      * to occur; otherwise, nothing is withdrawn. That is, if attempting to withdraw 
-     * desired amount would put the balance below zero, nothing should be withdrawn.
+     * desired amount would put the balance below zero (or below the minimum balance
+     * given by {@code minimumBalanceCents()}), nothing should be withdrawn.
+     * <p>
+     * The funds check and the update happen together in one compare-and-set loop,
+     * so a concurrent withdrawal can never take the balance below the minimum.
      * @param amount The amount of money to withdraw
      * @throws NegativeMonetaryValueException If the specified amount of money is negative
      * @throws InsufficientFundsException If the amount to withdraw is greater than the balance
      */
 
     public void withdraw(MonetaryValue amount) throws NegativeMonetaryValueException, InsufficientFundsException {
+        withdrawCents(amount.getCents());
+    }
+
+    /** 
+     * Withdraws the specified number of cents from this bank account. This is the same
+     * as {@code withdraw}, but takes a primitive amount, so it allocates nothing unless
+     * it fails. It calls {@code tryWithdrawCents}, which subclasses with extra rules for
+     * withdrawals override, so the rules apply to both.
+     * @param cents The amount of money to withdraw, in cents
+     * @throws NegativeMonetaryValueException If the specified amount of money is negative
+     * @throws InsufficientFundsException If the amount to withdraw is greater than the balance
+     */
+    public void withdrawCents(long cents) throws NegativeMonetaryValueException, InsufficientFundsException {
+        byte status = tryWithdrawCents(cents);
+        if (status != OperationStatus.OK) {
+            fail(status, cents, getBalanceCents());
+        }
+    }
 
-        if (amount.isNegative()) {
-            throw new NegativeMonetaryValueException(amount);
+    /**
+     * Withdraws the specified amount of money from this bank account, as {@code withdraw}
+     * does, but reporting a failure with a status code instead of an exception.
+     * @param amount The amount of money to withdraw
+     * @return {@code OperationStatus.OK}, or the reason nothing was withdrawn (see
+     *         {@code tryWithdrawCents})
+     */
+    public byte tryWithdraw(MonetaryValue amount) {
+        return tryWithdrawCents(amount.getCents());
+    }
+
+    /**
+     * Withdraws the specified number of cents from this bank account, reporting a
+     * failure with a status code instead of an exception, so a declined withdrawal is as
+     * cheap as a successful one and allocates nothing. Subclasses with extra rules for
+     * withdrawals override this method, and {@code withdraw} and {@code withdrawCents}
+     * call it, so the rules apply to all of them.
+     * @param cents The amount of money to withdraw, in cents
+     * @return {@code OperationStatus.OK}; {@code OperationStatus.NEGATIVE} if the amount
+     *         is negative; or {@code OperationStatus.INSUFFICIENT} if the withdrawal
+     *         would take the balance below the minimum. Nothing is withdrawn unless the
+     *         status is {@code OK}.
+     */
+    public byte tryWithdrawCents(long cents) {
+        if (cents < 0) {
+            return OperationStatus.NEGATIVE;
         }
         
-        MonetaryValue afterwithdraw = balance.minus(amount);
-    
-         if (afterwithdraw.isNegative()) {
-             throw new InsufficientFundsException(balance, amount);
-         }
-         
-         balance = afterwithdraw;
+        long minimum = minimumBalanceCents();
+        long current, afterwithdraw;
+        do {
+            current = getBalanceCents();
+            afterwithdraw = current - cents;
+            // a result that overflows would be far below any minimum
+            if (((current ^ cents) & (current ^ afterwithdraw)) < 0 || afterwithdraw < minimum) {
+                return OperationStatus.INSUFFICIENT;
+            }
+        } while (!compareAndSetBalance(current, afterwithdraw));
+        balanceChanged();
+        return OperationStatus.OK;
+    }
+
+    /**
+     * Throws the exception that the exception-throwing methods report a failed deposit
+     * or withdrawal with. Subclasses that have status codes of their own override this
+     * method.
+     * @param status The status code of the failure (not {@code OperationStatus.OK})
+     * @param cents The amount of money that was to be deposited or withdrawn, in cents
+     * @param balanceCents The balance the operation was declined on, in cents
+     * @throws NegativeMonetaryValueException If the status is {@code NEGATIVE}
+     * @throws InsufficientFundsException If the status is {@code INSUFFICIENT}
+     * @throws ArithmeticException If the status is {@code OVERFLOW}
+     */
+    void fail(byte status, long cents, long balanceCents)
+            throws NegativeMonetaryValueException, InsufficientFundsException {
+        switch (status) {
+            case OperationStatus.NEGATIVE:
+                throw new NegativeMonetaryValueException(MonetaryValue.valueOf(cents));
+            case OperationStatus.INSUFFICIENT:
+                throw new InsufficientFundsException(MonetaryValue.valueOf(balanceCents),
+                        MonetaryValue.valueOf(cents));
+            case OperationStatus.OVERFLOW:
+                throw new ArithmeticException("The balance would overflow");
+            default:
+                throw new IllegalStateException("Unexpected status " + OperationStatus.toString(status));
+        }
+    }
+
+    /** 
+     * Returns the lowest balance, in cents, that a withdrawal may leave in this account.
+     * For a plain bank account this is zero: the balance may not go negative.
+     * @return The minimum balance, in cents
+     */
+    protected long minimumBalanceCents() {
+        return 0;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/**
+ * A class for representing a single deposit or withdrawal, as part of a batch of
+ * operations passed to {@code Bank.applyBatch}.
+ */
+public class BankOperation {
+    /**
+     * {@code true} if this operation is a deposit, {@code false} if it's a withdrawal.
+     */
+    private final boolean deposit;
+
+    /**
+     * The account number of the account this operation applies to.
+     */
+    private final String accountNumber;
+
+    /**
+     * The amount to deposit or withdraw.
+     */
+    private final MonetaryValue amount;
+
+    /**
+     * Constructs an operation.
+     * @param deposit {@code true} for a deposit, {@code false} for a withdrawal
+     * @param accountNumber The account number of the account the operation applies to
+     * @param amount The amount to deposit or withdraw
+     */
+    private BankOperation(boolean deposit, String accountNumber, MonetaryValue amount) {
+        this.deposit = deposit;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+    }
+
+    /**
+     * Returns an operation that deposits the specified amount into the account with the
+     * specified account number.
+     * @param accountNumber The account number
+     * @param amount The amount to deposit
+     * @return The operation
+     */
+    public static BankOperation deposit(String accountNumber, MonetaryValue amount) {
+        return new BankOperation(true, accountNumber, amount);
+    }
+
+    /**
+     * Returns an operation that withdraws the specified amount from the account with the
+     * specified account number.
+     * @param accountNumber The account number
+     * @param amount The amount to withdraw
+     * @return The operation
+     */
+    public static BankOperation withdrawal(String accountNumber, MonetaryValue amount) {
+        return new BankOperation(false, accountNumber, amount);
+    }
+
+    /**
+     * Determines whether this operation is a deposit.
+     * @return {@code true} if this operation is a deposit, {@code false} if it's a withdrawal
+     */
+    public boolean isDeposit() {
+        return deposit;
+    }
+
+    /**
+     * Returns the account number of the account this operation applies to.
+     * @return The account number
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Returns the amount to deposit or withdraw.
+     * @return The amount
+     */
+    public MonetaryValue getAmount() {
+        return amount;
+    }
+
+    /**
+     * Returns a string representation of this operation, for example
+     * "deposit $150.00 to 11112222".
+     * @return A string representation of this operation
+     */
+    @Override
+    public String toString() {
+        return deposit ? "deposit " + amount + " to " + accountNumber
+                : "withdraw " + amount + " from " + accountNumber;
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads and writes bank snapshots: a compact binary form of a bank's accounts that
+ * can be loaded much faster than an accounts file, since nothing has to be parsed.
+ * <p>
+ * A snapshot starts with a header:
+ * <pre>
+ * offset  size  contents
+ *      0     4  the magic number, "BNKS"
+ *      4     4  the format version
+ *      8     4  the number of accounts
+ *     12     4  the size of an account record
+ *     16     8  the position of the name table
+ *     24     8  the size of the name table, in bytes
+ * </pre>
+ * The header is followed by one fixed-width record per account, in the bank's order:
+ * <pre>
+ * offset  size  contents
+ *      0     4  the account number
+ *      4     4  the type of account (one of the TYPE constants)
+ *      8     8  the balance, in cents
+ *     16     8  the term in months (CD accounts), the overdraft limit in cents
+ *               (checking accounts), or 0
+ *     24     8  the date opened, as an epoch day
+ *     32     4  the position of the holder's name in the name table
+ *     36     4  the length of the first name, in bytes
+ *     40     4  the length of the middle name, in bytes
+ *     44     4  the length of the last name, in bytes
+ * </pre>
+ * After the records comes the name table, holding each name's first, middle and last
+ * names one after another in UTF-8. All numbers are big-endian.
+ * <p>
+ * Snapshots are written through fixed-size buffers with positional writes, so writing
+ * takes the same memory however big the bank is, and read through memory mappings of
+ * the file, with ranges of records decoded in parallel. A mapping can't be bigger than
+ * 2 GiB, so the records are mapped in several pieces when there are many of them.
+ */
+final class BankSnapshot {
+    /**
+     * The magic number at the start of every snapshot: "BNKS" in ASCII.
+     */
+    private static final int MAGIC = 0x424E4B53;
+
+    /**
+     * The version of the format written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header, in bytes.
+     */
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * The size of an account record, in bytes.
+     */
+    private static final int RECORD_SIZE = 48;
+
+    /**
+     * The type of a plain bank account.
+     */
+    static final int TYPE_BANK = 0;
+
+    /**
+     * The type of a CD account.
+     */
+    static final int TYPE_CD = 1;
+
+    /**
+     * The type of a checking account.
+     */
+    static final int TYPE_CHECKING = 2;
+
+    /**
+     * The number of records decoded by one task.
+     */
+    private static final int RANGE = 1 << 16;
+
+    /**
+     * The number of records in one mapping of the file: as many whole ranges as fit in
+     * 2 GiB.
+     */
+    private static final int MAPPED_RECORDS = Integer.MAX_VALUE / RECORD_SIZE / RANGE * RANGE;
+
+    /**
+     * The size of the buffers used for writing.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * This class only has static methods; it can't be instantiated.
+     */
+    private BankSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the specified accounts. The list must not change while this
+     * method runs.
+     * @param accounts The accounts
+     * @param file The file to write
+     * @throws IOException If the file can't be written, or the names don't fit in a
+     *         snapshot
+     */
+    static void write(List<BankAccount> accounts, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long recordsPosition = HEADER_SIZE;
+            long namesPosition = recordsPosition + (long) accounts.size() * RECORD_SIZE;
+            ByteBuffer records = ByteBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer names = ByteBuffer.allocate(BUFFER_SIZE);
+            long namesSize = 0;
+
+            for (BankAccount account : accounts) {
+                Name name = account.getName();
+                byte[] first = name.getFirst().getBytes(StandardCharsets.UTF_8);
+                byte[] middle = name.getMiddle().getBytes(StandardCharsets.UTF_8);
+                byte[] last = name.getLast().getBytes(StandardCharsets.UTF_8);
+                if (namesSize + first.length + middle.length + last.length > Integer.MAX_VALUE) {
+                    throw new IOException("Too many names for a snapshot");
+                }
+
+                if (records.remaining() < RECORD_SIZE) {
+                    recordsPosition += drain(channel, records, recordsPosition);
+                }
+                records.putInt(AccountIndex.toKey(account.getAccountNumber()))
+                        .putInt(account.snapshotType())
+                        .putLong(account.getBalanceCents())
+                        .putLong(account.snapshotExtra())
+                        .putLong(account.getDateOpened().toEpochDay())
+                        .putInt((int) namesSize)
+                        .putInt(first.length)
+                        .putInt(middle.length)
+                        .putInt(last.length);
+
+                for (byte[] part : new byte[][] {first, middle, last}) {
+                    int written = 0;
+                    while (written < part.length) {
+                        if (!names.hasRemaining()) {
+                            namesPosition += drain(channel, names, namesPosition);
+                        }
+                        int n = Math.min(names.remaining(), part.length - written);
+                        names.put(part, written, n);
+                        written += n;
+                    }
+                    namesSize += part.length;
+                }
+            }
+            drain(channel, records, recordsPosition);
+            namesPosition += drain(channel, names, namesPosition);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(accounts.size()).putInt(RECORD_SIZE)
+                    .putLong(namesPosition - namesSize).putLong(namesSize);
+            drain(channel, header, 0);
+        }
+    }
+
+    /**
+     * Reads the accounts in a snapshot. The records are split into ranges, which are
+     * decoded at the same time on the specified pool.
+     * @param file The file to read
+     * @param pool The pool on which to decode the records
+     * @return The accounts, in the order they were written
+     * @throws IOException If the file can't be read, or isn't a snapshot this class can read
+     */
+    static List<BankAccount> read(File file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a bank snapshot: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a bank snapshot: " + file);
+            }
+            if (header.getInt(4) != VERSION || header.getInt(12) != RECORD_SIZE) {
+                throw new IOException("Unsupported bank snapshot version " + header.getInt(4) + ": " + file);
+            }
+            int count = header.getInt(8);
+            long namesPosition = header.getLong(16);
+            long namesSize = header.getLong(24);
+            long recordsSize = (long) count * RECORD_SIZE;
+            if (count < 0 || namesPosition != HEADER_SIZE + recordsSize || namesSize < 0
+                    || namesSize > Integer.MAX_VALUE || namesPosition + namesSize != size) {
+                throw new IOException("Corrupt bank snapshot: " + file);
+            }
+
+            MappedByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, namesPosition, namesSize);
+            BankAccount[] accounts = new BankAccount[count];
+            List<RecursiveAction> tasks = new ArrayList<>();
+            for (long first = 0; first < count; first += MAPPED_RECORDS) {
+                int base = (int) first, last = (int) Math.min(first + MAPPED_RECORDS, count);
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * RECORD_SIZE, (long) (last - base) * RECORD_SIZE);
+                for (int from = base, to; from < last; from = to) {
+                    to = (int) Math.min((long) from + RANGE, last);
+                    int start = from, end = to;
+                    RecursiveAction task = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            try {
+                                decode(records, base, names, start, end, accounts, file);
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                        }
+                    };
+                    tasks.add(task);
+                    pool.execute(task);
+                }
+            }
+            try {
+                for (RecursiveAction task : tasks) {
+                    task.join();
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            return Arrays.asList(accounts);
+        }
+    }
+
+    /**
+     * Decodes a range of records.
+     * @param records The records; only absolute reads are made, so several ranges can be
+     *        decoded at once
+     * @param base The index of the first record in {@code records}
+     * @param names The name table
+     * @param from The index of the first record to decode
+     * @param to The index after the last record to decode
+     * @param accounts The array in which to put the accounts, at the records' indexes
+     * @param file The file being read, for error messages
+     * @throws IOException If a record is invalid
+     */
+    private static void decode(ByteBuffer records, int base, ByteBuffer names, int from, int to,
+            BankAccount[] accounts, File file) throws IOException {
+        byte[] scratch = new byte[64];
+        char[] number = new char[8];
+        for (int i = from; i < to; i++) {
+            int at = (i - base) * RECORD_SIZE;
+            int nameAt = records.getInt(at + 32);
+            int firstLength = records.getInt(at + 36);
+            int middleLength = records.getInt(at + 40);
+            int lastLength = records.getInt(at + 44);
+            long nameLength = (long) firstLength + middleLength + lastLength;
+            if (nameAt < 0 || firstLength < 0 || middleLength < 0 || lastLength < 0
+                    || nameAt + nameLength > names.capacity()) {
+                throw new IOException("Corrupt bank snapshot: " + file);
+            }
+            if (scratch.length < nameLength) {
+                scratch = new byte[(int) nameLength];
+            }
+            names.get(nameAt, scratch, 0, (int) nameLength);
+            Name name = new Name(new String(scratch, 0, firstLength, StandardCharsets.UTF_8),
+                    new String(scratch, firstLength, middleLength, StandardCharsets.UTF_8),
+                    new String(scratch, firstLength + middleLength, lastLength, StandardCharsets.UTF_8));
+
+            accounts[i] = account(records.getInt(at), records.getInt(at + 4), records.getLong(at + 8),
+                    records.getLong(at + 16), records.getLong(at + 24), name, number, file);
+        }
+    }
+
+    /**
+     * Creates the account described by a record.
+     * @param key The account number, as an index key
+     * @param type The type of account
+     * @param cents The balance, in cents
+     * @param extra The term in months, the overdraft limit in cents, or 0
+     * @param epochDay The date opened, as an epoch day
+     * @param name The holder's name
+     * @param number Scratch space for the account number's digits
+     * @param file The file being read, for error messages
+     * @return The account
+     * @throws IOException If the record is invalid
+     */
+    static BankAccount account(int key, int type, long cents, long extra, long epochDay, Name name,
+            char[] number, File file) throws IOException {
+        for (int i = number.length - 1, rest = key; i >= 0; i--, rest /= 10) {
+            number[i] = (char) ('0' + rest % 10);
+        }
+        try {
+            String accountNumber = new String(number);
+            MonetaryValue balance = MonetaryValue.valueOf(cents);
+            LocalDate opened = LocalDate.ofEpochDay(epochDay);
+            switch (type) {
+                case TYPE_BANK:
+                    return new BankAccount(accountNumber, balance, opened, name);
+                case TYPE_CD:
+                    return new CDAccount(accountNumber, balance, opened, name, Period.ofMonths(Math.toIntExact(extra)));
+                case TYPE_CHECKING:
+                    return new CheckingAccount(accountNumber, balance, opened, name, MonetaryValue.valueOf(extra));
+                default:
+                    throw new IOException("Corrupt bank snapshot: " + file);
+            }
+        } catch (InvalidAccountNumberException | RuntimeException ex) {
+            throw new IOException("Corrupt bank snapshot: " + file, ex);
+        }
+    }
+
+    /**
+     * Writes the contents of a buffer to the channel at the specified position, and
+     * clears the buffer.
+     * @param channel The channel
+     * @param buffer The buffer
+     * @param position The position in the channel at which to write
+     * @return The number of bytes written
+     * @throws IOException If the channel can't be written
+     */
+    private static int drain(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return size;
+    }
+}
@@ -0,0 +1,187 @@
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * A bank's business date: the date checked by CD withdrawals (see
+ * {@code CDAccount.tryWithdrawCents}) and moved on by the end-of-day batch (see
+ * {@code EndOfDay.rollover}). Each bank has its own (see {@code Bank.getBusinessDate}),
+ * so setting one bank's date doesn't change any other's. It is cached as an epoch day,
+ * so that checking it is cheap enough for every withdrawal.
+ * <p>
+ * By default the date follows the system clock: it is read from the clock only when the
+ * cached date has run out, at midnight in the clock's time zone, and until then getting
+ * it takes one read of the clock in milliseconds and a comparison. It can follow another
+ * clock instead (see {@code follow}), or be set explicitly (see {@code set}), in which
+ * case it stays the same until it is set again or advanced (see {@code advance}), and
+ * getting it doesn't read any clock. Setting it to a past date replays that day.
+ */
+public final class BusinessDate {
+    /**
+     * The date that follows the system clock in the default time zone, for accounts that
+     * aren't in a bank. It can't be changed.
+     */
+    static final BusinessDate SYSTEM = new BusinessDate(Clock.systemDefaultZone(), false);
+
+    /**
+     * The current date, where it comes from, and when it runs out. A new state is
+     * published whenever any of them changes, so they are always read together.
+     */
+    private volatile State state;
+
+    /**
+     * Whether the date can be set, advanced or made to follow another clock.
+     */
+    private final boolean changeable;
+
+    /**
+     * Constructs a business date that follows the system clock in the default time zone.
+     */
+    public BusinessDate() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a business date that follows the specified clock (see {@code follow}).
+     * @param clock The clock
+     */
+    public BusinessDate(Clock clock) {
+        this(clock, true);
+    }
+
+    /**
+     * Constructs a business date that follows the specified clock.
+     * @param clock The clock
+     * @param changeable Whether the date can be changed
+     */
+    private BusinessDate(Clock clock, boolean changeable) {
+        this.state = new State(Long.MIN_VALUE, Long.MIN_VALUE, clock);
+        this.changeable = changeable;
+    }
+
+    /**
+     * Returns the business date.
+     * @return The business date, as an epoch day
+     */
+    long today() {
+        State s = state;
+        if (s.clock != null && s.clock.millis() >= s.rollover) {
+            s = refresh();
+        }
+        return s.epochDay;
+    }
+
+    /**
+     * Returns the business date.
+     * @return The business date
+     */
+    public LocalDate get() {
+        return LocalDate.ofEpochDay(today());
+    }
+
+    /**
+     * Sets the business date. It stays the same until it is set again, advanced, or
+     * made to follow a clock.
+     * @param date The business date
+     * @throws UnsupportedOperationException If this is the date of accounts that aren't
+     *         in a bank, which always follows the system clock
+     */
+    public synchronized void set(LocalDate date) {
+        checkChangeable();
+        state = new State(date.toEpochDay(), Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Moves the business date on to the next day. From then on it stays the same until
+     * it is set again, advanced, or made to follow a clock.
+     * @return The new business date
+     * @throws UnsupportedOperationException If this is the date of accounts that aren't
+     *         in a bank, which always follows the system clock
+     */
+    public synchronized LocalDate advance() {
+        LocalDate next = get().plusDays(1);
+        set(next);
+        return next;
+    }
+
+    /**
+     * Makes the business date follow the specified clock: it is today's date according
+     * to the clock, and moves on at midnight in the clock's time zone.
+     * @param clock The clock
+     * @throws UnsupportedOperationException If this is the date of accounts that aren't
+     *         in a bank, which always follows the system clock
+     */
+    public synchronized void follow(Clock clock) {
+        checkChangeable();
+        state = new State(Long.MIN_VALUE, Long.MIN_VALUE, clock);
+    }
+
+    /**
+     * Makes the business date follow the system clock in the default time zone again,
+     * as it does at first.
+     * @throws UnsupportedOperationException If this is the date of accounts that aren't
+     *         in a bank
+     */
+    public void followSystemClock() {
+        follow(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Throws an exception if this date can't be changed.
+     * @throws UnsupportedOperationException If this is {@code SYSTEM}
+     */
+    private void checkChangeable() {
+        if (!changeable) {
+            throw new UnsupportedOperationException("This business date always follows the system clock");
+        }
+    }
+
+    /**
+     * Reads today's date from the clock being followed, and works out when it runs out.
+     * @return The new state
+     */
+    private synchronized State refresh() {
+        State s = state;
+        if (s.clock == null || s.clock.millis() < s.rollover) {
+            return s; // another thread got here first, or the date was set in the meantime
+        }
+        LocalDate now = LocalDate.now(s.clock);
+        ZoneId zone = s.clock.getZone();
+        state = s = new State(now.toEpochDay(), now.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                s.clock);
+        return s;
+    }
+
+    /**
+     * The current date, where it comes from, and when it runs out.
+     */
+    private static final class State {
+        /**
+         * The business date, as an epoch day.
+         */
+        final long epochDay;
+
+        /**
+         * The time, in milliseconds since the epoch according to {@code clock}, at which
+         * {@code epochDay} runs out.
+         */
+        final long rollover;
+
+        /**
+         * The clock the date follows, or {@code null} if it was set explicitly.
+         */
+        final Clock clock;
+
+        /**
+         * Constructs a state.
+         * @param epochDay The business date, as an epoch day
+         * @param rollover When the date runs out, in milliseconds since the epoch
+         * @param clock The clock the date follows, or {@code null}
+         */
+        State(long epochDay, long rollover, Clock clock) {
+            this.epochDay = epochDay;
+            this.rollover = rollover;
+            this.clock = clock;
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Period;
 
@@ -5,6 +6,11 @@ import java.time.Period;
  * A class for representing CD accounts, a special type of bank account. 
  * A CD account has a term, a specified period of time after the account is opened,
  *  in which withdrawals are not allowed. The term is always measured in whole months.
+ * <p>
+ * The date on which the term ends, the maturity date, is worked out once when the
+ * account is created, so checking whether a withdrawal is allowed is just a comparison
+ * with today's date: the business date of the bank the account is in, or the system
+ * clock's date if it isn't in a bank (see {@code BusinessDate}).
  */
 public class CDAccount extends BankAccount {
     /**
@@ -12,6 +18,17 @@ public class CDAccount extends BankAccount {
      * This is measured in whole months. 
      */
     private Period term;
+
+    /**
+     * The date on which the term ends, as an epoch day.
+     */
+    private long maturityDay;
+
+    /**
+     * The business date withdrawals are checked against: the bank's, once the account is
+     * added to a bank.
+     */
+    private volatile BusinessDate businessDate = BusinessDate.SYSTEM;
     
     /**
      * Constructs a CD account with the specified term, for the 
@@ -22,6 +39,14 @@ public class CDAccount extends BankAccount {
     public CDAccount(Name name, Period term) {
         super(name);
         this.term = term;
+        this.maturityDay = getDateOpened().plus(term).toEpochDay();
+    }
+
+    /**
+     * Constructs a CD account with no fields of its own, for a subclass that keeps them
+     * somewhere else (see {@code BankAccount()}).
+     */
+    CDAccount() {
     }
 
     /**
@@ -38,35 +63,48 @@ public class CDAccount extends BankAccount {
             throws InvalidAccountNumberException {
         super(accountNumber, balance, dateOpened, name);
         this.term = term;
+        this.maturityDay = dateOpened.plus(term).toEpochDay();
     }
 
     /** 
-     * Withdraws the specified amount of money from this CD account. This will be successful only 
-     * if the term has completed.
+     * Withdraws the specified number of cents from this CD account, reporting a failure
+     * with a status code. This will be successful only if the term has completed. The
+     * {@code withdraw} and {@code withdrawCents} methods of {@code BankAccount} call this
+     * method, so the same rule applies to them; they throw a
+     * {@code WithdrawalDuringTermException} if the term hasn't completed.
      * <p>
-     * <b>Note:</b> The following methods of the 
-     * <a href="https://docs.oracle.com/en/java/javase/17/docs/api/java.base/java/time/LocalDate.html" target="_blank">LocalDate</a>
-     * class may be useful here:
-     * <ul>
-     *  <li>now</li>
-     *  <li>isBefore</li>
-     *  <li>plus</li>
-     * </ul>
-     * @param amount The amount to withdraw
-     * @throws NegativeMonetaryValueException If the specified amount of money is negative
-     * @throws InsufficientFundsException If the amount to withdraw is greater than the balance
-     * @throws WithdrawalDuringTermException If an attempt is made to withdraw money during the account's term
+     * The term has completed once today's date (see {@code getBusinessDate}) has reached
+     * the maturity date.
+     * @param cents The amount to withdraw, in cents
+     * @return {@code OperationStatus.OK}; {@code OperationStatus.TERM_LOCKED} if the term
+     *         hasn't completed; or another reason nothing was withdrawn (see
+     *         {@code BankAccount.tryWithdrawCents})
      */
     @Override
-    public void withdraw(MonetaryValue amount) 
-            throws NegativeMonetaryValueException, InsufficientFundsException, 
-            WithdrawalDuringTermException {
+    public byte tryWithdrawCents(long cents) {
+        if (getBusinessDate().today() < getMaturityDay()) {
+            return OperationStatus.TERM_LOCKED;
+        }
+        return super.tryWithdrawCents(cents);
+    }
 
-        if (LocalDate.now().isBefore(dateOpened.plus(term))) {
-            throw new WithdrawalDuringTermException(dateOpened, term);
+    /**
+     * Throws the exception that the exception-throwing methods report a failed deposit
+     * or withdrawal with.
+     * @param status The status code of the failure
+     * @param cents The amount of money that was to be deposited or withdrawn, in cents
+     * @param balanceCents The balance the operation was declined on, in cents
+     * @throws NegativeMonetaryValueException If the status is {@code NEGATIVE}
+     * @throws InsufficientFundsException If the status is {@code INSUFFICIENT}
+     * @throws WithdrawalDuringTermException If the status is {@code TERM_LOCKED}
+     */
+    @Override
+    void fail(byte status, long cents, long balanceCents)
+            throws NegativeMonetaryValueException, InsufficientFundsException {
+        if (status == OperationStatus.TERM_LOCKED) {
+            throw new WithdrawalDuringTermException(getDateOpened(), getTerm());
         }
-        
-        super.withdraw(amount);
+        super.fail(status, cents, balanceCents);
     }
 
     /** 
@@ -81,23 +119,89 @@ public class CDAccount extends BankAccount {
     public boolean equals(Object o) {
         if (o instanceof CDAccount) {
             CDAccount other = (CDAccount) o;
-            return super.equals(other) && term.equals(other.term);
+            return super.equals(other) && getTerm().equals(other.getTerm());
         } else {
             return false;
         }
     }
 
     /** 
-     * Returns a string representation of this CD account, suitable for printing 
-     * to a .csv (comma-separated values) file. For example (the last number is
-     * always an integer giving the length of the term in months): 
+     * Appends a string representation of this CD account to a string builder, suitable
+     * for printing to a .csv (comma-separated values) file. For example (the last
+     * number is always an integer giving the length of the term in months): 
      * <p>
      * {@code "CDAccount,11112222,150.0,2020-8-23,John Adam Smith,6"}
-     * @return A string representation of this checking account
+     * @param out The string builder
+     * @return {@code out}
+     */
+    @Override
+    StringBuilder appendCsv(StringBuilder out) {
+        return appendCsvFields(out.append("CDAccount,")).append(',').append(getTerm().toTotalMonths());
+    }
+
+    /**
+     * Returns the date on which the term of this CD account ends.
+     * @return The maturity date, as an epoch day
+     */
+    long getMaturityDay() {
+        return maturityDay;
+    }
+
+    /**
+     * Returns the business date withdrawals from this CD account are checked against.
+     * @return The business date of the bank the account is in, or
+     *         {@code BusinessDate.SYSTEM}
+     */
+    BusinessDate getBusinessDate() {
+        return businessDate;
+    }
+
+    /**
+     * Sets the business date withdrawals from this CD account are checked against. This
+     * is called when the account is added to a bank.
+     * @param businessDate The bank's business date
+     */
+    void setBusinessDate(BusinessDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    /**
+     * Returns the term of this CD account.
+     * @return The term
+     */
+    Period getTerm() {
+        return term;
+    }
+
+    /**
+     * Returns the type of this account as stored in a bank snapshot.
+     * @return {@code BankSnapshot.TYPE_CD}
+     */
+    @Override
+    int snapshotType() {
+        return BankSnapshot.TYPE_CD;
+    }
+
+    /**
+     * Returns the number stored in a bank snapshot for what's particular to a CD account.
+     * @return The length of the term, in months
+     */
+    @Override
+    long snapshotExtra() {
+        return getTerm().toTotalMonths();
+    }
+
+    /**
+     * Writes this CD account to a CSV writer, exactly as {@code toString} would return it.
+     * @param out The writer
+     * @throws IOException If the writer can't write
      */
     @Override
-    public String toString() {
-        return "CDAccount," + super.toString().substring(12) + "," + term.toTotalMonths();
+    void writeCsv(CsvWriter out) throws IOException {
+        out.write("CDAccount,");
+        writeCsvFields(out);
+        out.write(',');
+        out.write(getTerm().toTotalMonths());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal amounts of money, such as "150.0" or "-59.70", into an exact number
+ * of cents.
+ * <p>
+ * Unlike going through {@code Double.parseDouble}, no precision is lost ("0.29" is
+ * always 29 cents), and nothing is allocated unless the input is malformed: the digits
+ * are read straight from a range of characters or bytes. The accepted form is an
+ * optional sign, digits with an optional decimal point, and an optional exponent (so
+ * that values printed by {@code Double.toString}, such as "1.0E7", can be read back).
+ * Amounts with a nonzero fraction of a cent, such as "1.005", are rejected.
+ */
+public final class CentsParser {
+    /**
+     * The value returned by the {@code tryParseCents} methods for malformed input. No
+     * valid amount has this many cents, since amounts are read as a sign and a magnitude
+     * no larger than {@code Long.MAX_VALUE}.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /**
+     * Powers of ten that fit in a {@code long}; {@code POWERS[i]} is 10 to the power i.
+     */
+    private static final long[] POWERS = new long[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    /**
+     * This class only has static methods; it can't be instantiated.
+     */
+    private CentsParser() {
+    }
+
+    /**
+     * Parses the specified amount into a number of cents.
+     * @param s The amount, for example "150.0"
+     * @return The amount, in cents
+     * @throws NumberFormatException If the amount is malformed, has a fraction of a
+     *         cent, or is too large
+     */
+    public static long parseCents(CharSequence s) throws NumberFormatException {
+        return parseCents(s, 0, s.length());
+    }
+
+    /**
+     * Parses the amount in characters {@code start} (inclusive) to {@code end} (exclusive)
+     * of the specified character sequence into a number of cents.
+     * @param s The characters
+     * @param start The index of the first character of the amount
+     * @param end The index after the last character of the amount
+     * @return The amount, in cents
+     * @throws NumberFormatException If the amount is malformed, has a fraction of a
+     *         cent, or is too large
+     */
+    public static long parseCents(CharSequence s, int start, int end) throws NumberFormatException {
+        long cents = tryParseCents(s, start, end);
+        if (cents == INVALID) {
+            throw new NumberFormatException("For input string: \"" + s.subSequence(start, end) + "\"");
+        }
+        return cents;
+    }
+
+    /**
+     * Parses the amount in characters {@code start} (inclusive) to {@code end} (exclusive)
+     * of the specified character sequence into a number of cents, without throwing an
+     * exception if it's malformed.
+     * @param s The characters
+     * @param start The index of the first character of the amount
+     * @param end The index after the last character of the amount
+     * @return The amount, in cents, or {@code INVALID} if the amount is malformed, has
+     *         a fraction of a cent, or is too large
+     */
+    public static long tryParseCents(CharSequence s, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0, fractionDigits = 0, pendingZeros = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                    // zeros after the point only count once a nonzero digit follows them
+                    if (c == '0') {
+                        pendingZeros++;
+                        continue;
+                    }
+                    mantissa = shift(mantissa, pendingZeros);
+                    pendingZeros = 0;
+                }
+                mantissa = append(mantissa, c - '0');
+                if (mantissa < 0) {
+                    return INVALID;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        long exponent = 0;
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            for (; i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9' && exponent < 1000; i++) {
+                exponent = exponent * 10 + (s.charAt(i) - '0');
+            }
+            if (i == exponentStart) {
+                return INVALID;
+            }
+            exponent = negativeExponent ? -exponent : exponent;
+        }
+
+        if (digits == 0 || i != end) {
+            return INVALID;
+        }
+
+        long cents = scale(mantissa, 2 - (fractionDigits - pendingZeros) + exponent);
+        if (cents < 0) {
+            return INVALID;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Parses the amount in bytes {@code start} (inclusive) to {@code end} (exclusive) of
+     * the specified array into a number of cents. The bytes are expected to be ASCII
+     * characters; see {@code parseCents(CharSequence, int, int)} for the accepted form.
+     * @param b The bytes
+     * @param start The index of the first byte of the amount
+     * @param end The index after the last byte of the amount
+     * @return The amount, in cents
+     * @throws NumberFormatException If the amount is malformed, has a fraction of a
+     *         cent, or is too large
+     */
+    public static long parseCents(byte[] b, int start, int end) throws NumberFormatException {
+        long cents = tryParseCents(b, start, end);
+        if (cents == INVALID) {
+            throw new NumberFormatException("For input string: \""
+                    + new String(b, start, end - start, StandardCharsets.ISO_8859_1) + "\"");
+        }
+        return cents;
+    }
+
+    /**
+     * Parses the amount in bytes {@code start} (inclusive) to {@code end} (exclusive) of
+     * the specified array into a number of cents, without throwing an exception if it's
+     * malformed.
+     * @param b The bytes
+     * @param start The index of the first byte of the amount
+     * @param end The index after the last byte of the amount
+     * @return The amount, in cents, or {@code INVALID} if the amount is malformed, has
+     *         a fraction of a cent, or is too large
+     */
+    public static long tryParseCents(byte[] b, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (b[i] == '-' || b[i] == '+')) {
+            negative = b[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0, fractionDigits = 0, pendingZeros = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (point) {
+                    fractionDigits++;
+                    // zeros after the point only count once a nonzero digit follows them
+                    if (c == '0') {
+                        pendingZeros++;
+                        continue;
+                    }
+                    mantissa = shift(mantissa, pendingZeros);
+                    pendingZeros = 0;
+                }
+                mantissa = append(mantissa, c - '0');
+                if (mantissa < 0) {
+                    return INVALID;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        long exponent = 0;
+        if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (b[i] == '-' || b[i] == '+')) {
+                negativeExponent = b[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            for (; i < end && b[i] >= '0' && b[i] <= '9' && exponent < 1000; i++) {
+                exponent = exponent * 10 + (b[i] - '0');
+            }
+            if (i == exponentStart) {
+                return INVALID;
+            }
+            exponent = negativeExponent ? -exponent : exponent;
+        }
+
+        if (digits == 0 || i != end) {
+            return INVALID;
+        }
+
+        long cents = scale(mantissa, 2 - (fractionDigits - pendingZeros) + exponent);
+        if (cents < 0) {
+            return INVALID;
+        }
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Returns {@code mantissa * 10 + digit}, or -1 if that doesn't fit in a {@code long}.
+     * @param mantissa A non-negative number, or -1
+     * @param digit A digit
+     * @return The number with the digit appended, or -1
+     */
+    private static long append(long mantissa, int digit) {
+        if (mantissa < 0 || mantissa > (Long.MAX_VALUE - digit) / 10) {
+            return -1;
+        }
+        return mantissa * 10 + digit;
+    }
+
+    /**
+     * Returns {@code mantissa} times 10 to the power {@code zeros}, or -1 if that doesn't
+     * fit in a {@code long}.
+     * @param mantissa A non-negative number, or -1
+     * @param zeros The number of zeros to append
+     * @return The shifted number, or -1
+     */
+    private static long shift(long mantissa, int zeros) {
+        for (int z = 0; z < zeros && mantissa >= 0; z++) {
+            mantissa = append(mantissa, 0);
+        }
+        return mantissa;
+    }
+
+    /**
+     * Returns {@code mantissa} times 10 to the power {@code exponent}, or -1 if the
+     * result doesn't fit in a {@code long} or isn't a whole number.
+     * @param mantissa A non-negative number
+     * @param exponent The power of ten
+     * @return The scaled number, or -1
+     */
+    private static long scale(long mantissa, long exponent) {
+        if (mantissa == 0) {
+            return 0;
+        }
+        if (exponent >= 0) {
+            return exponent < POWERS.length ? shift(mantissa, (int) exponent) : -1;
+        }
+        if (-exponent >= POWERS.length) {
+            return -1;
+        }
+        long divisor = POWERS[(int) -exponent];
+        return mantissa % divisor == 0 ? mantissa / divisor : -1;
+    }
+}
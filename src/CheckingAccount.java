@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.time.LocalDate;
 
 /**
@@ -22,6 +23,13 @@ public class CheckingAccount extends BankAccount {
         this.overdraftLimit = overdraftLimit;
     }
 
+    /**
+     * Constructs a checking account with no fields of its own, for a subclass that keeps
+     * them somewhere else (see {@code BankAccount()}).
+     */
+    CheckingAccount() {
+    }
+
     /**
      * Constructs a checking account with the information specified by the parameters.
      * @param accountNumber The account number
@@ -39,31 +47,24 @@ public class CheckingAccount extends BankAccount {
     }
 
     /** 
-     * Withdraws the specified amount of money from this checking account. This will be
-     * successful only if there are sufficient funds in this account for the withdrawal
-     * to occur; otherwise, nothing is withdrawn. That is, if attempting to withdraw 
-     * desired amount would put the balance become negative beyond what is allowed by the 
-     * overdraft limit, nothing should be withdrawn.
-     * @param amount The amount of money to withdraw
-     * @throws NegativeMonetaryValueException If the specified amount of money is negative
-     * @throws InsufficientFundsException If the amount to withdraw is greater than 
-     *         the balance plus the overdraft limit
+     * Returns the lowest balance, in cents, that a withdrawal may leave in this checking
+     * account. A withdrawal is successful only if there are sufficient funds in this account
+     * for it to occur; that is, if attempting to withdraw the desired amount would make the
+     * balance negative beyond what is allowed by the overdraft limit, nothing is withdrawn
+     * (see the {@code withdraw} method of {@code BankAccount}).
+     * @return The overdraft limit, negated, in cents
      */
     @Override
-    public void withdraw(MonetaryValue amount)
-            throws NegativeMonetaryValueException, InsufficientFundsException {
-
-        if (amount.isNegative()) {
-            throw new NegativeMonetaryValueException(amount);
-        } 
-
-        MonetaryValue limit = balance.plus(overdraftLimit);
-
-        if (amount.compareTo(limit) > 0) {
-            throw new InsufficientFundsException(balance, amount);
-        }
+    protected long minimumBalanceCents() {
+        return -getOverdraftLimitCents();
+    }
 
-        balance = balance.minus(amount);
+    /**
+     * Returns the overdraft limit of this checking account as a number of cents.
+     * @return The overdraft limit, in cents
+     */
+    long getOverdraftLimitCents() {
+        return overdraftLimit.getCents();
     }
 
     /** 
@@ -78,21 +79,56 @@ public class CheckingAccount extends BankAccount {
     public boolean equals(Object o) {
         if (o instanceof CheckingAccount) {
             CheckingAccount other = (CheckingAccount) o;
-            return super.equals(other) && this.overdraftLimit.equals(other.overdraftLimit);
+            return super.equals(other) && this.getOverdraftLimitCents() == other.getOverdraftLimitCents();
         } else {
             return false;
         }
     }
 
     /** 
-     * Returns a string representation of this checking account, suitable for printing 
-     * to a .csv (comma-separated values) file. For example: 
+     * Appends a string representation of this checking account to a string builder,
+     * suitable for printing to a .csv (comma-separated values) file. For example: 
      * <p>
      * {@code "CheckingAccount,11112222,150.0,2020-8-23,John Adam Smith,50.0"}
-     * @return A string representation of this checking account
+     * @param out The string builder
+     * @return {@code out}
+     */
+    @Override
+    StringBuilder appendCsv(StringBuilder out) {
+        appendCsvFields(out.append("CheckingAccount,")).append(',');
+        return MonetaryValue.appendDecimalTo(out, getOverdraftLimitCents());
+    }
+
+    /**
+     * Returns the type of this account as stored in a bank snapshot.
+     * @return {@code BankSnapshot.TYPE_CHECKING}
+     */
+    @Override
+    int snapshotType() {
+        return BankSnapshot.TYPE_CHECKING;
+    }
+
+    /**
+     * Returns the number stored in a bank snapshot for what's particular to a checking
+     * account.
+     * @return The overdraft limit, in cents
+     */
+    @Override
+    long snapshotExtra() {
+        return getOverdraftLimitCents();
+    }
+
+    /**
+     * Writes this checking account to a CSV writer, exactly as {@code toString} would
+     * return it.
+     * @param out The writer
+     * @throws IOException If the writer can't write
      */
     @Override
-    public String toString() {
-        return "CheckingAccount," + super.toString().substring(12) + "," + overdraftLimit.toDouble();
+    void writeCsv(CsvWriter out) throws IOException {
+        out.write("CheckingAccount,");
+        writeCsvFields(out);
+        out.write(',');
+        out.writeAmount(getOverdraftLimitCents());
     }
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes incremental checkpoints of a bank in the background: instead of saving the
+ * whole bank every time, only the accounts that changed since the last checkpoint are
+ * saved, and the part of the bank's journal they make redundant is deleted.
+ * <p>
+ * Accounts mark themselves in a {@code DirtyAccounts} set when their balance changes,
+ * and the bank marks accounts it adds or closes. A checkpoint
+ * <ol>
+ * <li>starts a new segment of the bank's journal, so every change recorded so far is in
+ *     the older segments;</li>
+ * <li>takes the marked accounts, clearing the marks, and appends each one's current
+ *     state to the checkpoint file (a closed account is recorded as closed);</li>
+ * <li>forces the checkpoint file to disk; and then</li>
+ * <li>deletes the older journal segments.</li>
+ * </ol>
+ * Every change in the deleted segments was marked before the segment was closed, so
+ * the account's state, as of that change or later, is in the checkpoint. Accounts are
+ * read without locking anything but the bank's index, so deposits, withdrawals and
+ * transfers go on while a checkpoint is written. The states saved may be a little newer
+ * than the start of the new journal segment, which is harmless: the journal records
+ * absolute states, so replaying it on top of the checkpoint still ends in the right
+ * state (see {@code Bank.recover(File, File, File)}).
+ * <p>
+ * The checkpoint file uses the journal's record format, holding one record per account
+ * written, so it grows with each checkpoint by the number of accounts that changed.
+ * If the checkpointer is given the snapshot the checkpoints started from, then once the
+ * file holds more records than the bank has accounts, the next checkpoint compacts it
+ * into the snapshot instead: it takes every mark, saves the whole bank to a new
+ * snapshot, and empties the checkpoint file. The new snapshot is written under another
+ * name and renamed to {@code compacted(snapshot)} once it's on disk; from then on it
+ * replaces both the old snapshot and the checkpoint file, and {@code finishCompaction}
+ * puts it in place, which {@code Bank.recover(File, File, File)} also does if a
+ * compaction was interrupted.
+ */
+final class Checkpointer implements Closeable {
+    /**
+     * The number of records appended to the checkpoint file between writes, so that
+     * the buffer holding them doesn't grow with the number of changed accounts.
+     */
+    private static final int BATCH = 1 << 16;
+
+    /**
+     * The bank being checkpointed.
+     */
+    private final Bank bank;
+
+    /**
+     * The accounts that changed since the last checkpoint.
+     */
+    private final DirtyAccounts dirty;
+
+    /**
+     * The snapshot the checkpoints started from, or {@code null} if the checkpoint file
+     * is never compacted.
+     */
+    private final File snapshot;
+
+    /**
+     * The checkpoint file.
+     */
+    private final File file;
+
+    /**
+     * The checkpoint file, open for appending. Replaced when the file is compacted.
+     */
+    private Journal log;
+
+    /**
+     * The number of records in the checkpoint file.
+     */
+    private long records;
+
+    /**
+     * The thread that writes checkpoints.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The error that stopped the background checkpoints, if any.
+     */
+    private volatile Exception failure;
+
+    /**
+     * Opens the checkpoint file, discarding a record at the end that was only partly
+     * written, and starts writing a checkpoint at a fixed interval on a background
+     * thread. If writing a checkpoint fails, no more are written.
+     * @param bank The bank
+     * @param dirty The set in which the bank's accounts mark their changes
+     * @param snapshot The snapshot the checkpoints start from, to compact the checkpoint
+     *        file into, or {@code null} to only ever append to the checkpoint file
+     * @param file The checkpoint file
+     * @param interval The time between the end of one checkpoint and the start of the next
+     * @param unit The unit of {@code interval}
+     * @throws IOException If the checkpoint file can't be read or opened
+     */
+    Checkpointer(Bank bank, DirtyAccounts dirty, File snapshot, File file, long interval, TimeUnit unit)
+            throws IOException {
+        this.bank = bank;
+        this.dirty = dirty;
+        this.snapshot = snapshot;
+        this.file = file;
+        if (snapshot != null) {
+            // left by a compaction that the bank has since been restored without
+            Files.deleteIfExists(compacted(snapshot).toPath());
+        }
+        this.log = Journal.open(file, null);
+        this.records = log.replayed();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::run, interval, interval, unit);
+    }
+
+    /**
+     * Writes a checkpoint on the background thread, stopping the background checkpoints
+     * if it fails.
+     */
+    private void run() {
+        try {
+            checkpoint();
+        } catch (IOException | UncheckedIOException ex) {
+            failure = ex;
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Writes a checkpoint now, on the calling thread, compacting the checkpoint file into
+     * the snapshot if it has grown bigger than the bank.
+     * @return The number of accounts written
+     * @throws IOException If the checkpoint file, the snapshot or the journal can't be
+     *         written
+     */
+    synchronized long checkpoint() throws IOException {
+        Journal journal = bank.journal();
+        int segment = journal == null ? 0 : journal.rotate();
+
+        long written;
+        if (snapshot != null && records > bank.size()) {
+            written = compact();
+        } else {
+            written = appendChanged();
+            records += written;
+        }
+
+        if (journal != null) {
+            journal.deleteBefore(segment);
+        }
+        return written;
+    }
+
+    /**
+     * Takes the marked accounts and appends each one's current state to the checkpoint
+     * file, then forces it to disk.
+     * @return The number of accounts written
+     * @throws IOException If the checkpoint file can't be written
+     */
+    private long appendChanged() throws IOException {
+        long written = 0, position = -1;
+        for (int s = 0; s < dirty.summaryWords(); s++) {
+            long words = dirty.takeSummary(s);
+            while (words != 0) {
+                int word = (s << 6) + Long.numberOfTrailingZeros(words);
+                words &= words - 1;
+                long bits = dirty.take(word);
+                while (bits != 0) {
+                    int key = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    BankAccount account = bank.fetchaccount(key);
+                    position = account == null ? log.appendClose(key) : log.appendAdd(account);
+                    if (++written % BATCH == 0) {
+                        log.await(position);
+                    }
+                }
+            }
+        }
+        log.await(position);
+        return written;
+    }
+
+    /**
+     * Saves the whole bank to a new snapshot, replacing the old snapshot and emptying the
+     * checkpoint file. The marks are taken first, so a change made while the snapshot is
+     * written is either in it or marked again for the next checkpoint. Accounts can't be
+     * added or closed while the snapshot is written.
+     * @return The number of accounts written
+     * @throws IOException If the snapshot or the checkpoint file can't be written
+     */
+    private long compact() throws IOException {
+        dirty.clear();
+        File temporary = new File(snapshot.getPath() + ".tmp");
+        long written = bank.writeSnapshot(temporary);
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        File compacted = compacted(snapshot);
+        Files.move(temporary.toPath(), compacted.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        log.close();
+        finishCompaction(compacted, snapshot, file);
+        log = Journal.open(file, null);
+        records = 0;
+        return written;
+    }
+
+    /**
+     * Returns the file a compacted snapshot is kept in until it replaces the snapshot.
+     * @param snapshot The snapshot
+     * @return The snapshot's name with ".new" appended
+     */
+    static File compacted(File snapshot) {
+        return new File(snapshot.getPath() + ".new");
+    }
+
+    /**
+     * Puts a compacted snapshot in place of the snapshot, after emptying the checkpoint
+     * file, whose records the compacted snapshot already holds. If this is interrupted,
+     * it can be done again.
+     * @param compacted The compacted snapshot (see {@code compacted})
+     * @param snapshot The snapshot
+     * @param file The checkpoint file
+     * @throws IOException If a file can't be deleted or renamed
+     */
+    static void finishCompaction(File compacted, File snapshot, File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+        Files.move(compacted.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Stops the background checkpoints, waiting for one in progress to finish, and
+     * closes the checkpoint file.
+     * @throws IOException If the checkpoint file can't be closed, a background
+     *         checkpoint failed, or the thread is interrupted while waiting
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a checkpoint", ex);
+        } finally {
+            synchronized (this) {
+                log.close();
+            }
+        }
+        Exception ex = failure;
+        if (ex != null) {
+            throw new IOException("Writing a checkpoint failed", ex);
+        }
+    }
+}
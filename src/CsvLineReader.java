@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file line by line through a {@code FileChannel}, handing each line to a
+ * {@code LineHandler} as a range of bytes in a reusable buffer. No {@code String} or
+ * other object is created per line, and no regular expressions are involved.
+ * <p>
+ * Lines may end with {@code "\n"} or {@code "\r\n"}; the line terminator is not part
+ * of the range. Lines that are empty or consist only of whitespace are skipped.
+ */
+final class CsvLineReader {
+    /**
+     * Receives the lines read by a {@code CsvLineReader}.
+     */
+    interface LineHandler {
+        /**
+         * Handles one line. The bytes are only valid until this method returns.
+         * @param buf The buffer holding the line
+         * @param start The index of the first byte of the line
+         * @param end The index after the last byte of the line
+         * @param lineNumber The line number, starting at 1
+         * @param offset The position of the first byte of the line in the file
+         */
+        void line(byte[] buf, int start, int end, long lineNumber, long offset);
+    }
+
+    /**
+     * The initial size of the read buffer. The buffer grows if a line doesn't fit.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * This class only has static methods; it can't be instantiated.
+     */
+    private CsvLineReader() {
+    }
+
+    /**
+     * Reads the specified file, passing each line to the handler.
+     * @param file The file to read
+     * @param handler The handler for the lines
+     * @throws IOException If the file can't be read
+     */
+    static void read(File file, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            read(channel, 0, channel.size(), 1, handler);
+        }
+    }
+
+    /**
+     * Reads the lines in bytes {@code from} (inclusive) to {@code to} (exclusive) of the
+     * channel, passing each one to the handler. {@code from} must be the start of a line.
+     * The channel's position is not used or changed, so several ranges of one channel
+     * can be read at the same time.
+     * @param channel The channel to read
+     * @param from The position of the first byte to read
+     * @param to The position after the last byte to read
+     * @param firstLineNumber The line number of the line at {@code from}
+     * @param handler The handler for the lines
+     * @return The number of lines in the range
+     * @throws IOException If the channel can't be read
+     */
+    static long read(FileChannel channel, long from, long to, long firstLineNumber, LineHandler handler)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(to - from, 16)));
+        long position = from;        // file position of buffer[0]
+        long lineNumber = firstLineNumber;
+        int filled = 0;              // number of valid bytes in the buffer
+        int lineStart = 0;
+        int scanned = 0;
+
+        while (true) {
+            byte[] buf = buffer.array();
+            for (; scanned < filled; scanned++) {
+                if (buf[scanned] == '\n') {
+                    deliver(buf, lineStart, scanned, lineNumber++, position + lineStart, handler);
+                    lineStart = scanned + 1;
+                }
+            }
+
+            // keep the partial line, moving it to the front or growing the buffer for it
+            if (lineStart > 0) {
+                System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+                position += lineStart;
+                filled -= lineStart;
+                scanned = filled;
+                lineStart = 0;
+            } else if (filled == buf.length) {
+                ByteBuffer bigger = ByteBuffer.allocate(buf.length * 2);
+                bigger.put(buf, 0, filled);
+                buffer = bigger;
+            }
+
+            long remaining = to - (position + filled);
+            if (remaining <= 0) {
+                break;
+            }
+            buffer.limit((int) Math.min(buffer.capacity(), filled + remaining));
+            buffer.position(filled);
+            int n = channel.read(buffer, position + filled);
+            if (n < 0) {
+                break;
+            }
+            filled += n;
+        }
+
+        if (filled > 0) {
+            deliver(buffer.array(), 0, filled, lineNumber++, position, handler);
+        }
+        return lineNumber - firstLineNumber;
+    }
+
+    /**
+     * Strips the line terminator from a line and passes it to the handler, unless it's blank.
+     * @param buf The buffer holding the line
+     * @param start The index of the first byte of the line
+     * @param end The index after the last byte of the line, not counting {@code '\n'}
+     * @param lineNumber The line number
+     * @param offset The position of the first byte of the line in the file
+     * @param handler The handler for the line
+     */
+    private static void deliver(byte[] buf, int start, int end, long lineNumber, long offset,
+            LineHandler handler) {
+        if (end > start && buf[end - 1] == '\r') {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            if (buf[i] != ' ' && buf[i] != '\t') {
+                handler.line(buf, start, end, lineNumber, offset);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+/**
+ * Writes comma-separated values to a channel through a reusable byte buffer. Numbers,
+ * amounts and dates are formatted straight into the buffer, and ASCII text is copied
+ * into it a character at a time, so writing a line creates no objects; the buffer is
+ * written to the channel whenever it fills up. The memory used is the same however
+ * much is written.
+ * <p>
+ * The text produced is exactly what the corresponding {@code toString} methods
+ * produce: amounts look like {@code Double.toString} of the amount in dollars, and
+ * dates like {@code LocalDate.toString}. Text that isn't ASCII is encoded with the
+ * default character set, as a {@code PrintWriter} would encode it.
+ * <p>
+ * A writer can also be created without a channel, in which case the buffer grows to
+ * hold everything written until it's taken with {@code buffer()} and the writer is
+ * {@code reset()}; this is how several threads format parts of one file at once.
+ */
+final class CsvWriter implements Closeable {
+    /**
+     * The size of the buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The most bytes any single {@code write} of a number, amount or date can add.
+     */
+    private static final int MAX_FIELD = 32;
+
+    /**
+     * The character set for text that isn't ASCII.
+     */
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    /**
+     * The channel to write to.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The buffer holding what hasn't been written to the channel yet.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Scratch space for formatting a number's digits, least significant first.
+     */
+    private final byte[] digits = new byte[20];
+
+    /**
+     * Creates a writer for the specified channel.
+     * @param channel The channel to write to
+     */
+    CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates a writer that keeps everything written in memory.
+     */
+    CsvWriter() {
+        this(null);
+    }
+
+    /**
+     * Returns what has been written to a writer without a channel, ready to be read.
+     * The buffer stays valid until the writer is reset or written to again.
+     * @return The bytes written since the writer was created or last reset
+     */
+    ByteBuffer buffer() {
+        return buffer.duplicate().flip();
+    }
+
+    /**
+     * Discards what has been written to a writer without a channel, keeping its buffer
+     * for reuse.
+     */
+    void reset() {
+        buffer.clear();
+    }
+
+    /**
+     * Writes a character, which must be ASCII.
+     * @param c The character
+     * @throws IOException If the channel can't be written
+     */
+    void write(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            makeRoom();
+        }
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Writes a string.
+     * @param s The string
+     * @throws IOException If the channel can't be written
+     */
+    void write(String s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                byte[] bytes = s.getBytes(CHARSET);
+                write(bytes, 0, bytes.length);
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (!buffer.hasRemaining()) {
+                makeRoom();
+            }
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    /**
+     * Writes some bytes, which must already be encoded as text is (see above), for
+     * example because they're ASCII.
+     * @param bytes The array holding the bytes
+     * @param offset Where the bytes start in the array
+     * @param length The number of bytes
+     * @throws IOException If the channel can't be written
+     */
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (!buffer.hasRemaining()) {
+                makeRoom();
+            }
+            int n = Math.min(buffer.remaining(), length - written);
+            buffer.put(bytes, offset + written, n);
+            written += n;
+        }
+    }
+
+    /**
+     * Writes a whole number, as {@code Long.toString} would.
+     * @param value The number
+     * @throws IOException If the channel can't be written
+     */
+    void write(long value) throws IOException {
+        reserve();
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        putDigits(value, 1);
+    }
+
+    /**
+     * Writes an amount of money in dollars, as {@code Double.toString(cents / 100.0)}
+     * would: for example 150.0, -25.5, 0.29 or 1.0E7 (see
+     * {@code MonetaryValue.appendDecimalTo}).
+     * @param cents The amount, in cents
+     * @throws IOException If the channel can't be written
+     */
+    void writeAmount(long cents) throws IOException {
+        reserve();
+        MonetaryValue.writeDecimalTo(buffer, cents);
+    }
+
+    /**
+     * Writes a date, as {@code LocalDate.toString} would: for example 2020-08-23.
+     * @param date The date
+     * @throws IOException If the channel can't be written
+     */
+    void write(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            write(date.toString());
+            return;
+        }
+        reserve();
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Writes everything in the buffer to the channel. Does nothing if there is no channel.
+     * @throws IOException If the channel can't be written
+     */
+    void flush() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes room in the buffer: writes it to the channel, or, if there is no channel,
+     * replaces it with one twice the size.
+     * @throws IOException If the channel can't be written
+     */
+    private void makeRoom() throws IOException {
+        if (channel != null) {
+            flush();
+        } else {
+            ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    /**
+     * Flushes the buffer and closes the channel.
+     * @throws IOException If the channel can't be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Makes sure there is room in the buffer for a number, amount or date.
+     * @throws IOException If the channel can't be written
+     */
+    private void reserve() throws IOException {
+        if (buffer.remaining() < MAX_FIELD) {
+            makeRoom();
+        }
+    }
+
+    /**
+     * Puts the decimal digits of a number in the buffer, padded with leading zeros to
+     * at least the specified width. The caller must have reserved room for them.
+     * @param value The number; if negative, its magnitude is written
+     * @param width The smallest number of digits to write
+     */
+    private void putDigits(long value, int width) {
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (count < width) {
+            digits[count++] = '0';
+        }
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps track of which accounts have changed since they were last written to a
+ * checkpoint (see {@code Checkpointer}).
+ * <p>
+ * One bit per possible account number records whether the account has changed. The
+ * bits are kept in pages of {@code PAGE_KEYS} keys, allocated the first time an account
+ * in the page changes, so a bank whose account numbers are close together only pays
+ * for the pages it uses, not 12 MB for every possible number. A summary holds one more
+ * bit per word of bits, set when the word may have bits set, so a checkpoint reads
+ * only the words with changes instead of all 1.5 million.
+ * <p>
+ * Marking an account only reads its word and its summary word when both bits are
+ * already set, which they usually are for a busy account, so marking is cheap enough to
+ * do on every deposit and withdrawal. Words are taken summary first, and each word is
+ * cleared atomically as it is taken. A mark sets the account's bit, then its summary
+ * bit, even if the account's bit was already set, so a change is never lost between
+ * being marked and being taken: it's either in the word that was taken, or marked in
+ * the summary again afterwards.
+ */
+final class DirtyAccounts {
+    /**
+     * The number of possible account numbers: every 8-digit number, including those
+     * with leading zeros.
+     */
+    private static final int KEYS = 100_000_000;
+
+    /**
+     * The number of words in a page is {@code 1 << PAGE_SHIFT}.
+     */
+    private static final int PAGE_SHIFT = 10;
+
+    /**
+     * The number of words of bits in a page.
+     */
+    private static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+
+    /**
+     * The number of account numbers a page has bits for.
+     */
+    private static final int PAGE_KEYS = PAGE_WORDS * 64;
+
+    /**
+     * The pages of bits, or {@code null} for pages in which no account has changed; bit
+     * {@code key % PAGE_KEYS} of page {@code key / PAGE_KEYS} is set if the account with
+     * that index key has changed.
+     */
+    private final AtomicReferenceArray<AtomicLongArray> pages =
+            new AtomicReferenceArray<>((KEYS + PAGE_KEYS - 1) / PAGE_KEYS);
+
+    /**
+     * One bit per word of bits; bit {@code w} is set if word {@code w} may have bits set.
+     */
+    private final AtomicLongArray summary = new AtomicLongArray(pages.length() * PAGE_WORDS / 64);
+
+    /**
+     * Marks the account with the specified key as changed.
+     * @param key The account number, as an index key (see {@code AccountIndex.toKey})
+     */
+    void mark(int key) {
+        int word = key >>> 6;
+        set(page(word >>> PAGE_SHIFT), word & (PAGE_WORDS - 1), 1L << key);
+        // even if the bit was already set, whoever set it may not have marked the summary yet
+        set(summary, word >>> 6, 1L << word);
+    }
+
+    /**
+     * Returns the number of words in the summary; summary word {@code s} holds the bits
+     * for words {@code 64 * s} to {@code 64 * s + 63}.
+     * @return The number of words
+     */
+    int summaryWords() {
+        return summary.length();
+    }
+
+    /**
+     * Takes the bits in one word of the summary, clearing them. The words they stand for
+     * must be taken afterwards.
+     * @param s The index of the summary word
+     * @return The bits that were set; bit {@code b} stands for word {@code 64 * s + b}
+     */
+    long takeSummary(int s) {
+        return summary.get(s) == 0 ? 0 : summary.getAndSet(s, 0);
+    }
+
+    /**
+     * Takes the bits in one word, clearing them.
+     * @param word The index of the word
+     * @return The bits that were set; bit {@code b} stands for key {@code 64 * word + b}
+     */
+    long take(int word) {
+        AtomicLongArray page = pages.get(word >>> PAGE_SHIFT);
+        if (page == null) {
+            return 0;
+        }
+        int at = word & (PAGE_WORDS - 1);
+        return page.get(at) == 0 ? 0 : page.getAndSet(at, 0);
+    }
+
+    /**
+     * Takes every bit, clearing them, for when all the accounts are about to be saved.
+     */
+    void clear() {
+        for (int s = 0; s < summary.length(); s++) {
+            for (long words = takeSummary(s); words != 0; words &= words - 1) {
+                take((s << 6) + Long.numberOfTrailingZeros(words));
+            }
+        }
+    }
+
+    /**
+     * Returns a page of bits, allocating it if no account in it has changed before.
+     * @param p The index of the page
+     * @return The page
+     */
+    private AtomicLongArray page(int p) {
+        AtomicLongArray page = pages.get(p);
+        if (page == null) {
+            pages.compareAndSet(p, null, new AtomicLongArray(PAGE_WORDS));
+            page = pages.get(p);
+        }
+        return page;
+    }
+
+    /**
+     * Sets bits in a word, unless they're all set already.
+     * @param words The words
+     * @param i The index of the word
+     * @param mask The bits to set
+     */
+    private static void set(AtomicLongArray words, int i, long mask) {
+        long bits;
+        do {
+            bits = words.get(i);
+            if ((bits & mask) == mask) {
+                return;
+            }
+        } while (!words.compareAndSet(i, bits, bits | mask));
+    }
+}
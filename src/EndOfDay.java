@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The end-of-day batch of a bank, run when the bank's business date (see
+ * {@code BusinessDate}) moves on to the next day (see {@code rollover}). The batch
+ * closing a day has four stages:
+ * <ol>
+ * <li>maturities: the CD accounts maturing on the next day are processed (see
+ * {@code Bank.processMaturities});</li>
+ * <li>fees: if the day is the last of its month, the month-end rates are applied (see
+ * {@code Bank.applyMonthEnd});</li>
+ * <li>statements: the accounts are printed to a file named
+ * {@code statements-<date>.csv} in the batch directory (see {@code Bank.printToFile});
+ * </li>
+ * <li>snapshot: the bank is saved to a file named {@code snapshot-<date>.bin} in the
+ * batch directory (see {@code Bank.saveSnapshot}).</li>
+ * </ol>
+ * Maturities and fees run at the same time, and so do statements and snapshot once
+ * they are done, so the files show the balances after the fees. Everything runs on a
+ * work-stealing {@code ForkJoinPool}, and the stages that work on every account split
+ * their work into tasks on the same pool, so idle threads take work from busy ones.
+ * Each stage is timed (see {@code EndOfDayReport}).
+ */
+public class EndOfDay {
+    /**
+     * The stages of the batch, in order.
+     */
+    public enum Stage {
+        MATURITIES, FEES, STATEMENTS, SNAPSHOT
+    }
+
+    /**
+     * The bank the batch runs on.
+     */
+    private final Bank bank;
+
+    /**
+     * The rates applied at the end of each month.
+     */
+    private final MonthEndRates rates;
+
+    /**
+     * The directory the statements and snapshots are written to.
+     */
+    private final File directory;
+
+    /**
+     * How long the batch is allowed to take.
+     */
+    private final Duration window;
+
+    /**
+     * The pool the batch runs on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs the end-of-day batch of a bank, which runs on the common fork/join pool.
+     * @param bank The bank
+     * @param rates The rates to apply at the end of each month
+     * @param directory The directory to write the statements and snapshots to
+     * @param window How long the batch is allowed to take
+     */
+    public EndOfDay(Bank bank, MonthEndRates rates, File directory, Duration window) {
+        this(bank, rates, directory, window, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs the end-of-day batch of a bank, which runs on the specified pool.
+     * @param bank The bank
+     * @param rates The rates to apply at the end of each month
+     * @param directory The directory to write the statements and snapshots to
+     * @param window How long the batch is allowed to take
+     * @param pool The pool to run on
+     */
+    public EndOfDay(Bank bank, MonthEndRates rates, File directory, Duration window, ForkJoinPool pool) {
+        this.bank = bank;
+        this.rates = rates;
+        this.directory = directory;
+        this.window = window;
+        this.pool = pool;
+    }
+
+    /**
+     * Closes the business day: moves the bank's business date on to the next day (see
+     * {@code BusinessDate.advance}), then runs the batch for the day that was closed.
+     * From then on the business date stays the same until the next rollover, whether or
+     * not it followed a clock before. Withdrawals from CD accounts maturing on the new
+     * day are allowed as soon as the date has moved on.
+     * @return What the batch did and how long it took
+     * @throws IOException If the statements or the snapshot can't be written
+     */
+    public EndOfDayReport rollover() throws IOException {
+        LocalDate closed = bank.getBusinessDate().advance().minusDays(1);
+        return run(closed);
+    }
+
+    /**
+     * Runs the batch for the specified business day, without changing the business
+     * date. This can be used to run the batch again for a day, for example after it
+     * failed.
+     * @param date The business day to close
+     * @return What the batch did and how long it took
+     * @throws IOException If the statements or the snapshot can't be written
+     */
+    public EndOfDayReport run(LocalDate date) throws IOException {
+        long[] nanos = new long[Stage.values().length];
+        int[] matured = new int[1];
+        MonthEndSummary[] monthEnd = new MonthEndSummary[1];
+        LocalDate next = date.plusDays(1);
+
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    ForkJoinTask.invokeAll(
+                            stage(Stage.MATURITIES, nanos, () -> matured[0] = bank.processMaturities(next).size()),
+                            stage(Stage.FEES, nanos, () -> {
+                                if (next.getDayOfMonth() == 1) {
+                                    monthEnd[0] = bank.applyMonthEnd(rates);
+                                }
+                            }));
+                    ForkJoinTask.invokeAll(
+                            stage(Stage.STATEMENTS, nanos,
+                                    () -> bank.printToFile(new File(directory, "statements-" + date + ".csv"), pool)),
+                            stage(Stage.SNAPSHOT, nanos,
+                                    () -> bank.saveSnapshot(new File(directory, "snapshot-" + date + ".bin"))));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long total = System.nanoTime() - start;
+
+        return new EndOfDayReport(date, matured[0], monthEnd[0], nanos, total, window);
+    }
+
+    /**
+     * Makes a task that runs a stage of the batch and times it.
+     * @param stage The stage
+     * @param nanos The array in which to record how long the stage took, in nanoseconds
+     * @param work Runs the stage
+     * @return The task
+     */
+    private static RecursiveAction stage(Stage stage, long[] nanos, Work work) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() {
+                long start = System.nanoTime();
+                try {
+                    work.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                nanos[stage.ordinal()] = System.nanoTime() - start;
+            }
+        };
+    }
+
+    /**
+     * The work of a stage.
+     */
+    private interface Work {
+        /**
+         * Runs the stage.
+         * @throws IOException If a file can't be written
+         */
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures how fast a bank is written to a file with {@code Bank.printToFile}. A bank
+ * with the requested number of random accounts is loaded from a generated accounts file
+ * (see {@code LoadBenchmark.generate}), then it is exported several times, and the
+ * number of accounts and megabytes written per second are printed.
+ * <p>
+ * Usage: {@code java ExportBenchmark [accounts] [runs] [parallel]}. Give the JVM enough
+ * heap (for example {@code -Xms3g}) that garbage collection doesn't dominate the timings.
+ */
+public class ExportBenchmark {
+    /**
+     * Runs the benchmark.
+     * @param args The number of accounts, the number of times to export them, and
+     *             optionally "parallel" to export them with {@code printToFile(String,
+     *             boolean)} in parallel mode
+     * @throws IOException If a temporary file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        long accounts = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean parallel = args.length > 2 && args[2].equals("parallel");
+
+        File input = File.createTempFile("accounts", ".csv");
+        input.deleteOnExit();
+        new File(input.getPath() + ".rejects").deleteOnExit();
+        LoadBenchmark.generate(input, accounts);
+        Bank bank = new Bank(input, true);
+        input.delete();
+
+        File output = File.createTempFile("export", ".csv");
+        output.deleteOnExit();
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            bank.printToFile(output.getPath(), parallel);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("run %d: %,d accounts in %.3f s, %,.0f accounts/s, %,.1f MB/s%n",
+                    run, accounts, seconds, accounts / seconds, output.length() / seconds / 1e6);
+        }
+    }
+}
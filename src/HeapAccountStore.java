@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An account store that keeps the accounts themselves on the heap, in a list and an
+ * {@code AccountIndex}. The accounts added are the ones returned, so changes made
+ * directly to an account are changes to the bank.
+ * <p>
+ * The holders' names are packed into an arena (see {@code NameArena}): when an account
+ * is added, its name is stored there once, and the account keeps just a small view of
+ * it, so a holder with many accounts is stored once, and names cost no strings.
+ * Names that can't be kept in an arena are pooled instead (see {@code NamePool}).
+ */
+final class HeapAccountStore implements AccountStore {
+    /**
+     * The accounts, in the order they were added, except that removing one moves the
+     * last into its place. An account's position here is its row in {@code columns}.
+     */
+    private final ArrayList<BankAccount> accounts = new ArrayList<>();
+
+    /**
+     * The accounts, keyed on account number.
+     */
+    private final AccountIndex index = new AccountIndex();
+
+    /**
+     * The accounts laid out as columns, kept in sync with the accounts.
+     */
+    private final AccountColumns columns = new AccountColumns(true);
+
+    /**
+     * The names of the accounts' holders. Names of closed accounts stay in the arena
+     * until it is rebuilt (see {@code add}).
+     */
+    private NameArena arena = new NameArena();
+
+    /**
+     * The names of the accounts' holders that can't be kept in {@code arena}.
+     */
+    private NamePool names = new NamePool();
+
+    /**
+     * The set in which changes to the accounts are marked, or {@code null}.
+     */
+    private DirtyAccounts dirty;
+
+    /**
+     * The business date withdrawals from CD accounts are checked against.
+     */
+    private final BusinessDate businessDate;
+
+    /**
+     * Constructs an empty store.
+     * @param businessDate The business date of the bank the store is for, which CD
+     *        accounts added to the store check withdrawals against
+     */
+    HeapAccountStore(BusinessDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    /**
+     * Returns the account with the specified key.
+     * @param key The account number as an index key (see {@code AccountIndex.toKey})
+     * @return The account, or {@code null} if there is none
+     */
+    @Override
+    public BankAccount get(int key) {
+        return index.get(key);
+    }
+
+    /**
+     * Adds an account at the end of the store, unless the store already has an account
+     * with the same account number.
+     * @param account The account
+     * @return {@code true} if the account was added, {@code false} if its account
+     *         number was already in use
+     */
+    @Override
+    public boolean add(BankAccount account) {
+        int key = AccountIndex.toKey(account.getAccountNumber());
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid account number " + account.getAccountNumber());
+        }
+        if (index.get(key) != null) {
+            return false;
+        }
+        // the name and the column row come first, so that if either fails the account
+        // isn't in the index or the list
+        storeName(account);
+        columns.add(account);
+        index.putIfAbsent(key, account);
+        accounts.add(account);
+        account.trackChanges(dirty);
+        if (account instanceof CDAccount) {
+            ((CDAccount) account).setBusinessDate(businessDate);
+        }
+        if (arena.size() + names.size() > 2 * accounts.size() + 1024) {
+            rebuildNames();
+        }
+        return true;
+    }
+
+    /**
+     * Stores the name of an account's holder in the arena, or in the pool if it can't be
+     * kept in the arena, and makes the account use the stored name.
+     * @param account The account
+     */
+    private void storeName(BankAccount account) {
+        Name name = account.getName();
+        int at = arena.intern(name);
+        if (at >= 0) {
+            account.setName(arena.root().at(at));
+        } else {
+            account.setName(names.intern(name));
+        }
+    }
+
+    /**
+     * Replaces the arena and the pool of names with ones holding only the names of the
+     * accounts in the store, after many accounts have been closed. Views of the old
+     * arena stay valid.
+     */
+    private void rebuildNames() {
+        arena = new NameArena();
+        names = new NamePool();
+        for (BankAccount account : accounts) {
+            storeName(account);
+        }
+    }
+
+    /**
+     * Removes the account with the specified key.
+     * @param key The account number as an index key
+     * @return The account removed, or {@code null} if there was none
+     */
+    @Override
+    public BankAccount remove(int key) {
+        BankAccount account = index.remove(key);
+        if (account != null) {
+            int row = account.getColumnRow();
+            columns.remove(account);
+            BankAccount last = accounts.remove(accounts.size() - 1);
+            if (row < accounts.size()) {
+                accounts.set(row, last);
+            }
+        }
+        return account;
+    }
+
+    /**
+     * Returns the number of accounts in the store.
+     * @return The number of accounts
+     */
+    @Override
+    public int size() {
+        return accounts.size();
+    }
+
+    /**
+     * Makes room for about {@code expected} accounts in total.
+     * @param expected The expected number of accounts
+     */
+    @Override
+    public void ensureCapacity(int expected) {
+        accounts.ensureCapacity(expected);
+        index.ensureCapacity(expected);
+        columns.ensureCapacity(expected);
+    }
+
+    /**
+     * Returns the accounts, in the order they were added, except that removing an
+     * account moves the last one into its place.
+     * @return An unmodifiable view of the accounts
+     */
+    @Override
+    public List<BankAccount> accounts() {
+        return Collections.unmodifiableList(accounts);
+    }
+
+    /**
+     * Returns the accounts as columns, which are kept in sync with the accounts.
+     * @return The columns
+     */
+    @Override
+    public AccountColumns columns() {
+        return columns;
+    }
+
+    /**
+     * Starts or stops marking changes to the accounts' balances.
+     * @param dirty The set in which to mark changed accounts, or {@code null}
+     */
+    @Override
+    public void trackChanges(DirtyAccounts dirty) {
+        this.dirty = dirty;
+        for (BankAccount account : accounts) {
+            account.trackChanges(dirty);
+        }
+    }
+}
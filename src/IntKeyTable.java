@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * The keys of a hash table keyed on account numbers, shared by {@code AccountIndex} and
+ * {@code SlotIndex}.
+ * <p>
+ * A valid account number is always exactly 8 digits, so it fits in an {@code int}
+ * and can be used directly as the key, without hashing any {@code String}s. The table
+ * uses open addressing with linear probing; a subclass keeps its values in an array
+ * parallel to the keys, and this class tells it when to move or drop one.
+ */
+abstract class IntKeyTable {
+    /**
+     * The key stored in unused slots. Account numbers are never negative.
+     */
+    private static final int EMPTY = -1;
+
+    /**
+     * The keys (account numbers as {@code int}s), or {@code EMPTY} for unused slots.
+     */
+    private int[] keys;
+
+    /**
+     * The number of keys in the table.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty table with room for about {@code expected} keys before it
+     * needs to grow. The subclass must allocate its values for {@code capacity()} slots.
+     * @param expected The expected number of keys
+     */
+    IntKeyTable(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Returns the slot that holds the specified key.
+     * @param key The key (see {@code AccountIndex.toKey})
+     * @return The slot, or -1 if the key isn't in the table
+     */
+    final int find(int key) {
+        if (key < 0) {
+            return -1;
+        }
+
+        int[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the specified key, unless it's already in the table, growing the table first
+     * if it's half full.
+     * @param key The key (see {@code AccountIndex.toKey})
+     * @return The slot where the key was added, for the subclass to store its value in,
+     *         or -1 if the key was already in the table
+     * @throws IllegalArgumentException If the key is negative, which {@code toKey}
+     *         returns for invalid account numbers
+     */
+    final int insert(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid key " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    /**
+     * Removes the key in the specified slot. The entries after it are shifted back so
+     * that no probe sequence is broken.
+     * @param i The slot, as returned by {@code find}
+     */
+    final void delete(int i) {
+        int mask = keys.length - 1;
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            // move the entry into the gap unless its home slot lies cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                moveValue(j, gap);
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        clearValue(gap);
+        size--;
+    }
+
+    /**
+     * Makes room for about {@code expected} keys in total, so that adding that many
+     * doesn't make the table grow step by step.
+     * @param expected The expected number of keys
+     */
+    final void ensureCapacity(int expected) {
+        int capacity = keys.length;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        if (capacity != keys.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     * @return The number of keys
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots in the table.
+     * @return The number of slots, a power of two
+     */
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Moves the value in one slot to another, whose value is no longer needed.
+     * @param from The slot the value is in
+     * @param to The slot to move it to
+     */
+    abstract void moveValue(int from, int to);
+
+    /**
+     * Drops the value in a slot that no longer holds a key.
+     * @param i The slot
+     */
+    abstract void clearValue(int i);
+
+    /**
+     * Replaces the values with ones for a table of the specified capacity.
+     * @param capacity The new number of slots
+     * @param sources For each new slot, the old slot whose value goes there, or -1
+     */
+    abstract void resizeValues(int capacity, int[] sources);
+
+    /**
+     * Returns the home slot of {@code key} in a table whose length is {@code mask + 1}.
+     * @param key The key
+     * @param mask The table length minus one
+     * @return The index of the slot where probing for {@code key} starts
+     */
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Moves every key into a new table of the specified capacity, and has the subclass
+     * move the values to match.
+     * @param capacity The new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        int[] sources = new int[capacity];
+        Arrays.fill(sources, -1);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                sources[i] = j;
+            }
+        }
+        resizeValues(capacity, sources);
+    }
+}
@@ -0,0 +1,620 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the changes made to a bank, so that they survive a crash.
+ * <p>
+ * Each record holds the state an account was left in, not the change made to it: a
+ * deposit, for example, is recorded as the account's new balance. Replaying a record
+ * twice therefore does no harm, and the last record for an account always wins. A
+ * record is framed by its length and followed by a CRC-32 checksum, so a record that
+ * was only partly written when the program stopped is recognized and dropped.
+ * <p>
+ * Records are added to an in-memory buffer by {@code append} methods, which are meant
+ * to be called while the bank still holds the lock on the account, so the records for
+ * an account are in the order the changes were made. Callers then wait for their record
+ * to be on disk with {@code await}, outside the lock. Waiting callers share disk syncs
+ * (group commit): the first one to find no sync in progress becomes the leader, writes
+ * everything appended so far and forces it to disk, while the others wait; one sync
+ * then covers every record appended before it started.
+ * <p>
+ * A journal is kept in one or more segment files. The first is the journal file
+ * itself; {@code rotate} starts a new one named after it with a sequence number
+ * appended (".1", ".2" and so on). Once everything in the older segments has been
+ * saved some other way, such as in a checkpoint, they can be deleted with
+ * {@code deleteBefore}. A journal is opened with {@code open}, which replays every
+ * segment in order.
+ */
+final class Journal implements Closeable {
+    /**
+     * A record holding an account's new balance: key, cents.
+     */
+    private static final byte BALANCE = 1;
+
+    /**
+     * A record holding the new balances of the two accounts in a transfer: key, cents,
+     * key, cents.
+     */
+    private static final byte TRANSFER = 2;
+
+    /**
+     * A record holding a new account: key, type, cents, extra, epoch day, the lengths
+     * of the parts of the name, and the parts themselves in UTF-8 (see
+     * {@code BankSnapshot} for the meaning of the fields).
+     */
+    private static final byte ADD = 3;
+
+    /**
+     * A record holding the key of a closed account.
+     */
+    private static final byte CLOSE = 4;
+
+    /**
+     * The number of bytes a record takes besides its payload: the length, the type and
+     * the checksum.
+     */
+    private static final int FRAME = 9;
+
+    /**
+     * The largest payload a valid record can have.
+     */
+    private static final int MAX_PAYLOAD = 1 << 24;
+
+    /**
+     * The initial size of the append buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The journal file, which is also the first segment.
+     */
+    private final File base;
+
+    /**
+     * The segment being appended to. Only changed while a sync is in progress.
+     */
+    private FileChannel channel;
+
+    /**
+     * The number of the segment being appended to.
+     */
+    private int segment;
+
+    /**
+     * The number of the oldest segment that may still exist.
+     */
+    private int firstSegment;
+
+    /**
+     * The number of records replayed when the journal was opened.
+     */
+    private final long replayed;
+
+    /**
+     * The buffer records are appended to.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The other buffer, which appends switch to while a sync writes {@code pending};
+     * {@code null} while a sync is in progress.
+     */
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The index in {@code pending} of the record being appended.
+     */
+    private int recordStart;
+
+    /**
+     * Computes the records' checksums.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * The position after the last record appended. Positions count the bytes in all the
+     * segments, so they keep growing when a new segment is started.
+     */
+    private long appended;
+
+    /**
+     * The position up to which everything is known to be on disk.
+     */
+    private long durable;
+
+    /**
+     * Whether a sync is in progress.
+     */
+    private boolean syncing;
+
+    /**
+     * Whether the journal has been closed. Once it has, appends record nothing.
+     */
+    private boolean closed;
+
+    /**
+     * The error that made a sync fail, if any. Once a sync has failed the journal can't
+     * be trusted, so every later wait fails too.
+     */
+    private IOException failure;
+
+    /**
+     * Opens a journal for appending to its last segment. Anything in the segment after
+     * {@code end} (such as a record that was only partly written) is discarded.
+     * @param base The journal file
+     * @param first The number of the oldest segment
+     * @param last The number of the last segment
+     * @param end The position after the last valid record in the last segment
+     * @param replayed The number of records replayed from the segments
+     * @throws IOException If the last segment can't be opened
+     */
+    private Journal(File base, int first, int last, long end, long replayed) throws IOException {
+        this.base = base;
+        this.firstSegment = first;
+        this.segment = last;
+        this.replayed = replayed;
+        channel = FileChannel.open(segment(base, last).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.truncate(end);
+        channel.position(end);
+        appended = end;
+        durable = end;
+    }
+
+    /**
+     * Opens a journal, first replaying the records in all its segments on a bank. Only
+     * the last segment may end with a record that was only partly written; that record
+     * is discarded, and new records are appended after the last valid one.
+     * @param base The journal file; if neither it nor any other segment exists, the
+     *        journal starts out empty
+     * @param bank The bank, or {@code null} to only check the records
+     * @return The journal
+     * @throws IOException If a segment can't be read or opened, or a segment other than
+     *         the last is damaged
+     */
+    static Journal open(File base, Bank bank) throws IOException {
+        int[] segments = segments(base);
+        long records = 0, end = 0;
+        for (int i = 0; i < segments.length; i++) {
+            File file = segment(base, segments[i]);
+            long[] replayed = replayFile(file, bank);
+            records += replayed[0];
+            end = replayed[1];
+            if (i < segments.length - 1 && end != file.length()) {
+                throw new IOException("Corrupt journal: " + file);
+            }
+        }
+        int first = segments.length == 0 ? 0 : segments[0];
+        int last = segments.length == 0 ? 0 : segments[segments.length - 1];
+        return new Journal(base, first, last, end, records);
+    }
+
+    /**
+     * Returns the number of records replayed when this journal was opened.
+     * @return The number of records
+     */
+    long replayed() {
+        return replayed;
+    }
+
+    /**
+     * Returns the file holding a segment of a journal.
+     * @param base The journal file
+     * @param number The number of the segment
+     * @return The journal file itself for segment 0, or the journal file's name with
+     *         the number appended
+     */
+    static File segment(File base, int number) {
+        return number == 0 ? base : new File(base.getPath() + "." + number);
+    }
+
+    /**
+     * Returns the numbers of the segments of a journal that exist.
+     * @param base The journal file
+     * @return The numbers, in increasing order
+     */
+    private static int[] segments(File base) {
+        File directory = base.getAbsoluteFile().getParentFile();
+        String[] names = directory == null ? null : directory.list();
+        if (names == null) {
+            return new int[0];
+        }
+        String prefix = base.getName() + ".";
+        int[] numbers = new int[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.equals(base.getName())) {
+                numbers[count++] = 0;
+            } else if (name.startsWith(prefix) && name.length() - prefix.length() <= 9
+                    && name.charAt(prefix.length()) != '0' && name.substring(prefix.length()).chars()
+                            .allMatch(c -> c >= '0' && c <= '9')) {
+                numbers[count++] = Integer.parseInt(name.substring(prefix.length()));
+            }
+        }
+        numbers = Arrays.copyOf(numbers, count);
+        Arrays.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Appends a record of an account's new balance.
+     * @param key The account number, as an index key
+     * @param cents The new balance, in cents
+     * @return The position to wait for with {@code await}, or -1 if the journal has
+     *         been closed and nothing was recorded
+     */
+    synchronized long appendBalance(int key, long cents) {
+        if (closed) {
+            return -1;
+        }
+        ByteBuffer buffer = begin(BALANCE, 12);
+        buffer.putInt(key).putLong(cents);
+        return end(buffer);
+    }
+
+    /**
+     * Appends a record of the new balances of both accounts in a transfer. The two are
+     * replayed together or not at all.
+     * @param fromKey The source account's number, as an index key
+     * @param fromCents The source account's new balance, in cents
+     * @param toKey The target account's number, as an index key
+     * @param toCents The target account's new balance, in cents
+     * @return The position to wait for with {@code await}, or -1 if the journal has
+     *         been closed and nothing was recorded
+     */
+    synchronized long appendTransfer(int fromKey, long fromCents, int toKey, long toCents) {
+        if (closed) {
+            return -1;
+        }
+        ByteBuffer buffer = begin(TRANSFER, 24);
+        buffer.putInt(fromKey).putLong(fromCents).putInt(toKey).putLong(toCents);
+        return end(buffer);
+    }
+
+    /**
+     * Appends a record of a new account.
+     * @param account The account
+     * @return The position to wait for with {@code await}, or -1 if the journal has
+     *         been closed and nothing was recorded
+     */
+    long appendAdd(BankAccount account) {
+        Name name = account.getName();
+        byte[] first = name.getFirst().getBytes(StandardCharsets.UTF_8);
+        byte[] middle = name.getMiddle().getBytes(StandardCharsets.UTF_8);
+        byte[] last = name.getLast().getBytes(StandardCharsets.UTF_8);
+        synchronized (this) {
+            if (closed) {
+                return -1;
+            }
+            ByteBuffer buffer = begin(ADD, 44 + first.length + middle.length + last.length);
+            buffer.putInt(AccountIndex.toKey(account.getAccountNumber()))
+                    .putInt(account.snapshotType())
+                    .putLong(account.getBalanceCents())
+                    .putLong(account.snapshotExtra())
+                    .putLong(account.getDateOpened().toEpochDay())
+                    .putInt(first.length).putInt(middle.length).putInt(last.length)
+                    .put(first).put(middle).put(last);
+            return end(buffer);
+        }
+    }
+
+    /**
+     * Appends a record of a closed account.
+     * @param key The account number, as an index key
+     * @return The position to wait for with {@code await}, or -1 if the journal has
+     *         been closed and nothing was recorded
+     */
+    synchronized long appendClose(int key) {
+        if (closed) {
+            return -1;
+        }
+        ByteBuffer buffer = begin(CLOSE, 4);
+        buffer.putInt(key);
+        return end(buffer);
+    }
+
+    /**
+     * Starts a record, making sure the buffer has room for it.
+     * @param type The type of record
+     * @param payload The size of the payload, in bytes
+     * @return The buffer, positioned where the payload goes
+     */
+    private ByteBuffer begin(byte type, int payload) {
+        if (pending.remaining() < payload + FRAME) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + payload + FRAME));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        recordStart = pending.position();
+        return pending.putInt(payload).put(type);
+    }
+
+    /**
+     * Finishes a record by adding its checksum.
+     * @param buffer The buffer holding the record
+     * @return The position in the file after the record
+     */
+    private long end(ByteBuffer buffer) {
+        int length = buffer.position() - recordStart - 5;
+        crc.reset();
+        crc.update(buffer.array(), recordStart + 4, length + 1);
+        buffer.putInt((int) crc.getValue());
+        appended += length + FRAME;
+        return appended;
+    }
+
+    /**
+     * Waits until everything up to the specified position is on disk. If no sync is in
+     * progress, this thread writes and syncs everything appended so far itself;
+     * otherwise it waits for the sync in progress and, if that doesn't cover the
+     * position, tries again.
+     * @param position A position returned by an {@code append} method
+     * @throws IOException If the journal can't be written, now or earlier
+     */
+    void await(long position) throws IOException {
+        ByteBuffer batch;
+        long target;
+        FileChannel out;
+        synchronized (this) {
+            if (!waitTurn(position)) {
+                return;
+            }
+            syncing = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            target = appended;
+            out = channel;
+        }
+        sync(batch, target, out, false);
+    }
+
+    /**
+     * Starts a new segment. Everything appended so far is written and synced to the
+     * current segment, which is then closed, while new records go to the new segment.
+     * Appends aren't held up while the old segment is synced.
+     * @return The number of the new segment; every record appended before this method
+     *         was called is in an older segment
+     * @throws IOException If the new segment can't be created, or the current one can't
+     *         be written, now or earlier, or the journal has been closed
+     */
+    int rotate() throws IOException {
+        ByteBuffer batch;
+        long target;
+        FileChannel previous;
+        int next;
+        synchronized (this) {
+            waitTurn(Long.MAX_VALUE);
+            if (closed) {
+                throw new IOException("The journal is closed");
+            }
+            next = segment + 1;
+            FileChannel created = FileChannel.open(segment(base, next).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            syncing = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            target = appended;
+            previous = channel;
+            channel = created;
+            segment = next;
+        }
+        sync(batch, target, previous, true);
+        return next;
+    }
+
+    /**
+     * Deletes the segments older than the specified one.
+     * @param number The number of the oldest segment to keep, as returned by
+     *        {@code rotate}
+     * @throws IOException If a segment can't be deleted
+     */
+    void deleteBefore(int number) throws IOException {
+        int first;
+        synchronized (this) {
+            first = firstSegment;
+            firstSegment = Math.max(first, number);
+        }
+        for (int i = first; i < number; i++) {
+            Files.deleteIfExists(segment(base, i).toPath());
+        }
+    }
+
+    /**
+     * Waits until either everything up to the specified position is on disk, or no sync
+     * is in progress, so that the calling thread can start one. Must be called while
+     * holding this journal's lock.
+     * @param position The position to wait for
+     * @return {@code false} if the position is on disk, {@code true} if the calling
+     *         thread should start a sync
+     * @throws IOException If a sync has failed, or the thread is interrupted
+     */
+    private boolean waitTurn(long position) throws IOException {
+        while (true) {
+            if (failure != null) {
+                throw new IOException("Journal write failed", failure);
+            }
+            if (durable >= position) {
+                return false;
+            }
+            if (!syncing) {
+                return true;
+            }
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the journal");
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of records to a segment and forces it to disk, then ends the sync
+     * started by the caller and wakes up the threads waiting for it.
+     * @param batch The records
+     * @param target The position after the last record in the batch
+     * @param out The segment to write to
+     * @param close Whether to close the segment afterwards
+     * @throws IOException If the segment can't be written
+     */
+    private void sync(ByteBuffer batch, long target, FileChannel out, boolean close) throws IOException {
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                out.write(batch);
+            }
+            out.force(false);
+            if (close) {
+                out.close();
+            }
+        } catch (IOException ex) {
+            error = ex;
+        }
+
+        synchronized (this) {
+            batch.clear();
+            spare = batch;
+            syncing = false;
+            if (error == null) {
+                durable = target;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Writes and syncs everything appended so far, and closes the journal. Appends made
+     * after this method is called record nothing, so every position ever returned is on
+     * disk once it returns, and a thread still waiting for one finds it there without
+     * touching the closed segment. A sync already in progress is waited for.
+     * @throws IOException If the journal can't be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long end;
+            synchronized (this) {
+                closed = true;
+                end = appended;
+            }
+            await(end);
+        } finally {
+            FileChannel out;
+            synchronized (this) {
+                out = channel;
+            }
+            out.close();
+        }
+    }
+
+    /**
+     * Replays the records in one journal file on a bank, stopping at the end of the file
+     * or at the first record that's incomplete or damaged.
+     * @param file The journal file; if it doesn't exist there is nothing to replay
+     * @param bank The bank, or {@code null} to only check the records
+     * @return The number of records replayed, and the position after the last one
+     * @throws IOException If the file can't be read, or a record can't be applied
+     */
+    static long[] replayFile(File file, Bank bank) throws IOException {
+        if (!file.exists()) {
+            return new long[] {0, 0};
+        }
+        long records = 0, position = 0;
+        CRC32 check = new CRC32();
+        byte[] record = new byte[64];
+        char[] number = new char[8];
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                DataInputStream data = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(in), BUFFER_SIZE))) {
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                    if (length < 0 || length > MAX_PAYLOAD) {
+                        break;
+                    }
+                    if (record.length < length + 1) {
+                        record = new byte[length + 1];
+                    }
+                    data.readFully(record, 0, length + 1);
+                    check.reset();
+                    check.update(record, 0, length + 1);
+                    if (data.readInt() != (int) check.getValue()) {
+                        break;
+                    }
+                } catch (EOFException ex) {
+                    break;
+                }
+                try {
+                    if (bank != null) {
+                        apply(ByteBuffer.wrap(record, 0, length + 1), bank, number, file);
+                    }
+                } catch (RuntimeException ex) {
+                    throw new IOException("Corrupt journal: " + file, ex);
+                }
+                records++;
+                position += length + FRAME;
+            }
+        }
+        return new long[] {records, position};
+    }
+
+    /**
+     * Applies one record to a bank.
+     * @param record The record's type followed by its payload
+     * @param bank The bank
+     * @param number Scratch space for an account number's digits
+     * @param file The journal file, for error messages
+     * @throws IOException If the record is of an unknown type or describes an invalid account
+     */
+    private static void apply(ByteBuffer record, Bank bank, char[] number, File file) throws IOException {
+        byte type = record.get();
+        switch (type) {
+            case BALANCE:
+                bank.replayBalance(record.getInt(), record.getLong());
+                break;
+            case TRANSFER:
+                bank.replayBalance(record.getInt(), record.getLong());
+                bank.replayBalance(record.getInt(), record.getLong());
+                break;
+            case ADD:
+                int key = record.getInt(), accountType = record.getInt();
+                long cents = record.getLong(), extra = record.getLong(), epochDay = record.getLong();
+                int firstLength = record.getInt(), middleLength = record.getInt(), lastLength = record.getInt();
+                byte[] bytes = record.array();
+                int at = record.position();
+                Name name = new Name(new String(bytes, at, firstLength, StandardCharsets.UTF_8),
+                        new String(bytes, at + firstLength, middleLength, StandardCharsets.UTF_8),
+                        new String(bytes, at + firstLength + middleLength, lastLength, StandardCharsets.UTF_8));
+                bank.replayAdd(BankSnapshot.account(key, accountType, cents, extra, epochDay, name, number, file));
+                break;
+            case CLOSE:
+                bank.replayClose(record.getInt());
+                break;
+            default:
+                throw new IOException("Corrupt journal, unknown record type " + type + ": " + file);
+        }
+    }
+}
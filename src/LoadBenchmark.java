@@ -0,0 +1,105 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Measures how fast a bank is loaded from an accounts file. A file with the requested
+ * number of random accounts is generated first (or an existing file is used), then it
+ * is loaded several times, and the number of lines loaded per second is printed.
+ * <p>
+ * Usage: {@code java LoadBenchmark [lines | file] [runs] [parallel | snapshot]}. In
+ * snapshot mode the file is loaded once, saved as a binary snapshot, and the snapshot
+ * is what's timed (see {@code Bank.loadSnapshot}). Give the JVM enough heap
+ * (for example {@code -Xms3g}) that garbage collection doesn't dominate the timings.
+ */
+public class LoadBenchmark {
+    /**
+     * Some first names for the generated account holders.
+     */
+    private static final String[] FIRST = {"John", "Jane", "Dane", "Maria", "Wei", "Olga", "Ahmed", "Lucia"};
+
+    /**
+     * Some last names for the generated account holders.
+     */
+    private static final String[] LAST = {"Smith", "Doe", "Garcia", "Chen", "Ivanova", "Khan", "Rossi", "Adams"};
+
+    /**
+     * Runs the benchmark.
+     * @param args The number of lines to generate or the name of an existing file, the
+     *             number of times to load it, and optionally "parallel" to load it with
+     *             {@code Bank(File, boolean)} in parallel mode or "snapshot" to load a
+     *             snapshot of it instead
+     * @throws IOException If the file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        String what = args.length > 0 ? args[0] : "1000000";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean parallel = args.length > 2 && args[2].equals("parallel");
+        boolean snapshot = args.length > 2 && args[2].equals("snapshot");
+
+        File file;
+        long lines;
+        if (what.chars().allMatch(Character::isDigit)) {
+            lines = Long.parseLong(what);
+            file = File.createTempFile("accounts", ".csv");
+            file.deleteOnExit();
+            new File(file.getPath() + ".rejects").deleteOnExit();
+            generate(file, lines);
+        } else {
+            file = new File(what);
+            lines = Files.lines(file.toPath()).count();
+        }
+
+        File snapshotFile = null;
+        if (snapshot) {
+            snapshotFile = File.createTempFile("accounts", ".snapshot");
+            snapshotFile.deleteOnExit();
+            new Bank(file, true).saveSnapshot(snapshotFile);
+        }
+
+        for (int run = 1; run <= runs; run++) {
+            long start = System.nanoTime();
+            if (snapshot) {
+                Bank.loadSnapshot(snapshotFile);
+            } else {
+                new Bank(file, parallel);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("run %d: %,d lines in %.3f s, %,.0f lines/s%n",
+                    run, lines, seconds, lines / seconds);
+        }
+    }
+
+    /**
+     * Writes an accounts file with the specified number of random accounts.
+     * @param file The file to write
+     * @param lines The number of accounts
+     * @throws IOException If the file can't be written
+     */
+    static void generate(File file, long lines) throws IOException {
+        Random random = new Random(1);
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (long i = 0; i < lines; i++) {
+                String name = FIRST[random.nextInt(FIRST.length)]
+                        + (random.nextBoolean() ? " " + FIRST[random.nextInt(FIRST.length)] : "")
+                        + " " + LAST[random.nextInt(LAST.length)];
+                String common = (10_000_000 + i) + "," + random.nextInt(1_000_000) / 100.0 + ","
+                        + (2000 + random.nextInt(25)) + "-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10)
+                        + "," + name;
+                switch (random.nextInt(3)) {
+                    case 0:
+                        out.println("BankAccount," + common);
+                        break;
+                    case 1:
+                        out.println("CDAccount," + common + "," + (1 + random.nextInt(60)));
+                        break;
+                    default:
+                        out.println("CheckingAccount," + common + "," + random.nextInt(100_000) / 100.0);
+                        break;
+                }
+            }
+        }
+    }
+}
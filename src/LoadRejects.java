@@ -0,0 +1,242 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The lines of an accounts file that were rejected while loading it. Each reject is
+ * recorded as three numbers: the line number, a reason code (one of the constants in
+ * this class), and the position of the start of the line in the file. The records are
+ * kept in growing primitive arrays, so a file with many bad lines costs neither an
+ * exception nor a message per line.
+ */
+public final class LoadRejects {
+    /**
+     * The first item on the line isn't one of the three account types.
+     */
+    public static final byte BAD_TYPE = 0;
+
+    /**
+     * The line has too few items.
+     */
+    public static final byte MISSING_FIELDS = 1;
+
+    /**
+     * The account number is already used by an earlier line or an existing account.
+     */
+    public static final byte DUPLICATE = 2;
+
+    /**
+     * The name does not consist of either two or three parts.
+     */
+    public static final byte BAD_NAME = 3;
+
+    /**
+     * The date is malformed or invalid.
+     */
+    public static final byte BAD_DATE = 4;
+
+    /**
+     * The balance is malformed.
+     */
+    public static final byte BAD_BALANCE = 5;
+
+    /**
+     * The term of a CD account is malformed.
+     */
+    public static final byte BAD_TERM = 6;
+
+    /**
+     * The overdraft limit of a checking account is malformed.
+     */
+    public static final byte BAD_OVERDRAFT = 7;
+
+    /**
+     * The account number isn't exactly 8 digits.
+     */
+    public static final byte BAD_ACCOUNT_NUMBER = 8;
+
+    /**
+     * The names of the reason codes, as written to a rejects file, indexed by code.
+     */
+    private static final String[] NAMES = {"BAD_TYPE", "MISSING_FIELDS", "DUPLICATE", "BAD_NAME",
+            "BAD_DATE", "BAD_BALANCE", "BAD_TERM", "BAD_OVERDRAFT", "BAD_ACCOUNT_NUMBER"};
+
+    /**
+     * Descriptions of the reason codes, as printed in a summary, indexed by code.
+     */
+    private static final String[] DESCRIPTIONS = {"incorrect account type", "missing fields",
+            "duplicate account number", "invalid name", "invalid date", "invalid balance",
+            "invalid term", "invalid overdraft limit", "invalid account number"};
+
+    /**
+     * The line numbers of the rejected lines.
+     */
+    private long[] lineNumbers = new long[16];
+
+    /**
+     * The positions in the file of the rejected lines.
+     */
+    private long[] offsets = new long[16];
+
+    /**
+     * The reason codes of the rejected lines.
+     */
+    private byte[] reasons = new byte[16];
+
+    /**
+     * The number of rejected lines.
+     */
+    private int size;
+
+    /**
+     * The number of rejected lines for each reason code.
+     */
+    private final int[] counts = new int[NAMES.length];
+
+    /**
+     * Records a rejected line.
+     * @param lineNumber The line number, starting at 1
+     * @param reason The reason code
+     * @param offset The position of the first byte of the line in the file
+     */
+    void add(long lineNumber, byte reason, long offset) {
+        if (size == reasons.length) {
+            int capacity = size * 2;
+            lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+        }
+        lineNumbers[size] = lineNumber;
+        offsets[size] = offset;
+        reasons[size] = reason;
+        size++;
+        counts[reason]++;
+    }
+
+    /**
+     * Returns the number of rejected lines.
+     * @return The number of rejected lines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the line number of a rejected line.
+     * @param i The index of the reject, in the order the rejects were recorded
+     * @return The line number, starting at 1
+     */
+    public long lineNumber(int i) {
+        return lineNumbers[i];
+    }
+
+    /**
+     * Returns the reason code of a rejected line.
+     * @param i The index of the reject, in the order the rejects were recorded
+     * @return The reason code
+     */
+    public byte reason(int i) {
+        return reasons[i];
+    }
+
+    /**
+     * Returns the position of a rejected line in the file.
+     * @param i The index of the reject, in the order the rejects were recorded
+     * @return The position of the first byte of the line
+     */
+    public long offset(int i) {
+        return offsets[i];
+    }
+
+    /**
+     * Returns the number of lines rejected for the specified reason.
+     * @param reason The reason code
+     * @return The number of lines
+     */
+    public int count(byte reason) {
+        return counts[reason];
+    }
+
+    /**
+     * Returns the name of the specified reason code, for example "BAD_NAME".
+     * @param reason The reason code
+     * @return The name
+     */
+    public static String toString(byte reason) {
+        return NAMES[reason];
+    }
+
+    /**
+     * Writes the rejects to the specified file, one per line in the form
+     * {@code lineNumber,offset,REASON}, after a header line. The lines are formatted
+     * into a buffer and written to the file a buffer at a time.
+     * @param file The file to write
+     * @throws IOException If the file can't be written
+     */
+    public void writeTo(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            put(buffer, "line,offset,reason\n");
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < 64) {
+                    drain(channel, buffer);
+                }
+                put(buffer, Long.toString(lineNumbers[i]));
+                buffer.put((byte) ',');
+                put(buffer, Long.toString(offsets[i]));
+                buffer.put((byte) ',');
+                put(buffer, NAMES[reasons[i]]);
+                buffer.put((byte) '\n');
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Returns a summary of the rejects: the total, followed by the number of lines
+     * rejected for each reason that occurred, one reason per line.
+     * @param rejectsFile The file the rejects were written to, named in the summary
+     * @return The summary
+     */
+    public String summary(File rejectsFile) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("Rejected ").append(size).append(size == 1 ? " line" : " lines")
+                .append("; see ").append(rejectsFile);
+        for (int reason = 0; reason < counts.length; reason++) {
+            if (counts[reason] > 0) {
+                summary.append(System.lineSeparator()).append("  ").append(counts[reason])
+                        .append(' ').append(DESCRIPTIONS[reason]);
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Appends the specified ASCII text to the buffer.
+     * @param buffer The buffer
+     * @param text The text
+     */
+    private static void put(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel and clears the buffer.
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException If the channel can't be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,4 +1,5 @@
 import java.io.File;
+import java.io.IOException;
 import java.time.Period;
 import java.util.InputMismatchException;
 import java.util.Scanner;
@@ -21,6 +22,12 @@ public class Main {
      * <p>
      * At the end, the user is prompted for an output file name, and the bank is printed to
      * the output file in CSV (comma-separated values) format.
+     * <p>
+     * While the program runs, every change to the bank is recorded in a journal file named
+     * after the input file with ".journal" appended. If the program stops without getting
+     * to the end, the next run on the same input file replays the journal, so no change is
+     * lost. After a normal quit the journal is deleted, since the output file then holds
+     * the bank.
      * @param args The command line arguments
      */
     public static void main(String[] args) {
@@ -46,6 +53,16 @@ public class Main {
 
         Bank bank = new Bank(file);
 
+        File journalFile = new File(inputFileName + ".journal");
+        try {
+            long recovered = bank.openJournal(journalFile);
+            if (recovered > 0) {
+                System.out.println("Recovered " + recovered + " changes from " + journalFile);
+            }
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+
         char choice;
         do {
             choice = printMenuAndGetChoice(keyboard);
@@ -76,6 +93,12 @@ public class Main {
         System.out.print("Output file name: ");
         String filename = keyboard.next();
         bank.printToFile(filename);
+        try {
+            bank.closeJournal();
+            journalFile.delete();
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
     }
 
     /**
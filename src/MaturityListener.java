@@ -0,0 +1,17 @@
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Gets told when CD accounts in a bank mature (see {@code Bank.addMaturityListener}),
+ * for example to notify the account holders, or to move the money into a new CD.
+ */
+public interface MaturityListener {
+    /**
+     * Called once for each batch of CD accounts that have matured, when the bank
+     * processes maturities (see {@code Bank.processMaturities}). Withdrawals from the
+     * accounts are already allowed.
+     * @param accounts The accounts that have matured, in order of maturity date
+     * @param date The date the maturities were processed on
+     */
+    void matured(List<CDAccount> accounts, LocalDate date);
+}
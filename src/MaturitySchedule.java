@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * The CD accounts of a bank that haven't matured yet, in order of maturity date, so
+ * that the accounts maturing on a given day can be found without looking at any other
+ * account (see {@code Bank.processMaturities}).
+ * <p>
+ * Each entry packs a maturity date (an epoch day) and an account number (as an index
+ * key) into one {@code long}, with the date in the high bits, and the entries are kept
+ * in a binary min-heap in a {@code long[]}. The schedule isn't thread-safe by itself;
+ * the bank only uses it while holding its write lock.
+ */
+class MaturitySchedule {
+    /**
+     * The entries, as a binary min-heap: {@code heap[i]} is never greater than
+     * {@code heap[2 * i + 1]} or {@code heap[2 * i + 2]}.
+     */
+    private long[] heap = new long[16];
+
+    /**
+     * The number of entries.
+     */
+    private int size;
+
+    /**
+     * Adds an account to the schedule.
+     * @param maturityDay The date on which the account matures, as an epoch day
+     * @param key The account number, as an index key
+     */
+    void add(long maturityDay, int key) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        long entry = maturityDay << 32 | key;
+        int i = size++;
+        while (i > 0 && heap[(i - 1) >>> 1] > entry) {
+            heap[i] = heap[(i - 1) >>> 1];
+            i = (i - 1) >>> 1;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Removes the accounts that mature on or before the specified date from the
+     * schedule.
+     * @param day The date, as an epoch day
+     * @return The entries removed, in order of maturity date; use {@code day} and
+     *         {@code key} to unpack them
+     */
+    long[] takeDue(long day) {
+        long[] due = new long[0];
+        int count = 0;
+        while (size > 0 && day(heap[0]) <= day) {
+            if (count == due.length) {
+                due = Arrays.copyOf(due, Math.max(16, count * 2));
+            }
+            due[count++] = heap[0];
+            removeFirst();
+        }
+        return Arrays.copyOf(due, count);
+    }
+
+    /**
+     * Returns the number of accounts in the schedule.
+     * @return The number of accounts
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the maturity date packed in an entry.
+     * @param entry The entry
+     * @return The maturity date, as an epoch day
+     */
+    static long day(long entry) {
+        return entry >> 32;
+    }
+
+    /**
+     * Returns the account number packed in an entry.
+     * @param entry The entry
+     * @return The account number, as an index key
+     */
+    static int key(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Removes the first entry, moving the last entry down from the top to its place.
+     */
+    private void removeFirst() {
+        long last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+    }
+}
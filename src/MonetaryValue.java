@@ -1,15 +1,73 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 /**
  * A class for representing US monetary values, positive or negative.
+ * <p>
+ * The amount is held as a {@code long} number of cents, so values up to about
+ * $92 quadrillion can be represented exactly. Arithmetic throws an
+ * {@code ArithmeticException} rather than silently overflowing. Monetary values are
+ * immutable, and the {@code valueOf} method hands out shared instances for common
+ * small amounts instead of allocating new ones.
  */
 public class MonetaryValue implements Comparable<MonetaryValue> {
     /**
      * The number of pennies that this monetary value is made up of.
      */
-    private int cents;
+    private final long cents;
+
+    /**
+     * The smallest number of cents that has a shared instance in {@code CACHE}.
+     */
+    private static final int CACHE_LOW = -1_000;
+
+    /**
+     * The largest number of cents that has a shared instance in {@code CACHE}.
+     */
+    private static final int CACHE_HIGH = 10_000;
+
+    /**
+     * Shared instances for every amount from {@code CACHE_LOW} to {@code CACHE_HIGH}
+     * cents ($-10.00 to $100.00); {@code CACHE[i]} is made up of {@code i + CACHE_LOW} cents.
+     */
+    private static final MonetaryValue[] CACHE = new MonetaryValue[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new MonetaryValue((long) i + CACHE_LOW);
+        }
+    }
+
+    /**
+     * The amounts, in cents, below which decimal amounts are written without an
+     * exponent, as {@code Double.toString} writes amounts below 10 to the power 7 dollars.
+     */
+    private static final long PLAIN_LIMIT = 1_000_000_000L;
+
+    /**
+     * The amounts, in cents, from which decimal amounts are written by
+     * {@code Double.toString}, since above this a {@code double} can no longer hold every
+     * amount exactly.
+     */
+    private static final long EXACT_LIMIT = 1_000_000_000_000_000L;
+
+    /**
+     * The powers of ten that fit in a {@code long}; {@code POWERS_OF_TEN[i]} is 10 to the
+     * power {@code i}.
+     */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
     /**
      * A constant representing $0.00.
      */
-    public static final MonetaryValue ZERO = new MonetaryValue(0);
+    public static final MonetaryValue ZERO = CACHE[-CACHE_LOW];
 
     /**
      * Constructs a default monetary value, which equals $0.00.
@@ -22,16 +80,44 @@ public class MonetaryValue implements Comparable<MonetaryValue> {
      * Constructs a monetary value made up of the specified number of cents (pennies).
      * @param cents The number of cents (pennies) that this monetary value represents 
      */
-    public MonetaryValue(int cents) {
+    public MonetaryValue(long cents) {
         this.cents = cents;
     }
 
     /**
-     * Constructs a monetary value from the specified {@code double} value.
+     * Returns a monetary value made up of the specified number of cents (pennies).
+     * Common small amounts (from $-10.00 to $100.00) are shared instances, so this
+     * doesn't allocate for them.
+     * @param cents The number of cents (pennies) that the monetary value represents
+     * @return The monetary value
+     */
+    public static MonetaryValue valueOf(long cents) {
+        if (cents >= CACHE_LOW && cents <= CACHE_HIGH) {
+            return CACHE[(int) cents - CACHE_LOW];
+        }
+        return new MonetaryValue(cents);
+    }
+
+    /**
+     * Constructs a monetary value from the specified {@code double} value, rounded to
+     * the nearest cent. (Truncating instead would turn 0.29, which is slightly less
+     * than 29 cents as a {@code double}, into 28 cents.)
      * @param amount A {@code double}
      */
     public MonetaryValue(double amount) {
-        this.cents = (int) (amount * 100);
+        this.cents = Math.round(amount * 100);
+    }
+
+    /**
+     * Returns the monetary value represented by the specified decimal amount, such as
+     * "150.0" or "-59.70". The conversion is exact; see {@code CentsParser}.
+     * @param amount The amount
+     * @return The monetary value
+     * @throws NumberFormatException If the amount is malformed, has a fraction of a
+     *         cent, or is too large
+     */
+    public static MonetaryValue parse(CharSequence amount) throws NumberFormatException {
+        return valueOf(CentsParser.parseCents(amount));
     }
 
     /**
@@ -48,36 +134,227 @@ public class MonetaryValue implements Comparable<MonetaryValue> {
      * @return A string representation of this monetary value
      */
     public String toString() {
-        int absCents = Math.abs(cents);
-	    return "$"
-	            + (isNegative()? "-" : "")
-                + absCents / 100
-                + "."
-                + ((absCents % 100) < 10? "0" : "")
-                + absCents % 100;
+        return appendTo(new StringBuilder(24)).toString();
     }
 
-    // alternative version:
-    /*
-    public String toString() {
-        int dollarsPart = Math.abs(cents / 100), centsPart = Math.abs(cents % 100);
-        String result = "$";
+    /**
+     * Appends this monetary value to a string builder, as {@code toString} would
+     * return it; for example, "$-59.70". The digits are appended one by one, so no
+     * objects are created unless the builder has to grow.
+     * @param out The string builder
+     * @return {@code out}
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        return appendTo(out, cents);
+    }
 
-        if (isNegative()) {
-            result += "-";
+    /**
+     * Puts this monetary value in a byte buffer, in ASCII, as {@code toString} would
+     * return it; for example, "$-59.70".
+     * @param out The buffer
+     * @return {@code out}
+     * @throws BufferOverflowException If there isn't room in the buffer, in which case
+     *         nothing is put in it
+     */
+    public ByteBuffer writeTo(ByteBuffer out) throws BufferOverflowException {
+        int start = out.position();
+        try {
+            return writeTo(out, cents);
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            throw e;
         }
+    }
 
-        result += dollarsPart + ".";
+    /**
+     * Appends this monetary value to a string builder as a decimal amount in dollars,
+     * the way it's written to a .csv file: as {@code Double.toString(cents / 100.0)}
+     * would, for example 150.0, -25.5, 0.29 or 1.0E7. Such an amount can be read back
+     * with {@code parse}.
+     * @param out The string builder
+     * @return {@code out}
+     */
+    public StringBuilder appendDecimalTo(StringBuilder out) {
+        return appendDecimalTo(out, cents);
+    }
 
-        if (centsPart < 10) {
-            result += "0" + centsPart;
-        } else {
-            result += centsPart;
+    /**
+     * Puts this monetary value in a byte buffer, in ASCII, as a decimal amount in
+     * dollars, as {@code appendDecimalTo} would append it.
+     * @param out The buffer
+     * @return {@code out}
+     * @throws BufferOverflowException If there isn't room in the buffer, in which case
+     *         nothing is put in it
+     */
+    public ByteBuffer writeDecimalTo(ByteBuffer out) throws BufferOverflowException {
+        int start = out.position();
+        try {
+            return writeDecimalTo(out, cents);
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends an amount to a string builder, as {@code toString} would return it.
+     * @param out The string builder
+     * @param cents The amount, in cents
+     * @return {@code out}
+     */
+    static StringBuilder appendTo(StringBuilder out, long cents) {
+        out.append('$');
+        if (cents < 0) {
+            out.append('-');
+        }
+        long fraction = Math.abs(cents % 100);
+        return out.append(Math.abs(cents / 100)).append('.')
+                .append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+
+    /**
+     * Puts an amount in a byte buffer, as {@code toString} would return it. If there
+     * isn't room, part of the amount may have been put in the buffer.
+     * @param out The buffer
+     * @param cents The amount, in cents
+     * @return {@code out}
+     * @throws BufferOverflowException If there isn't room in the buffer
+     */
+    static ByteBuffer writeTo(ByteBuffer out, long cents) throws BufferOverflowException {
+        out.put((byte) '$');
+        if (cents < 0) {
+            out.put((byte) '-');
+        }
+        long fraction = Math.abs(cents % 100);
+        putDigits(out, Math.abs(cents / 100));
+        return out.put((byte) '.').put((byte) ('0' + fraction / 10)).put((byte) ('0' + fraction % 10));
+    }
+
+    /**
+     * Appends an amount to a string builder as a decimal amount in dollars, as
+     * {@code appendDecimalTo} would.
+     * @param out The string builder
+     * @param cents The amount, in cents
+     * @return {@code out}
+     */
+    static StringBuilder appendDecimalTo(StringBuilder out, long cents) {
+        if (cents <= -EXACT_LIMIT || cents >= EXACT_LIMIT) {
+            return out.append(cents / 100.0);
+        }
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        if (cents < PLAIN_LIMIT) {
+            long fraction = cents % 100;
+            out.append(cents / 100).append('.').append((char) ('0' + fraction / 10));
+            return fraction % 10 == 0 ? out : out.append((char) ('0' + fraction % 10));
+        }
+
+        // d.ddddE<n>, with trailing zeros dropped but at least one digit after the point
+        int count = digitCount(cents), last = lastDigit(cents, count);
+        out.append(digit(cents, count - 1)).append('.');
+        for (int i = count - 2; i >= last; i--) {
+            out.append(digit(cents, i));
+        }
+        return out.append('E').append(count - 3);
+    }
+
+    /**
+     * Puts an amount in a byte buffer as a decimal amount in dollars, as
+     * {@code appendDecimalTo} would append it. If there isn't room, part of the amount
+     * may have been put in the buffer.
+     * @param out The buffer
+     * @param cents The amount, in cents
+     * @return {@code out}
+     * @throws BufferOverflowException If there isn't room in the buffer
+     */
+    static ByteBuffer writeDecimalTo(ByteBuffer out, long cents) throws BufferOverflowException {
+        if (cents <= -EXACT_LIMIT || cents >= EXACT_LIMIT) {
+            String amount = Double.toString(cents / 100.0);
+            for (int i = 0; i < amount.length(); i++) {
+                out.put((byte) amount.charAt(i));
+            }
+            return out;
+        }
+        if (cents < 0) {
+            out.put((byte) '-');
+            cents = -cents;
+        }
+        if (cents < PLAIN_LIMIT) {
+            long fraction = cents % 100;
+            putDigits(out, cents / 100);
+            out.put((byte) '.').put((byte) ('0' + fraction / 10));
+            return fraction % 10 == 0 ? out : out.put((byte) ('0' + fraction % 10));
         }
 
-        return result;
+        int count = digitCount(cents), last = lastDigit(cents, count);
+        out.put((byte) digit(cents, count - 1)).put((byte) '.');
+        for (int i = count - 2; i >= last; i--) {
+            out.put((byte) digit(cents, i));
+        }
+        out.put((byte) 'E');
+        putDigits(out, count - 3);
+        return out;
+    }
+
+    /**
+     * Puts the decimal digits of a number in a byte buffer, most significant first.
+     * @param out The buffer
+     * @param value The number, which mustn't be negative
+     */
+    private static void putDigits(ByteBuffer out, long value) {
+        for (int i = digitCount(value) - 1; i >= 0; i--) {
+            out.put((byte) digit(value, i));
+        }
+    }
+
+    /**
+     * Returns the number of decimal digits in a number.
+     * @param value The number, which mustn't be negative
+     * @return The number of digits, at least 1
+     */
+    private static int digitCount(long value) {
+        int count = 1;
+        while (count < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns one of the decimal digits of a number, as a character.
+     * @param value The number, which mustn't be negative
+     * @param place The place of the digit: 0 for the units, 1 for the tens, and so on
+     * @return The digit, from '0' to '9'
+     */
+    private static char digit(long value, int place) {
+        return (char) ('0' + value / POWERS_OF_TEN[place] % 10);
+    }
+
+    /**
+     * Returns the place of the last digit of a number written with an exponent: the
+     * last one that isn't a trailing zero, but no further than the first digit after
+     * the point.
+     * @param value The number, which mustn't be negative
+     * @param count The number of digits in the number
+     * @return The place of the last digit to write
+     */
+    private static int lastDigit(long value, int count) {
+        int last = 0;
+        while (last < count - 2 && digit(value, last) == '0') {
+            last++;
+        }
+        return last;
+    }
+
+    /** 
+     * Returns the number of cents (pennies) that this monetary value is made up of.
+     * @return The number of cents
+     */
+    public long getCents() {
+        return cents;
     }
-    */
 
     /** 
      * Returns a {@code double} representation of this monetary value.
@@ -124,25 +401,27 @@ public class MonetaryValue implements Comparable<MonetaryValue> {
      */
     @Override
     public int compareTo(MonetaryValue other) {
-        return this.cents - other.cents;
+        return Long.compare(this.cents, other.cents);
     }
 
     /** 
      * Returns the sum of this monetary value and {@code amount}.
      * @param amount A monetary value
      * @return The sum of this monetary value and {@code amount}
+     * @throws ArithmeticException If the result overflows
      */
     public MonetaryValue plus(MonetaryValue amount) {
-        return new MonetaryValue(this.cents + amount.cents);
+        return valueOf(Math.addExact(this.cents, amount.cents));
     }
 
     /** 
      * Returns the difference of this monetary value and {@code amount}.
      * @param amount A monetary value
      * @return The difference of this monetary value and {@code amount}
+     * @throws ArithmeticException If the result overflows
      */
     public MonetaryValue minus(MonetaryValue amount) {
-        return new MonetaryValue(this.cents - amount.cents);
+        return valueOf(Math.subtractExact(this.cents, amount.cents));
     }
 
     
@@ -151,9 +430,10 @@ public class MonetaryValue implements Comparable<MonetaryValue> {
      * @param value1 A monetary value
      * @param value2 Another monetary value
      * @return The sum of the two monetary values
+     * @throws ArithmeticException If the result overflows
      */
     public static MonetaryValue sum(MonetaryValue value1, MonetaryValue value2) {
-        return new MonetaryValue(value1.cents + value2.cents);
+        return valueOf(Math.addExact(value1.cents, value2.cents));
     }
 
     
@@ -162,8 +442,9 @@ public class MonetaryValue implements Comparable<MonetaryValue> {
      * @param value1 A monetary value
      * @param value2 Another monetary value
      * @return The difference of the two monetary values
+     * @throws ArithmeticException If the result overflows
      */
     public static MonetaryValue difference(MonetaryValue value1, MonetaryValue value2) {
-        return new MonetaryValue(value1.cents - value2.cents);
+        return valueOf(Math.subtractExact(value1.cents, value2.cents));
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * The rates applied to a bank at the end of each month (see {@code Bank.applyMonthEnd}):
+ * interest on CD accounts, depending on their term, and fees on checking accounts that
+ * are overdrawn.
+ * <p>
+ * Rates are annual, in basis points (hundredths of a percent), and a month is a twelfth
+ * of a year. So a CD account earns {@code balance * rate / 120000} cents of interest a
+ * month, and an overdrawn checking account is charged the flat fee plus
+ * {@code overdrawn * rate / 120000} cents. The amounts are computed exactly and rounded
+ * to the nearest cent, with halves rounded to the even cent (banker's rounding), so
+ * rounding doesn't drift in the bank's favor or the customers' over many accounts.
+ */
+public final class MonthEndRates {
+    /**
+     * The number of basis points in a whole, times the number of months in a year.
+     */
+    private static final long MONTHLY_DENOMINATOR = 10_000L * 12;
+
+    /**
+     * The annual interest rate for each term of CD account, in basis points;
+     * {@code cdRates[months]} is the rate for a term of {@code months} months. Terms
+     * longer than the array get the last rate.
+     */
+    private final int[] cdRates;
+
+    /**
+     * The flat fee charged to an overdrawn checking account, in cents.
+     */
+    private final long overdraftFeeCents;
+
+    /**
+     * The annual interest rate charged on the amount a checking account is overdrawn,
+     * in basis points.
+     */
+    private final int overdraftRate;
+
+    /**
+     * Constructs the rates. CD interest rates are given in tiers: a CD account earns the
+     * rate of the longest tier its term reaches, and nothing if its term is shorter than
+     * the first tier. For example, tiers of {@code {1, 12, 36}} months with rates of
+     * {@code {100, 250, 400}} basis points give a 6-month CD 1%, a 12-month or 24-month
+     * CD 2.5%, and a 60-month CD 4%.
+     * @param cdTermMonths The shortest term of each tier, in months, in increasing order
+     * @param cdRates The annual interest rate of each tier, in basis points
+     * @param overdraftFeeCents The flat monthly fee for an overdrawn checking account,
+     *        in cents
+     * @param overdraftRate The annual interest rate charged on the amount a checking
+     *        account is overdrawn, in basis points
+     * @throws IllegalArgumentException If the tiers don't have one rate each, aren't in
+     *         increasing order, or if any term, rate or fee is negative
+     */
+    public MonthEndRates(int[] cdTermMonths, int[] cdRates, long overdraftFeeCents, int overdraftRate)
+            throws IllegalArgumentException {
+        if (cdTermMonths.length != cdRates.length) {
+            throw new IllegalArgumentException("each CD tier needs one rate");
+        }
+        if (overdraftFeeCents < 0 || overdraftRate < 0) {
+            throw new IllegalArgumentException("overdraft fees cannot be negative");
+        }
+
+        for (int t = 0; t < cdTermMonths.length; t++) {
+            if (cdRates[t] < 0 || cdTermMonths[t] < 0 || (t > 0 && cdTermMonths[t] <= cdTermMonths[t - 1])) {
+                throw new IllegalArgumentException("CD tiers must be in increasing order, with rates of 0 or more");
+            }
+        }
+
+        int longest = cdTermMonths.length == 0 ? 0 : cdTermMonths[cdTermMonths.length - 1];
+        this.cdRates = new int[longest + 1];
+        for (int t = 0; t < cdTermMonths.length; t++) {
+            int until = t + 1 < cdTermMonths.length ? cdTermMonths[t + 1] : longest + 1;
+            Arrays.fill(this.cdRates, cdTermMonths[t], until, cdRates[t]);
+        }
+        this.overdraftFeeCents = overdraftFeeCents;
+        this.overdraftRate = overdraftRate;
+    }
+
+    /**
+     * Returns the interest a CD account earns for a month.
+     * @param balanceCents The balance, in cents; 0 or more
+     * @param termMonths The length of the term, in months
+     * @return The interest, in cents, rounded half to even
+     */
+    long interestCents(long balanceCents, long termMonths) {
+        int rate = cdRates[(int) Math.min(termMonths, cdRates.length - 1)];
+        return monthly(balanceCents, rate);
+    }
+
+    /**
+     * Returns the fee charged to an overdrawn checking account for a month.
+     * @param balanceCents The balance, in cents; below 0
+     * @return The fee, in cents, as a positive number
+     * @throws ArithmeticException If the fee overflows
+     */
+    long overdraftFeeCents(long balanceCents) {
+        return Math.addExact(overdraftFeeCents, monthly(Math.negateExact(balanceCents), overdraftRate));
+    }
+
+    /**
+     * Returns a month's interest on an amount at an annual rate.
+     * @param cents The amount, in cents; 0 or more
+     * @param rate The annual rate, in basis points
+     * @return The interest, in cents, rounded half to even
+     */
+    private static long monthly(long cents, int rate) {
+        if (rate == 0 || cents == 0) {
+            return 0;
+        }
+        if (cents <= Long.MAX_VALUE / rate) {
+            return roundHalfEven(cents * rate, MONTHLY_DENOMINATOR);
+        }
+        // too big for a long; happens only for balances of trillions of dollars
+        BigInteger[] qr = BigInteger.valueOf(cents).multiply(BigInteger.valueOf(rate))
+                .divideAndRemainder(BigInteger.valueOf(MONTHLY_DENOMINATOR));
+        return round(qr[0].longValueExact(), qr[1].longValue(), MONTHLY_DENOMINATOR);
+    }
+
+    /**
+     * Divides, rounding half to even.
+     * @param dividend The dividend; 0 or more
+     * @param divisor The divisor; more than 0
+     * @return The rounded quotient
+     */
+    private static long roundHalfEven(long dividend, long divisor) {
+        return round(dividend / divisor, dividend % divisor, divisor);
+    }
+
+    /**
+     * Rounds a quotient half to even, given the remainder of the division.
+     * @param quotient The quotient, rounded down
+     * @param remainder The remainder; 0 or more and less than {@code divisor}
+     * @param divisor The divisor
+     * @return The rounded quotient
+     */
+    private static long round(long quotient, long remainder, long divisor) {
+        long twice = remainder * 2;
+        if (twice > divisor || (twice == divisor && (quotient & 1) != 0)) {
+            return quotient + 1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * What a month-end run did to a bank (see {@code Bank.applyMonthEnd}): how much
+ * interest was credited to how many CD accounts, how much in fees was charged to
+ * how many checking accounts, and how many accounts were left alone although an amount
+ * had been computed for them.
+ */
+public final class MonthEndSummary {
+    /**
+     * The number of accounts credited with interest.
+     */
+    private final int accountsCredited;
+
+    /**
+     * The total interest credited, in cents.
+     */
+    private final long interestCents;
+
+    /**
+     * The number of accounts charged a fee.
+     */
+    private final int accountsCharged;
+
+    /**
+     * The total fees charged, in cents.
+     */
+    private final long feeCents;
+
+    /**
+     * The number of accounts skipped.
+     */
+    private final int accountsSkipped;
+
+    /**
+     * Constructs a summary.
+     * @param accountsCredited The number of accounts credited with interest
+     * @param interestCents The total interest credited, in cents
+     * @param accountsCharged The number of accounts charged a fee
+     * @param feeCents The total fees charged, in cents
+     * @param accountsSkipped The number of accounts skipped
+     */
+    MonthEndSummary(int accountsCredited, long interestCents, int accountsCharged, long feeCents,
+            int accountsSkipped) {
+        this.accountsCredited = accountsCredited;
+        this.interestCents = interestCents;
+        this.accountsCharged = accountsCharged;
+        this.feeCents = feeCents;
+        this.accountsSkipped = accountsSkipped;
+    }
+
+    /**
+     * Returns the number of accounts credited with interest.
+     * @return The number of accounts
+     */
+    public int getAccountsCredited() {
+        return accountsCredited;
+    }
+
+    /**
+     * Returns the total interest credited.
+     * @return The total interest
+     */
+    public MonetaryValue getInterestCredited() {
+        return MonetaryValue.valueOf(interestCents);
+    }
+
+    /**
+     * Returns the number of accounts charged a fee.
+     * @return The number of accounts
+     */
+    public int getAccountsCharged() {
+        return accountsCharged;
+    }
+
+    /**
+     * Returns the total fees charged.
+     * @return The total fees
+     */
+    public MonetaryValue getFeesCharged() {
+        return MonetaryValue.valueOf(feeCents);
+    }
+
+    /**
+     * Returns the number of accounts that were to be credited or charged, but were left
+     * alone: because they were closed, or replaced by another account with the same
+     * number, before the amount was applied, or because their balance would have
+     * overflowed.
+     * @return The number of accounts
+     */
+    public int getAccountsSkipped() {
+        return accountsSkipped;
+    }
+
+    /**
+     * Returns a string representation of this summary, such as
+     * {@code "interest $12.50 to 3 accounts, fees $75.00 from 2 accounts"}, followed by
+     * the number of accounts skipped, such as {@code ", 1 skipped"}, if there were any.
+     * @return A string representation of this summary
+     */
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder(80).append("interest ");
+        MonetaryValue.appendTo(res, interestCents).append(" to ").append(accountsCredited).append(" accounts, fees ");
+        MonetaryValue.appendTo(res, feeCents).append(" from ").append(accountsCharged).append(" accounts");
+        if (accountsSkipped > 0) {
+            res.append(", ").append(accountsSkipped).append(" skipped");
+        }
+        return res.toString();
+    }
+}
@@ -1,6 +1,12 @@
+import java.io.IOException;
+
 /**
  * A class for representing names, which contain a first name, a last name, 
  * and an optional middle name.
+ * <p>
+ * The parts of a name are only ever read through {@code getFirst}, {@code getMiddle}
+ * and {@code getLast}, so that a subclass can keep them somewhere else (see
+ * {@code NameView}).
  */
 public class Name implements Comparable<Name> {
     /**
@@ -46,7 +52,14 @@ public class Name implements Comparable<Name> {
      * @param original The name to make a copy of
      */
     public Name(Name original) {
-        this(original.first, original.middle, original.last);
+        this(original.getFirst(), original.getMiddle(), original.getLast());
+    }
+
+    /**
+     * Constructs a name with no parts of its own, for a subclass that keeps them
+     * somewhere else and overrides the methods that read them.
+     */
+    Name() {
     }
     
     /**
@@ -115,7 +128,37 @@ public class Name implements Comparable<Name> {
      * @return A string representation of this name
      */
     public String toString() {
-        return first + " " + middle + (middle.isEmpty()? "" : " ") + last;
+        String middle = getMiddle();
+        return getFirst() + " " + middle + (middle.isEmpty()? "" : " ") + getLast();
+    }
+
+    /**
+     * Appends this name to a string builder, exactly as {@code toString} would return it.
+     * @param out The string builder
+     */
+    void appendTo(StringBuilder out) {
+        String middle = getMiddle();
+        out.append(getFirst()).append(' ');
+        if (!middle.isEmpty()) {
+            out.append(middle).append(' ');
+        }
+        out.append(getLast());
+    }
+
+    /**
+     * Writes this name to a CSV writer, exactly as {@code toString} would return it.
+     * @param out The writer
+     * @throws IOException If the writer can't write
+     */
+    void writeCsv(CsvWriter out) throws IOException {
+        out.write(getFirst());
+        out.write(' ');
+        String middle = getMiddle();
+        if (!middle.isEmpty()) {
+            out.write(middle);
+            out.write(' ');
+        }
+        out.write(getLast());
     }
     
     /** 
@@ -130,13 +173,23 @@ public class Name implements Comparable<Name> {
         if (o instanceof Name) {
             Name other = (Name) o;
 
-            return this.first.equals(other.first) 
-                && this.middle.equals(other.middle) 
-                && this.last.equals(other.last);
+            return this.getFirst().equals(other.getFirst()) 
+                && this.getMiddle().equals(other.getMiddle()) 
+                && this.getLast().equals(other.getLast());
         } else {
             return false;
         }
     }
+
+    /**
+     * Returns a hash code for this name, computed from the first, middle, and last names,
+     * so that equal names have equal hash codes.
+     * @return A hash code for this name
+     */
+    @Override
+    public int hashCode() {
+        return (getFirst().hashCode() * 31 + getMiddle().hashCode()) * 31 + getLast().hashCode();
+    }
     
     /** 
      * Compares this name with the specified name. First the names are compared based on the 
@@ -152,12 +205,12 @@ public class Name implements Comparable<Name> {
      */
     @Override
     public int compareTo(Name other) {
-        if (!this.last.equals(other.last)) {
-            return this.last.compareTo(other.last);
-        } else if (!this.first.equals(other.first)) {
-            return this.first.compareTo(other.first);
+        if (!this.getLast().equals(other.getLast())) {
+            return this.getLast().compareTo(other.getLast());
+        } else if (!this.getFirst().equals(other.getFirst())) {
+            return this.getFirst().compareTo(other.getFirst());
         } else {
-            return this.middle.compareTo(other.middle);
+            return this.getMiddle().compareTo(other.getMiddle());
         }
 
     }
@@ -0,0 +1,247 @@
+import java.util.Arrays;
+
+/**
+ * An arena of account holders' names: the names packed one after another into a
+ * single byte array, in ISO-8859-1, each stored once. A name in the arena is known by
+ * its offset, and read through a {@code NameView}, which compares and prints it
+ * straight from the bytes; so an account whose name is in an arena holds just an
+ * {@code int} for it, and no {@code Name} or {@code String} objects.
+ * <p>
+ * Each name takes 3 bytes for the lengths of its first, middle and last names,
+ * followed by its text as {@code toString} returns it, such as
+ * {@code "John Adam Smith"}. The offsets of the names are kept in an open-addressing
+ * table with linear probing, so that a name that's already in the arena is found
+ * without creating anything. Names with a part longer than 255 characters, or with
+ * characters outside ISO-8859-1, can't be kept in an arena.
+ * <p>
+ * The arena isn't thread-safe by itself; the heap store only adds names while the bank
+ * holds its write lock. Names are never removed or moved, so a view stays valid for as
+ * long as it's reachable.
+ */
+final class NameArena {
+    /**
+     * The number of bytes before a name's text.
+     */
+    static final int HEADER = 3;
+
+    /**
+     * The longest a part of a name can be.
+     */
+    private static final int MAX_PART = 0xFF;
+
+    /**
+     * The names. Replaced by a longer copy when it fills up, after the new name has
+     * been copied in, so a reader that has the offset of a name always finds it in the
+     * array it reads.
+     */
+    private volatile byte[] bytes = new byte[4096];
+
+    /**
+     * The number of bytes used.
+     */
+    private int length;
+
+    /**
+     * The offsets of the names plus one, or 0 for unused slots. The length is a power of
+     * two.
+     */
+    private int[] table = new int[16];
+
+    /**
+     * The number of names in the arena.
+     */
+    private int count;
+
+    /**
+     * Where a name is encoded before it's looked up.
+     */
+    private final byte[] scratch = new byte[HEADER + 3 * MAX_PART + 2];
+
+    /**
+     * A view with no name of its own, which makes the views of the names (see
+     * {@code NameView.at}).
+     */
+    private final NameView root = new NameView(this, -1);
+
+    /**
+     * Returns the offset of the name in the arena equal to the specified name, adding
+     * the name if there is none.
+     * @param name The name
+     * @return The offset of the name, or -1 if it can't be kept in an arena
+     */
+    int intern(Name name) {
+        if (name instanceof NameView && ((NameView) name).arena() == this) {
+            return ((NameView) name).offset();
+        }
+        int size = encode(name.getFirst(), name.getMiddle(), name.getLast());
+        if (size < 0) {
+            return -1;
+        }
+
+        byte[] b = bytes;
+        int mask = table.length - 1;
+        int hash = hash(scratch, 0);
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != 0) {
+            int at = table[slot] - 1;
+            // equal headers mean equal sizes, so the stored name is compared only if it
+            // is as long as this one
+            if (b[at] == scratch[0] && b[at + 1] == scratch[1] && b[at + 2] == scratch[2]
+                    && Arrays.equals(b, at + HEADER, at + size, scratch, HEADER, size)) {
+                return at;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size > b.length - length) {
+            if (size > Integer.MAX_VALUE - 8 - length) {
+                return -1;
+            }
+            b = Arrays.copyOf(b, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(b.length + (b.length >> 1), (long) length + size)));
+        }
+        int at = length;
+        System.arraycopy(scratch, 0, b, at, size);
+        length += size;
+        bytes = b;
+
+        table[slot] = at + 1;
+        if (++count > table.length - (table.length >> 2)) {
+            rehash();
+        }
+        return at;
+    }
+
+    /**
+     * Returns the view that makes the views of the names.
+     * @return The view
+     */
+    NameView root() {
+        return root;
+    }
+
+    /**
+     * Returns the names.
+     * @return The array holding the names
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of names in the arena.
+     * @return The number of names
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns the length of the text of a name.
+     * @param b The array holding the name
+     * @param at The offset of the name
+     * @return The length of the text, not counting the header
+     */
+    static int textLength(byte[] b, int at) {
+        int middle = b[at + 1] & 0xFF;
+        return (b[at] & 0xFF) + 1 + (middle == 0 ? 0 : middle + 1) + (b[at + 2] & 0xFF);
+    }
+
+    /**
+     * Returns a hash code for a name, the same as {@code Name.hashCode} returns for it.
+     * @param b The array holding the name
+     * @param at The offset of the name
+     * @return The hash code
+     */
+    static int hash(byte[] b, int at) {
+        int first = b[at] & 0xFF, middle = b[at + 1] & 0xFF, last = b[at + 2] & 0xFF;
+        int text = at + HEADER;
+        int hash = hash(b, text, first) * 31;
+        if (middle != 0) {
+            hash += hash(b, text + first + 1, middle);
+            text += middle + 1;
+        }
+        return hash * 31 + hash(b, text + first + 1, last);
+    }
+
+    /**
+     * Returns a hash code for some ISO-8859-1 text, the same as {@code String.hashCode}
+     * returns for it.
+     * @param b The array holding the text
+     * @param from Where the text starts
+     * @param length The length of the text
+     * @return The hash code
+     */
+    private static int hash(byte[] b, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + (b[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    /**
+     * Encodes a name into {@code scratch}.
+     * @param first The first name
+     * @param middle The middle name
+     * @param last The last name
+     * @return The number of bytes used, or -1 if the name can't be kept in an arena
+     */
+    private int encode(String first, String middle, String last) {
+        if (first.length() > MAX_PART || middle.length() > MAX_PART || last.length() > MAX_PART) {
+            return -1;
+        }
+        scratch[0] = (byte) first.length();
+        scratch[1] = (byte) middle.length();
+        scratch[2] = (byte) last.length();
+        int at = put(first, HEADER);
+        if (at < 0) {
+            return -1;
+        }
+        scratch[at++] = ' ';
+        if (!middle.isEmpty()) {
+            at = put(middle, at);
+            if (at < 0) {
+                return -1;
+            }
+            scratch[at++] = ' ';
+        }
+        return put(last, at);
+    }
+
+    /**
+     * Puts a part of a name into {@code scratch}.
+     * @param part The part
+     * @param at Where to put it
+     * @return Where the part ends, or -1 if it has characters outside ISO-8859-1
+     */
+    private int put(String part, int at) {
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c > 0xFF) {
+                return -1;
+            }
+            scratch[at++] = (byte) c;
+        }
+        return at;
+    }
+
+    /**
+     * Moves the offsets into a table twice as big.
+     */
+    private void rehash() {
+        byte[] b = bytes;
+        int[] bigger = new int[table.length * 2];
+        int mask = bigger.length - 1;
+        for (int entry : table) {
+            if (entry != 0) {
+                int hash = hash(b, entry - 1);
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (bigger[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                bigger[slot] = entry;
+            }
+        }
+        table = bigger;
+    }
+}
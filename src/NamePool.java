@@ -0,0 +1,114 @@
+/**
+ * A pool of account holders' names, so that accounts with the same holder share one
+ * {@code Name}, and names with the same first, middle or last name share the
+ * {@code String}s. Interning a name returns the pooled name equal to it, or pools a
+ * new name made from the pooled strings. The name passed in is never changed or
+ * kept, so a caller that changes it afterwards can't change the pool.
+ * <p>
+ * The names and the strings each live in an open-addressing table with linear probing,
+ * so a name costs the pool one array slot, not an entry object. The pool isn't
+ * thread-safe by itself; the heap store only uses it while the bank holds its write
+ * lock. A pooled name may be shared by many accounts, so it must not be changed.
+ */
+final class NamePool {
+    /**
+     * The pooled names, or {@code null} for unused slots. The length is a power of two.
+     */
+    private Name[] names = new Name[16];
+
+    /**
+     * The number of pooled names.
+     */
+    private int nameCount;
+
+    /**
+     * The pooled first, middle and last names, or {@code null} for unused slots. The
+     * length is a power of two.
+     */
+    private String[] strings = new String[16];
+
+    /**
+     * The number of pooled strings.
+     */
+    private int stringCount;
+
+    /**
+     * Returns the pooled name equal to the specified name. If there is none, a new
+     * name made from the pooled strings equal to its first, middle and last names is
+     * pooled and returned.
+     * @param name The name, which isn't changed
+     * @return The pooled name
+     */
+    Name intern(Name name) {
+        int slot = find(names, name, name.hashCode());
+        if (names[slot] != null) {
+            return names[slot];
+        }
+
+        Name pooled = new Name(intern(name.getFirst()), intern(name.getMiddle()), intern(name.getLast()));
+        names[slot] = pooled;
+        if (++nameCount * 2 > names.length) {
+            names = rehash(names, new Name[names.length * 2]);
+        }
+        return pooled;
+    }
+
+    /**
+     * Returns the pooled string equal to the specified string, pooling the string if
+     * there is none.
+     * @param s The string
+     * @return The pooled string
+     */
+    String intern(String s) {
+        int slot = find(strings, s, s.hashCode());
+        if (strings[slot] != null) {
+            return strings[slot];
+        }
+        strings[slot] = s;
+        if (++stringCount * 2 > strings.length) {
+            strings = rehash(strings, new String[strings.length * 2]);
+        }
+        return s;
+    }
+
+    /**
+     * Returns the number of pooled names.
+     * @return The number of names
+     */
+    int size() {
+        return nameCount;
+    }
+
+    /**
+     * Finds the slot of a value in a table: the slot holding an equal value, or the
+     * unused slot where the value would go.
+     * @param table The table, which has at least one unused slot
+     * @param value The value
+     * @param hash The value's hash code
+     * @return The slot
+     */
+    private static int find(Object[] table, Object value, int hash) {
+        int mask = table.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (table[slot] != null && !table[slot].equals(value)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the values of a table into a bigger one.
+     * @param <T> The type of the values
+     * @param table The table
+     * @param bigger The empty table to move the values into
+     * @return {@code bigger}
+     */
+    private static <T> T[] rehash(T[] table, T[] bigger) {
+        for (T value : table) {
+            if (value != null) {
+                bigger[find(bigger, value, value.hashCode())] = value;
+            }
+        }
+        return bigger;
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A name kept in a {@code NameArena}: a small object that holds only the arena and the
+ * offset of the name, and reads the name's bytes. Printing a name copies its text
+ * straight from the arena, and comparing two names in the same arena compares their
+ * bytes, without creating any {@code String}s; the parts of the name are only made
+ * into strings when they're asked for.
+ * <p>
+ * A name in an arena can't be changed, since other accounts may have the same name.
+ */
+final class NameView extends Name {
+    /**
+     * The arena the name is kept in.
+     */
+    private final NameArena arena;
+
+    /**
+     * The offset of the name in the arena.
+     */
+    private final int at;
+
+    /**
+     * Constructs a view of a name.
+     * @param arena The arena the name is kept in
+     * @param at The offset of the name in the arena
+     */
+    NameView(NameArena arena, int at) {
+        this.arena = arena;
+        this.at = at;
+    }
+
+    /**
+     * Returns a view of another name in the same arena.
+     * @param at The offset of the name
+     * @return The view
+     */
+    NameView at(int at) {
+        return new NameView(arena, at);
+    }
+
+    /**
+     * Returns the arena the name is kept in.
+     * @return The arena
+     */
+    NameArena arena() {
+        return arena;
+    }
+
+    /**
+     * Returns the offset of the name in the arena.
+     * @return The offset
+     */
+    int offset() {
+        return at;
+    }
+
+    /**
+     * Returns the first name.
+     * @return The first name
+     */
+    @Override
+    public String getFirst() {
+        byte[] b = arena.bytes();
+        return new String(b, at + NameArena.HEADER, b[at] & 0xFF, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the middle name.
+     * @return The middle name, or {@code ""} if there is none
+     */
+    @Override
+    public String getMiddle() {
+        byte[] b = arena.bytes();
+        int length = b[at + 1] & 0xFF;
+        if (length == 0) {
+            return "";
+        }
+        return new String(b, at + NameArena.HEADER + (b[at] & 0xFF) + 1, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the last name.
+     * @return The last name
+     */
+    @Override
+    public String getLast() {
+        byte[] b = arena.bytes();
+        int length = b[at + 2] & 0xFF;
+        return new String(b, lastFrom(b), length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Always throws an exception, since a name in an arena can't be changed.
+     * @param first Not used
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void setFirst(String first) {
+        throw new UnsupportedOperationException("A name in an arena can't be changed");
+    }
+
+    /**
+     * Always throws an exception, since a name in an arena can't be changed.
+     * @param middle Not used
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void setMiddle(String middle) {
+        throw new UnsupportedOperationException("A name in an arena can't be changed");
+    }
+
+    /**
+     * Always throws an exception, since a name in an arena can't be changed.
+     * @param last Not used
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public void setLast(String last) {
+        throw new UnsupportedOperationException("A name in an arena can't be changed");
+    }
+
+    /**
+     * Returns a string representation of this name, such as "John Smith", made with one
+     * copy of the name's text.
+     * @return A string representation of this name
+     */
+    @Override
+    public String toString() {
+        byte[] b = arena.bytes();
+        return new String(b, at + NameArena.HEADER, NameArena.textLength(b, at), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Appends this name to a string builder, exactly as {@code toString} would return
+     * it, a character at a time straight from the arena.
+     * @param out The string builder
+     */
+    @Override
+    void appendTo(StringBuilder out) {
+        byte[] b = arena.bytes();
+        int from = at + NameArena.HEADER, length = NameArena.textLength(b, at);
+        for (int i = from; i < from + length; i++) {
+            out.append((char) (b[i] & 0xFF));
+        }
+    }
+
+    /**
+     * Writes this name to a CSV writer, exactly as {@code toString} would return it,
+     * copying the text straight from the arena if it's ASCII.
+     * @param out The writer
+     * @throws IOException If the writer can't write
+     */
+    @Override
+    void writeCsv(CsvWriter out) throws IOException {
+        byte[] b = arena.bytes();
+        int from = at + NameArena.HEADER, length = NameArena.textLength(b, at);
+        for (int i = from; i < from + length; i++) {
+            if (b[i] < 0) {
+                out.write(toString());
+                return;
+            }
+        }
+        out.write(b, from, length);
+    }
+
+    /**
+     * Determines whether this name is equal to {@code o}, as {@code Name.equals} does.
+     * Names in the same arena are equal only if they're at the same offset, since the
+     * arena keeps each name once.
+     * @param o The thing to compare this name with
+     * @return {@code true} if this name is equal to {@code o}, {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof NameView && ((NameView) o).arena == arena) {
+            return ((NameView) o).at == at;
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Returns a hash code for this name, the same as {@code Name.hashCode} returns for an
+     * equal name, computed from the bytes.
+     * @return A hash code for this name
+     */
+    @Override
+    public int hashCode() {
+        return NameArena.hash(arena.bytes(), at);
+    }
+
+    /**
+     * Compares this name with the specified name, as {@code Name.compareTo} does. If
+     * both names are in the same arena, their bytes are compared.
+     * @param other The name to compare this name with
+     * @return 0 if this name is equal to {@code other}, a positive integer if this name
+     *         is greater than {@code other}, or a negative integer if this name is less
+     *         than {@code other}
+     */
+    @Override
+    public int compareTo(Name other) {
+        if (!(other instanceof NameView) || ((NameView) other).arena != arena) {
+            return super.compareTo(other);
+        }
+        int that = ((NameView) other).at;
+        byte[] b = arena.bytes();
+        int first = b[at] & 0xFF, otherFirst = b[that] & 0xFF;
+        int middle = b[at + 1] & 0xFF, otherMiddle = b[that + 1] & 0xFF;
+        int last = lastFrom(b), otherLast = ((NameView) other).lastFrom(b);
+
+        int result = Arrays.compareUnsigned(b, last, last + (b[at + 2] & 0xFF),
+                b, otherLast, otherLast + (b[that + 2] & 0xFF));
+        if (result == 0) {
+            result = Arrays.compareUnsigned(b, at + NameArena.HEADER, at + NameArena.HEADER + first,
+                    b, that + NameArena.HEADER, that + NameArena.HEADER + otherFirst);
+        }
+        if (result == 0) {
+            int from = at + NameArena.HEADER + first + 1, otherFrom = that + NameArena.HEADER + otherFirst + 1;
+            result = Arrays.compareUnsigned(b, from, from + middle, b, otherFrom, otherFrom + otherMiddle);
+        }
+        return result;
+    }
+
+    /**
+     * Returns where the last name starts.
+     * @param b The array holding the name
+     * @return The offset of the last name
+     */
+    private int lastFrom(byte[] b) {
+        return at + NameArena.HEADER + NameArena.textLength(b, at) - (b[at + 2] & 0xFF);
+    }
+}
@@ -0,0 +1,767 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An account store that keeps every account in a fixed-width record outside the Java
+ * heap, so that millions of accounts don't mean millions of objects for the garbage
+ * collector to trace.
+ * <p>
+ * The records live in direct byte buffers of {@code CHUNK_RECORDS} records each. A
+ * chunk never moves once it's allocated, so a balance can be updated with
+ * compare-and-set while another thread adds accounts. Each record has this layout:
+ * <pre>
+ *  0  long  balance in cents (updated with compare-and-set)
+ *  8  long  term in months, overdraft limit in cents, or 0
+ * 16  long  date opened, as an epoch day
+ * 24  long  maturity date of a CD account, as an epoch day, or 0
+ * 32  int   account number, as an index key
+ * 36  byte  type of account (one of the {@code BankSnapshot.TYPE} constants)
+ * 37  byte  length of the first name, or {@code OVERFLOW}
+ * 38  byte  length of the middle name
+ * 39  byte  length of the last name
+ * 40  32 bytes of the name's parts, in ISO-8859-1
+ * </pre>
+ * The dates are longs, like {@code LocalDate.toEpochDay}, so every date a
+ * {@code LocalDate} can hold fits.
+ * A CD account's maturity date is computed once, when the account is added, so checking
+ * a withdrawal against the business date reads it straight from the record. A name
+ * that's longer than 32 bytes in all, or has characters outside ISO-8859-1, is
+ * kept on the heap in {@code overflowNames} instead.
+ * <p>
+ * The accounts the store returns are views: small objects that hold only the store and
+ * a record slot, and read and update the record. A new view is made every time an
+ * account is looked up, and views of the same account all see the same balance.
+ * Adding an account copies it into a record, so changes made afterwards to the object
+ * that was added don't affect the store. A view must not be used once its account has
+ * been removed, since the record slot is given to the next account added.
+ */
+final class OffHeapAccountStore implements AccountStore {
+    /**
+     * The size of a record, in bytes.
+     */
+    static final int RECORD_SIZE = 72;
+
+    /**
+     * The offsets of the fields in a record.
+     */
+    private static final int BALANCE = 0, EXTRA = 8, OPENED = 16, MATURITY = 24, KEY = 32, TYPE = 36,
+            FIRST_LENGTH = 37, MIDDLE_LENGTH = 38, LAST_LENGTH = 39, NAME = 40;
+
+    /**
+     * The room in a record for the parts of the name, in bytes.
+     */
+    private static final int NAME_BYTES = RECORD_SIZE - NAME;
+
+    /**
+     * The first-name length stored in a record whose name is in {@code overflowNames}.
+     */
+    private static final int OVERFLOW = 0xFF;
+
+    /**
+     * The number of records in a chunk is {@code 1 << CHUNK_SHIFT}.
+     */
+    private static final int CHUNK_SHIFT = 16;
+
+    /**
+     * The number of records in a chunk.
+     */
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+
+    /**
+     * A handle for volatile reads and compare-and-set updates of the balances. Records
+     * start at multiples of {@code RECORD_SIZE} in a direct buffer, so the balances are
+     * aligned, as atomic access requires.
+     */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * The chunks of records. Only ever replaced by a longer copy, with the same chunks
+     * at the start.
+     */
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    /**
+     * The record slots of the accounts, in the order the accounts were added, except
+     * that removing an account moves the last slot into its place.
+     */
+    private int[] order = new int[16];
+
+    /**
+     * The position in {@code order} of each used record slot.
+     */
+    private int[] positions = new int[16];
+
+    /**
+     * The number of accounts in the store.
+     */
+    private int size;
+
+    /**
+     * The number of record slots that have ever been used.
+     */
+    private int used;
+
+    /**
+     * The slots below {@code used} whose accounts were removed, to be used again.
+     */
+    private int[] free = new int[16];
+
+    /**
+     * The number of slots in {@code free}.
+     */
+    private int freeCount;
+
+    /**
+     * The record slots, keyed on account number.
+     */
+    private final SlotIndex index = new SlotIndex();
+
+    /**
+     * The names that don't fit in a record, keyed on record slot.
+     */
+    private final Map<Integer, Name> overflowNames = new ConcurrentHashMap<>();
+
+    /**
+     * The set in which changes to the accounts are marked, or {@code null}.
+     */
+    private volatile DirtyAccounts dirty;
+
+    /**
+     * The business date withdrawals from CD accounts are checked against.
+     */
+    private final BusinessDate businessDate;
+
+    /**
+     * Constructs an empty store.
+     * @param businessDate The business date of the bank the store is for
+     */
+    OffHeapAccountStore(BusinessDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    /**
+     * Returns a view of the account with the specified key.
+     * @param key The account number as an index key (see {@code AccountIndex.toKey})
+     * @return The account, or {@code null} if there is none
+     */
+    @Override
+    public BankAccount get(int key) {
+        int slot = index.get(key);
+        return slot == SlotIndex.NONE ? null : view(slot);
+    }
+
+    /**
+     * Copies an account into a new record at the end of the store, unless the store
+     * already has an account with the same account number.
+     * @param account The account
+     * @return {@code true} if the account was added, {@code false} if its account
+     *         number was already in use
+     */
+    @Override
+    public boolean add(BankAccount account) {
+        int key = AccountIndex.toKey(account.getAccountNumber());
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid account number " + account.getAccountNumber());
+        }
+        if (index.get(key) != SlotIndex.NONE) {
+            return false;
+        }
+
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            ensureCapacity(used + 1);
+            slot = used++;
+        }
+        write(slot, key, account);
+        index.putIfAbsent(key, slot);
+
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        positions[slot] = size;
+        order[size++] = slot;
+        return true;
+    }
+
+    /**
+     * Removes the account with the specified key, and frees its record.
+     * @param key The account number as an index key
+     * @return A copy of the account removed, which doesn't depend on the store, or
+     *         {@code null} if there was none
+     */
+    @Override
+    public BankAccount remove(int key) {
+        int slot = index.remove(key);
+        if (slot == SlotIndex.NONE) {
+            return null;
+        }
+        BankAccount removed = copy(slot);
+
+        int i = positions[slot];
+        int last = order[--size];
+        order[i] = last;
+        positions[last] = i;
+
+        overflowNames.remove(slot);
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+        return removed;
+    }
+
+    /**
+     * Returns the number of accounts in the store.
+     * @return The number of accounts
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Makes room for about {@code expected} accounts in total, allocating the chunks
+     * of records for them.
+     * @param expected The expected number of accounts
+     */
+    @Override
+    public void ensureCapacity(int expected) {
+        ByteBuffer[] current = chunks;
+        int needed = (expected + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT;
+        if (needed > current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, needed);
+            for (int c = current.length; c < needed; c++) {
+                grown[c] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+            }
+            chunks = grown;
+        }
+        if (expected > order.length) {
+            order = Arrays.copyOf(order, expected);
+        }
+        if (expected > positions.length) {
+            positions = Arrays.copyOf(positions, expected);
+        }
+        index.ensureCapacity(expected);
+    }
+
+    /**
+     * Returns views of the accounts, in the order they were added, except that
+     * removing an account moves the last one into its place. Each call to
+     * {@code get} on the list makes a new view.
+     * @return An unmodifiable list of the accounts
+     */
+    @Override
+    public List<BankAccount> accounts() {
+        return new Accounts();
+    }
+
+    /**
+     * Returns the accounts as columns. The records are already laid out for scanning,
+     * so instead of keeping a second copy of every balance in sync, the columns are
+     * copied from the records, in one pass, each time they're asked for.
+     * @return A copy of the accounts as columns
+     */
+    @Override
+    public AccountColumns columns() {
+        AccountColumns columns = new AccountColumns(false);
+        columns.ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            ByteBuffer chunk = chunk(slot);
+            int at = offset(slot);
+            columns.append(key(slot), chunk.get(at + TYPE), chunk.getLong(at + OPENED), chunk.getLong(at + EXTRA), balance(slot));
+        }
+        return columns;
+    }
+
+    /**
+     * Starts or stops marking changes to the accounts' balances.
+     * @param dirty The set in which to mark changed accounts, or {@code null}
+     */
+    @Override
+    public void trackChanges(DirtyAccounts dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Returns the number of bytes allocated outside the heap for records.
+     * @return The number of bytes
+     */
+    long offHeapBytes() {
+        return (long) chunks.length * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the chunk that holds the record in the specified slot.
+     * @param slot The record slot
+     * @return The chunk
+     */
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * Returns the offset in its chunk of the record in the specified slot.
+     * @param slot The record slot
+     * @return The offset, in bytes
+     */
+    private static int offset(int slot) {
+        return (slot & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    /**
+     * Fills the record in the specified slot from an account.
+     * @param slot The record slot
+     * @param key The account number as an index key
+     * @param account The account
+     */
+    private void write(int slot, int key, BankAccount account) {
+        ByteBuffer chunk = chunk(slot);
+        int at = offset(slot);
+        chunk.putLong(at + EXTRA, account.snapshotExtra())
+                .putLong(at + OPENED, account.getDateOpened().toEpochDay())
+                .putLong(at + MATURITY, account instanceof CDAccount ? ((CDAccount) account).getMaturityDay() : 0)
+                .putInt(at + KEY, key)
+                .put(at + TYPE, (byte) account.snapshotType());
+
+        Name name = account.getName();
+        String first = name.getFirst(), middle = name.getMiddle(), last = name.getLast();
+        if (first.length() + middle.length() + last.length() <= NAME_BYTES
+                && isLatin1(first) && isLatin1(middle) && isLatin1(last)) {
+            chunk.put(at + FIRST_LENGTH, (byte) first.length())
+                    .put(at + MIDDLE_LENGTH, (byte) middle.length())
+                    .put(at + LAST_LENGTH, (byte) last.length());
+            int pos = putLatin1(chunk, at + NAME, first);
+            pos = putLatin1(chunk, pos, middle);
+            putLatin1(chunk, pos, last);
+        } else {
+            chunk.put(at + FIRST_LENGTH, (byte) OVERFLOW);
+            overflowNames.put(slot, name);
+        }
+        LONGS.setVolatile(chunk, at + BALANCE, account.getBalanceCents());
+    }
+
+    /**
+     * Determines whether every character of a string is in ISO-8859-1.
+     * @param s The string
+     * @return {@code true} if every character is below 256, {@code false} otherwise
+     */
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the characters of a string, one byte each, to a buffer.
+     * @param buffer The buffer
+     * @param at The position at which to write
+     * @param s The string, all of whose characters are in ISO-8859-1
+     * @return The position just after the last byte written
+     */
+    private static int putLatin1(ByteBuffer buffer, int at, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put(at + i, (byte) s.charAt(i));
+        }
+        return at + s.length();
+    }
+
+    /**
+     * Makes a view of the account in the specified slot.
+     * @param slot The record slot
+     * @return A view of the right type for the account
+     */
+    private BankAccount view(int slot) {
+        switch (type(slot)) {
+            case BankSnapshot.TYPE_CD:
+                return new CDView(this, slot);
+            case BankSnapshot.TYPE_CHECKING:
+                return new CheckingView(this, slot);
+            default:
+                return new BankView(this, slot);
+        }
+    }
+
+    /**
+     * Makes an ordinary account with the same contents as the record in the specified
+     * slot.
+     * @param slot The record slot
+     * @return The account
+     */
+    private BankAccount copy(int slot) {
+        String accountNumber = accountNumber(slot);
+        MonetaryValue balance = MonetaryValue.valueOf(balance(slot));
+        LocalDate opened = dateOpened(slot);
+        Name name = name(slot);
+        try {
+            switch (type(slot)) {
+                case BankSnapshot.TYPE_CD:
+                    return new CDAccount(accountNumber, balance, opened, name, Period.ofMonths((int) extra(slot)));
+                case BankSnapshot.TYPE_CHECKING:
+                    return new CheckingAccount(accountNumber, balance, opened, name, MonetaryValue.valueOf(extra(slot)));
+                default:
+                    return new BankAccount(accountNumber, balance, opened, name);
+            }
+        } catch (InvalidAccountNumberException ex) {
+            // the account number came from an account that was valid when it was added
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the type of the account in the specified slot.
+     * @param slot The record slot
+     * @return One of the {@code BankSnapshot.TYPE} constants
+     */
+    private int type(int slot) {
+        return chunk(slot).get(offset(slot) + TYPE);
+    }
+
+    /**
+     * Returns the account number of the account in the specified slot.
+     * @param slot The record slot
+     * @return The account number, 8 digits
+     */
+    private String accountNumber(int slot) {
+        char[] number = new char[8];
+        for (int i = number.length - 1, rest = key(slot); i >= 0; i--, rest /= 10) {
+            number[i] = (char) ('0' + rest % 10);
+        }
+        return new String(number);
+    }
+
+    /**
+     * Returns the account number of the account in the specified slot, as an index key.
+     * @param slot The record slot
+     * @return The key
+     */
+    private int key(int slot) {
+        return chunk(slot).getInt(offset(slot) + KEY);
+    }
+
+    /**
+     * Returns the balance of the account in the specified slot.
+     * @param slot The record slot
+     * @return The balance, in cents
+     */
+    private long balance(int slot) {
+        return (long) LONGS.getVolatile(chunk(slot), offset(slot) + BALANCE);
+    }
+
+    /**
+     * Sets the balance of the account in the specified slot, if it is currently
+     * {@code expected}, atomically.
+     * @param slot The record slot
+     * @param expected The balance the account must have, in cents
+     * @param updated The new balance, in cents
+     * @return {@code true} if the balance was set, {@code false} otherwise
+     */
+    private boolean compareAndSetBalance(int slot, long expected, long updated) {
+        return LONGS.compareAndSet(chunk(slot), offset(slot) + BALANCE, expected, updated);
+    }
+
+    /**
+     * Sets the balance of the account in the specified slot.
+     * @param slot The record slot
+     * @param cents The balance, in cents
+     */
+    private void setBalance(int slot, long cents) {
+        LONGS.setVolatile(chunk(slot), offset(slot) + BALANCE, cents);
+    }
+
+    /**
+     * Returns the term, overdraft limit or 0 stored for the account in the specified
+     * slot.
+     * @param slot The record slot
+     * @return The term in months, or the overdraft limit in cents, or 0
+     */
+    private long extra(int slot) {
+        return chunk(slot).getLong(offset(slot) + EXTRA);
+    }
+
+    /**
+     * Returns the date on which the account in the specified slot was opened.
+     * @param slot The record slot
+     * @return The date opened
+     */
+    private LocalDate dateOpened(int slot) {
+        return LocalDate.ofEpochDay(chunk(slot).getLong(offset(slot) + OPENED));
+    }
+
+    /**
+     * Returns the maturity date of the CD account in the specified slot.
+     * @param slot The record slot
+     * @return The maturity date, as an epoch day
+     */
+    private long maturityDay(int slot) {
+        return chunk(slot).getLong(offset(slot) + MATURITY);
+    }
+
+    /**
+     * Returns the name of the holder of the account in the specified slot.
+     * @param slot The record slot
+     * @return The name; a new name, unless it's one kept in {@code overflowNames}
+     */
+    private Name name(int slot) {
+        ByteBuffer chunk = chunk(slot);
+        int at = offset(slot);
+        int first = chunk.get(at + FIRST_LENGTH) & 0xFF;
+        if (first == OVERFLOW) {
+            return overflowNames.get(slot);
+        }
+        int middle = chunk.get(at + MIDDLE_LENGTH), last = chunk.get(at + LAST_LENGTH);
+        byte[] bytes = new byte[first + middle + last];
+        chunk.get(at + NAME, bytes);
+        return new Name(new String(bytes, 0, first, StandardCharsets.ISO_8859_1),
+                new String(bytes, first, middle, StandardCharsets.ISO_8859_1),
+                new String(bytes, first + middle, last, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Marks the account in the specified slot as changed, if changes are being tracked.
+     * @param slot The record slot
+     */
+    private void markDirty(int slot) {
+        DirtyAccounts d = dirty;
+        if (d != null) {
+            d.mark(key(slot));
+        }
+    }
+
+    /**
+     * The list returned by {@code accounts}.
+     */
+    private final class Accounts extends AbstractList<BankAccount> implements RandomAccess {
+        @Override
+        public BankAccount get(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return view(order[i]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A view of a plain bank account's record.
+     */
+    private static final class BankView extends BankAccount {
+        /**
+         * The store the record is in.
+         */
+        private final OffHeapAccountStore store;
+
+        /**
+         * The record slot.
+         */
+        private final int slot;
+
+        /**
+         * Constructs a view of the record in the specified slot.
+         * @param store The store
+         * @param slot The record slot
+         */
+        BankView(OffHeapAccountStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return store.accountNumber(slot);
+        }
+
+        @Override
+        public long getBalanceCents() {
+            return store.balance(slot);
+        }
+
+        @Override
+        boolean compareAndSetBalance(long expected, long updated) {
+            return store.compareAndSetBalance(slot, expected, updated);
+        }
+
+        @Override
+        void setBalanceCents(long cents) {
+            store.setBalance(slot, cents);
+            markDirty();
+        }
+
+        @Override
+        LocalDate getDateOpened() {
+            return store.dateOpened(slot);
+        }
+
+        @Override
+        Name getName() {
+            return store.name(slot);
+        }
+
+        @Override
+        void markDirty() {
+            store.markDirty(slot);
+        }
+    }
+
+    /**
+     * A view of a checking account's record.
+     */
+    private static final class CheckingView extends CheckingAccount {
+        /**
+         * The store the record is in.
+         */
+        private final OffHeapAccountStore store;
+
+        /**
+         * The record slot.
+         */
+        private final int slot;
+
+        /**
+         * Constructs a view of the record in the specified slot.
+         * @param store The store
+         * @param slot The record slot
+         */
+        CheckingView(OffHeapAccountStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return store.accountNumber(slot);
+        }
+
+        @Override
+        public long getBalanceCents() {
+            return store.balance(slot);
+        }
+
+        @Override
+        boolean compareAndSetBalance(long expected, long updated) {
+            return store.compareAndSetBalance(slot, expected, updated);
+        }
+
+        @Override
+        void setBalanceCents(long cents) {
+            store.setBalance(slot, cents);
+            markDirty();
+        }
+
+        @Override
+        LocalDate getDateOpened() {
+            return store.dateOpened(slot);
+        }
+
+        @Override
+        Name getName() {
+            return store.name(slot);
+        }
+
+        @Override
+        void markDirty() {
+            store.markDirty(slot);
+        }
+
+        @Override
+        long getOverdraftLimitCents() {
+            return store.extra(slot);
+        }
+    }
+
+    /**
+     * A view of a CD account's record.
+     */
+    private static final class CDView extends CDAccount {
+        /**
+         * The store the record is in.
+         */
+        private final OffHeapAccountStore store;
+
+        /**
+         * The record slot.
+         */
+        private final int slot;
+
+        /**
+         * Constructs a view of the record in the specified slot.
+         * @param store The store
+         * @param slot The record slot
+         */
+        CDView(OffHeapAccountStore store, int slot) {
+            this.store = store;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getAccountNumber() {
+            return store.accountNumber(slot);
+        }
+
+        @Override
+        public long getBalanceCents() {
+            return store.balance(slot);
+        }
+
+        @Override
+        boolean compareAndSetBalance(long expected, long updated) {
+            return store.compareAndSetBalance(slot, expected, updated);
+        }
+
+        @Override
+        void setBalanceCents(long cents) {
+            store.setBalance(slot, cents);
+            markDirty();
+        }
+
+        @Override
+        LocalDate getDateOpened() {
+            return store.dateOpened(slot);
+        }
+
+        @Override
+        Name getName() {
+            return store.name(slot);
+        }
+
+        @Override
+        void markDirty() {
+            store.markDirty(slot);
+        }
+
+        @Override
+        Period getTerm() {
+            return Period.ofMonths((int) store.extra(slot));
+        }
+
+        @Override
+        long getMaturityDay() {
+            return store.maturityDay(slot);
+        }
+
+        @Override
+        BusinessDate getBusinessDate() {
+            return store.businessDate;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * The status codes reported for operations that don't throw exceptions, such as
+ * {@code tryDeposit} and {@code tryWithdraw} of {@code Bank} and {@code BankAccount},
+ * and the operations in a batch (see {@code Bank.applyBatch}).
+ */
+public final class OperationStatus {
+    /**
+     * The operation succeeded.
+     */
+    public static final byte OK = 0;
+
+    /**
+     * A withdrawal was declined because there were insufficient funds in the account.
+     */
+    public static final byte INSUFFICIENT = 1;
+
+    /**
+     * The amount was negative.
+     */
+    public static final byte NEGATIVE = 2;
+
+    /**
+     * A withdrawal was declined because the account is a CD account that is still
+     * during its term.
+     */
+    public static final byte TERM_LOCKED = 3;
+
+    /**
+     * There is no account with the specified account number.
+     */
+    public static final byte NO_ACCOUNT = 4;
+
+    /**
+     * A deposit was declined because the balance would have been too large to represent.
+     */
+    public static final byte OVERFLOW = 5;
+
+    /**
+     * This class only holds constants; it can't be instantiated.
+     */
+    private OperationStatus() {
+    }
+
+    /**
+     * Returns the name of the specified status code, such as "INSUFFICIENT".
+     * @param status A status code
+     * @return The name of the status code
+     */
+    public static String toString(byte status) {
+        switch (status) {
+            case OK:
+                return "OK";
+            case INSUFFICIENT:
+                return "INSUFFICIENT";
+            case NEGATIVE:
+                return "NEGATIVE";
+            case TERM_LOCKED:
+                return "TERM_LOCKED";
+            case NO_ACCOUNT:
+                return "NO_ACCOUNT";
+            case OVERFLOW:
+                return "OVERFLOW";
+            default:
+                return "UNKNOWN(" + status + ")";
+        }
+    }
+}
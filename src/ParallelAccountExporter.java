@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Writes accounts to a file in parallel. The accounts are split into ranges, and the
+ * ranges are formatted into in-memory buffers on a {@code ForkJoinPool} a wave at a
+ * time, one buffer per task. Each wave's buffers are written to the file in order with
+ * one gathering write, while the next wave is being formatted. The file is byte for
+ * byte the same as when the accounts are written sequentially.
+ * <p>
+ * Two sets of buffers are used in turn, so the memory used depends on the size of the
+ * pool and the range size, not on the number of accounts.
+ */
+final class ParallelAccountExporter {
+    /**
+     * The number of accounts in a range.
+     */
+    private static final int RANGE = 8192;
+
+    /**
+     * This class only has static methods; it can't be instantiated.
+     */
+    private ParallelAccountExporter() {
+    }
+
+    /**
+     * Writes the accounts to the channel, one per line, followed by a line separator, as
+     * {@code Bank.printToFile} does. The list must not change while this method runs.
+     * @param accounts The accounts
+     * @param channel The channel to write to, positioned where the first account goes
+     * @param pool The pool on which to format the ranges
+     * @throws IOException If the channel can't be written
+     */
+    static void write(List<BankAccount> accounts, FileChannel channel, ForkJoinPool pool) throws IOException {
+        int slots = Math.max(1, pool.getParallelism() * 2);
+        CsvWriter[][] writers = new CsvWriter[2][slots];
+        for (CsvWriter[] set : writers) {
+            for (int i = 0; i < slots; i++) {
+                set[i] = new CsvWriter();
+            }
+        }
+
+        int ranges = (accounts.size() + RANGE - 1) / RANGE;
+        CsvWriter[] previous = null;
+        int previousCount = 0;
+        for (int first = 0, wave = 0; first < ranges; first += slots, wave++) {
+            CsvWriter[] current = writers[wave & 1];
+            int count = Math.min(slots, ranges - first);
+            List<RecursiveAction> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                CsvWriter out = current[i];
+                int from = (first + i) * RANGE;
+                int to = Math.min(from + RANGE, accounts.size());
+                RecursiveAction task = new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        format(accounts, from, to, out);
+                    }
+                };
+                tasks.add(task);
+                pool.execute(task);
+            }
+
+            if (previous != null) {
+                writeAll(channel, previous, previousCount);
+            }
+            try {
+                for (RecursiveAction task : tasks) {
+                    task.join();
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            previous = current;
+            previousCount = count;
+        }
+        if (previous != null) {
+            writeAll(channel, previous, previousCount);
+        }
+
+        CsvWriter end = writers[0][0];
+        end.reset();
+        end.write(System.lineSeparator());
+        writeAll(channel, writers[0], 1);
+    }
+
+    /**
+     * Formats a range of accounts into a writer without a channel, one per line.
+     * @param accounts The accounts
+     * @param from The index of the first account of the range
+     * @param to The index after the last account of the range
+     * @param out The writer, which is reset first
+     */
+    private static void format(List<BankAccount> accounts, int from, int to, CsvWriter out) {
+        out.reset();
+        try {
+            for (int i = from; i < to; i++) {
+                accounts.get(i).writeCsv(out);
+                out.write('\n');
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Writes the contents of the first {@code count} writers to the channel, in order,
+     * with gathering writes.
+     * @param channel The channel
+     * @param writers The writers, which have no channel of their own
+     * @param count The number of writers to write
+     * @throws IOException If the channel can't be written
+     */
+    private static void writeAll(FileChannel channel, CsvWriter[] writers, int count) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = writers[i].buffer();
+        }
+        while (buffers[count - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+}
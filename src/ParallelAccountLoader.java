@@ -0,0 +1,225 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses an accounts file in parallel. The file is split into chunks at line
+ * boundaries, and the chunks are parsed at the same time on a {@code ForkJoinPool},
+ * each with its own {@code AccountLineParser}. The result is one {@code Chunk} per
+ * chunk, in file order, which the bank then merges sequentially; that way the first
+ * occurrence of an account number still wins, just as when loading sequentially.
+ */
+final class ParallelAccountLoader {
+    /**
+     * The smallest chunk worth handing to a separate task.
+     */
+    private static final long MIN_CHUNK = 1 << 20;
+
+    /**
+     * The outcome of parsing one chunk: the accounts its lines describe and the lines
+     * it rejected, each in line order. Line numbers are counted from the start of the
+     * chunk; positions are positions in the file.
+     */
+    static final class Chunk {
+        /**
+         * The accounts, in line order.
+         */
+        final ArrayList<BankAccount> accounts = new ArrayList<>();
+
+        /**
+         * The line numbers of the accounts.
+         */
+        long[] accountLines = new long[16];
+
+        /**
+         * The positions in the file of the accounts' lines.
+         */
+        long[] accountOffsets = new long[16];
+
+        /**
+         * The rejected lines.
+         */
+        final LoadRejects rejects = new LoadRejects();
+
+        /**
+         * For each rejected line, its account number as an index key, or -1 (see
+         * {@code AccountLineParser.lastKey}).
+         */
+        int[] rejectKeys = new int[16];
+
+        /**
+         * The number of lines in the chunk, including blank ones.
+         */
+        long lines;
+
+        /**
+         * Records an account.
+         * @param account The account
+         * @param lineNumber The line number within the chunk
+         * @param offset The position of the line in the file
+         */
+        private void addAccount(BankAccount account, long lineNumber, long offset) {
+            int i = accounts.size();
+            if (i == accountLines.length) {
+                accountLines = Arrays.copyOf(accountLines, i * 2);
+                accountOffsets = Arrays.copyOf(accountOffsets, i * 2);
+            }
+            accounts.add(account);
+            accountLines[i] = lineNumber;
+            accountOffsets[i] = offset;
+        }
+
+        /**
+         * Records a rejected line.
+         * @param lineNumber The line number within the chunk
+         * @param reason The reason code
+         * @param offset The position of the line in the file
+         * @param key The line's account number as an index key, or -1
+         */
+        private void addReject(long lineNumber, byte reason, long offset, int key) {
+            int i = rejects.size();
+            if (i == rejectKeys.length) {
+                rejectKeys = Arrays.copyOf(rejectKeys, i * 2);
+            }
+            rejects.add(lineNumber, reason, offset);
+            rejectKeys[i] = key;
+        }
+    }
+
+    /**
+     * This class only has static methods; it can't be instantiated.
+     */
+    private ParallelAccountLoader() {
+    }
+
+    /**
+     * Parses the specified file in parallel.
+     * @param file The file to parse
+     * @param pool The pool on which to parse the chunks
+     * @return The parsed chunks, in file order
+     * @throws IOException If the file can't be read
+     */
+    static List<Chunk> parse(File file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = split(channel, pool.getParallelism() * 4);
+
+            List<RecursiveTask<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i], to = bounds[i + 1];
+                tasks.add(new RecursiveTask<Chunk>() {
+                    @Override
+                    protected Chunk compute() {
+                        return parse(channel, from, to);
+                    }
+                });
+            }
+
+            for (RecursiveTask<Chunk> task : tasks) {
+                pool.execute(task);
+            }
+
+            List<Chunk> chunks = new ArrayList<>();
+            try {
+                for (RecursiveTask<Chunk> task : tasks) {
+                    chunks.add(task.join());
+                }
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * Parses the lines in one chunk of the file.
+     * @param channel The file
+     * @param from The position of the first byte of the chunk (the start of a line)
+     * @param to The position after the last byte of the chunk
+     * @return The parsed chunk
+     */
+    private static Chunk parse(FileChannel channel, long from, long to) {
+        AccountLineParser parser = new AccountLineParser();
+        Chunk chunk = new Chunk();
+        try {
+            chunk.lines = CsvLineReader.read(channel, from, to, 1, (buf, start, end, lineNumber, offset) -> {
+                BankAccount account = parser.parse(buf, start, end, null);
+                if (account != null) {
+                    chunk.addAccount(account, lineNumber, offset);
+                } else {
+                    chunk.addReject(lineNumber, parser.reason(), offset, parser.lastKey());
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return chunk;
+    }
+
+    /**
+     * Splits the file into about {@code parts} chunks, each starting at the beginning of
+     * a line.
+     * @param channel The file
+     * @param parts The desired number of chunks
+     * @return The chunk boundaries: chunk i runs from {@code bounds[i]} to {@code bounds[i + 1]}
+     * @throws IOException If the file can't be read
+     */
+    private static long[] split(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.max(MIN_CHUNK, size / parts + 1);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long boundary = nextLineStart(channel, position, window);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the first line that starts at or after {@code position}.
+     * @param channel The file
+     * @param position A position in the file
+     * @param window A buffer to read into
+     * @return The position just after the next {@code '\n'} at or after {@code position - 1},
+     *         or the size of the file if there is none
+     * @throws IOException If the file can't be read
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer window)
+            throws IOException {
+        long at = position - 1;
+        while (true) {
+            window.clear();
+            int n = channel.read(window, at);
+            if (n <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (window.get(i) == '\n') {
+                    return at + i + 1;
+                }
+            }
+            at += n;
+        }
+    }
+}
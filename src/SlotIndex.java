@@ -0,0 +1,106 @@
+/**
+ * A hash index from account numbers to record slots, for {@code OffHeapAccountStore}.
+ * <p>
+ * This is the same table as {@code AccountIndex}, but the values are {@code int}s, so
+ * the index holds no references at all: two primitive arrays, however many accounts
+ * there are.
+ */
+class SlotIndex extends IntKeyTable {
+    /**
+     * The value returned by {@code get} and {@code remove} for a key that isn't in the
+     * index.
+     */
+    static final int NONE = -1;
+
+    /**
+     * The record slots; {@code values[i]} is the record slot of the account whose key
+     * is in slot {@code i} of the table.
+     */
+    private int[] values;
+
+    /**
+     * Constructs an empty index.
+     */
+    SlotIndex() {
+        super(8);
+        values = new int[capacity()];
+    }
+
+    /**
+     * Returns the record slot of the account with the specified key.
+     * @param key The key (see {@code AccountIndex.toKey})
+     * @return The slot, or {@code NONE} if there is no such account
+     */
+    int get(int key) {
+        int i = find(key);
+        return i < 0 ? NONE : values[i];
+    }
+
+    /**
+     * Adds the specified record slot under the specified key, unless the key is already
+     * in the index.
+     * @param key The key (see {@code AccountIndex.toKey})
+     * @param value The record slot
+     * @return {@code true} if the slot was added, {@code false} if the key was already
+     *         in use
+     * @throws IllegalArgumentException If the key is negative
+     */
+    boolean putIfAbsent(int key, int value) {
+        int i = insert(key);
+        if (i < 0) {
+            return false;
+        }
+        values[i] = value;
+        return true;
+    }
+
+    /**
+     * Removes the entry with the specified key, if any.
+     * @param key The key (see {@code AccountIndex.toKey})
+     * @return The record slot removed, or {@code NONE} if there was none
+     */
+    int remove(int key) {
+        int i = find(key);
+        if (i < 0) {
+            return NONE;
+        }
+        int removed = values[i];
+        delete(i);
+        return removed;
+    }
+
+    /**
+     * Moves the value in one slot to another.
+     * @param from The slot the value is in
+     * @param to The slot to move it to
+     */
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    /**
+     * Drops the value in a slot that no longer holds a key.
+     * @param i The slot
+     */
+    @Override
+    void clearValue(int i) {
+        // an int holds nothing alive
+    }
+
+    /**
+     * Replaces the values with ones for a table of the specified capacity.
+     * @param capacity The new number of slots
+     * @param sources For each new slot, the old slot whose value goes there, or -1
+     */
+    @Override
+    void resizeValues(int capacity, int[] sources) {
+        int[] old = values;
+        values = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            if (sources[i] >= 0) {
+                values[i] = old[sources[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the heap used, and the time spent in garbage collection, by a bank that
+ * keeps its accounts as objects on the heap and by one that keeps them in off-heap
+ * records (see {@code Bank.offHeap}). A bank with the requested number of random
+ * accounts is built, then a full collection is forced several times, and the heap
+ * still in use and the time each collection took are printed. Finally a run of random
+ * deposits is made, and the number and total time of the collections during it are
+ * printed.
+ * <p>
+ * Usage: {@code java StoreBenchmark [accounts] [heap | offheap] [deposits]}. Run each
+ * layout in its own JVM, with the same heap settings (for example {@code -Xmx4g}).
+ */
+public class StoreBenchmark {
+    /**
+     * The number of forced full collections.
+     */
+    private static final int COLLECTIONS = 3;
+
+    /**
+     * Runs the benchmark.
+     * @param args The number of accounts, "heap" or "offheap" for the layout, and the
+     *             number of deposits to make
+     * @throws Exception If an account can't be created or deposited into
+     */
+    public static void main(String[] args) throws Exception {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean offHeap = args.length > 1 && args[1].equals("offheap");
+        int deposits = args.length > 2 ? Integer.parseInt(args[2]) : 10_000_000;
+
+        Bank bank = offHeap ? Bank.offHeap() : new Bank();
+        Random random = new Random(1);
+        for (int i = 0; i < accounts; i++) {
+            bank.addAccount(account(random, 10_000_000 + i));
+        }
+
+        for (int run = 1; run <= COLLECTIONS; run++) {
+            long start = System.nanoTime();
+            System.gc();
+            double millis = (System.nanoTime() - start) / 1e6;
+            Runtime runtime = Runtime.getRuntime();
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("%s, %,d accounts: full gc %d in %.1f ms, %,.1f MB heap used, %.1f bytes/account%n",
+                    offHeap ? "offheap" : "heap", accounts, run, millis, used / 1e6, (double) used / accounts);
+        }
+
+        long count = collections(), time = collectionTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < deposits; i++) {
+            bank.deposit(String.valueOf(10_000_000 + random.nextInt(accounts)), MonetaryValue.valueOf(100));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d deposits in %.3f s: %d collections, %,d ms in gc%n",
+                deposits, seconds, collections() - count, collectionTime() - time);
+    }
+
+    /**
+     * Creates a random account.
+     * @param random The random number generator
+     * @param number The account number
+     * @return The account
+     * @throws InvalidAccountNumberException Never; the account number is always valid
+     */
+    private static BankAccount account(Random random, int number) throws InvalidAccountNumberException {
+        String accountNumber = String.valueOf(number);
+        MonetaryValue balance = MonetaryValue.valueOf(random.nextInt(1_000_000));
+        LocalDate opened = LocalDate.ofEpochDay(10_000 + random.nextInt(9_000));
+        Name name = new Name("First" + random.nextInt(1000), random.nextBoolean() ? "Middle" : "",
+                "Last" + random.nextInt(10_000));
+        switch (random.nextInt(3)) {
+            case 0:
+                return new BankAccount(accountNumber, balance, opened, name);
+            case 1:
+                return new CDAccount(accountNumber, balance, opened, name, Period.ofMonths(1 + random.nextInt(60)));
+            default:
+                return new CheckingAccount(accountNumber, balance, opened, name, MonetaryValue.valueOf(random.nextInt(100_000)));
+        }
+    }
+
+    /**
+     * Returns the number of collections so far, by all collectors.
+     * @return The number of collections
+     */
+    private static long collections() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long count = 0;
+        for (GarbageCollectorMXBean bean : beans) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Returns the time spent in collections so far, by all collectors.
+     * @return The time, in milliseconds
+     */
+    private static long collectionTime() {
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        long time = 0;
+        for (GarbageCollectorMXBean bean : beans) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+}
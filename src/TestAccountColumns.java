@@ -0,0 +1,124 @@
+import java.io.File;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class TestAccountColumns {
+    public static void main(String[] args) throws Exception {
+        for (Bank bank : Arrays.asList(new Bank(), Bank.offHeap())) {
+            testTotals(bank);
+        }
+        testManyAccounts();
+        testDepositWhileClosing();
+        testFarDates();
+    }
+
+    private static void testTotals(Bank bank) throws Exception {
+        bank.addAccount(new BankAccount("33000001", new MonetaryValue(100.0), LocalDate.parse("2020-08-23"),
+                new Name("John", "Smith")));
+        bank.addAccount(new CheckingAccount("33000002", new MonetaryValue(10.0), LocalDate.parse("2021-01-15"),
+                new Name("Jane", "Doe"), new MonetaryValue(50.0)));
+        bank.addAccount(new CheckingAccount("33000003", new MonetaryValue(0.0), LocalDate.parse("2022-03-01"),
+                new Name("Wei", "Chen"), new MonetaryValue(25.0)));
+        bank.addAccount(new CDAccount("33000004", new MonetaryValue(500.0), LocalDate.parse("2019-05-01"),
+                new Name("Maria", "Garcia"), Period.ofMonths(12)));
+        bank.addAccount(new CDAccount("33000005", new MonetaryValue(250.0), LocalDate.parse("2019-06-01"),
+                new Name("Olga", "Ivanova"), Period.ofMonths(6)));
+        bank.addAccount(new CDAccount("33000006", new MonetaryValue(1000.0), LocalDate.parse("2018-01-01"),
+                new Name("Ahmed", "Khan"), Period.ofMonths(12)));
+
+        bank.withdraw("33000002", new MonetaryValue(40.0));
+        bank.transfer("33000003", "33000001", new MonetaryValue(20.0));
+        System.out.println(bank.getTotalBalance());                          // $1820.00
+        System.out.println(bank.getTotalOverdraft());                        // $50.00
+        System.out.println(bank.getTotalOverdraftLimit());                   // $75.00
+        System.out.println(bank.countCDAccountsByTerm());                    // {6=1, 12=2}
+        System.out.println(bank.countAccountsOpened(LocalDate.parse("2019-05-01"),
+                LocalDate.parse("2021-01-15")));                             // 4
+
+        bank.closeAccount("33000002");
+        bank.deposit("33000006", new MonetaryValue(1.0));
+        System.out.println(bank.getTotalBalance());                          // $1851.00
+        System.out.println(bank.getTotalOverdraft());                        // $20.00
+        System.out.println(bank.getTotalOverdraftLimit());                   // $25.00
+    }
+
+    private static void testManyAccounts() throws Exception {
+        Bank bank = new Bank();
+        long total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            bank.addAccount(new CheckingAccount(String.valueOf(34_000_000 + i), new MonetaryValue(i),
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe"), new MonetaryValue(100)));
+            total += i;
+        }
+        for (int i = 0; i < 50_000; i += 2) {
+            bank.closeAccount(String.valueOf(34_000_000 + i));
+            total -= i;
+        }
+        for (int i = 1; i < 50_000; i += 2) {
+            bank.withdraw(String.valueOf(34_000_000 + i), new MonetaryValue(i + 50));
+            total -= i + 50;
+        }
+        System.out.println(bank.getTotalBalance().getCents() == total);      // true
+        System.out.println(bank.getTotalOverdraft());                        // $12500.00
+    }
+
+    private static void testDepositWhileClosing() throws Exception {
+        Bank bank = new Bank();
+        AtomicReferenceArray<BankAccount> open = new AtomicReferenceArray<>(16);
+        for (int i = 0; i < open.length(); i++) {
+            open.set(i, new BankAccount(String.valueOf(34_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+            bank.addAccount(open.get(i));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] depositors = new Thread[4];
+        for (int t = 0; t < depositors.length; t++) {
+            int first = t;
+            depositors[t] = new Thread(() -> {
+                for (int i = first; !done.get(); i++) {
+                    open.get(i % open.length()).tryDepositCents(1);
+                }
+            });
+            depositors[t].start();
+        }
+        for (int n = 0; n < 20_000; n++) {
+            int i = n % open.length();
+            bank.closeAccount(String.valueOf(34_000_000 + i));
+            open.set(i, new BankAccount(String.valueOf(34_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+            bank.addAccount(open.get(i));
+        }
+        done.set(true);
+        for (Thread depositor : depositors) {
+            depositor.join();
+        }
+
+        long total = 0;
+        for (int i = 0; i < open.length(); i++) {
+            total += bank.getBalance(String.valueOf(34_000_000 + i)).getCents();
+        }
+        System.out.println(bank.getTotalBalance().getCents() == total);     // true
+    }
+
+    private static void testFarDates() throws Exception {
+        Bank bank = new Bank();
+        bank.addAccount(new BankAccount("35000001", new MonetaryValue(1.0), LocalDate.parse("+999999999-01-01"),
+                new Name("John", "Smith")));
+        System.out.println(bank.getTotalBalance());                          // $1.00
+        System.out.println(bank.countAccountsOpened(LocalDate.parse("+999999999-01-01"), LocalDate.MAX)); // 1
+
+        File file = new File("test_far_dates.csv");
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("BankAccount,12345678,1.0,+999999999-01-01,John Smith");
+        }
+        for (boolean parallel : new boolean[] {false, true}) {
+            Bank loaded = new Bank(file, parallel);
+            System.out.println(loaded.getBalance("12345678") + " " + loaded.getTotalBalance()); // $1.00 $1.00
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,80 @@
+import java.time.LocalDate;
+
+public class TestAccountIndex {
+    public static void main(String[] args) {
+        testToKey();
+        testPutAndGet();
+        testRemove();
+        testGrow();
+        testInvalidKeys();
+    }
+
+    private static void testToKey() {
+        System.out.println(AccountIndex.toKey("11112222"));  // 11112222
+        System.out.println(AccountIndex.toKey("00000042"));  // 42
+        System.out.println(AccountIndex.toKey("1111222"));   // -1
+        System.out.println(AccountIndex.toKey("1111222a"));  // -1
+    }
+
+    private static void testPutAndGet() {
+        AccountIndex index = new AccountIndex();
+        BankAccount account1 = account("11112222");
+        BankAccount account2 = account("22223333");
+
+        System.out.println(index.putIfAbsent(11112222, account1));   // true
+        System.out.println(index.putIfAbsent(22223333, account2));   // true
+        System.out.println(index.putIfAbsent(11112222, account2));   // false
+        System.out.println(index.get(11112222) == account1);         // true
+        System.out.println(index.get(33334444));                     // null
+        System.out.println(index.get(-1));                           // null
+    }
+
+    private static void testRemove() {
+        AccountIndex index = new AccountIndex();
+        for (int i = 0; i < 10; i++) {
+            index.putIfAbsent(i, account(String.format("%08d", i)));
+        }
+
+        System.out.println(index.remove(3).getAccountNumber());     // 00000003
+        System.out.println(index.remove(3));                         // null
+        System.out.println(index.size());                            // 9
+        System.out.println(index.get(7).getAccountNumber());        // 00000007
+    }
+
+    private static void testGrow() {
+        AccountIndex index = new AccountIndex();
+        BankAccount account = account("11112222");
+        for (int i = 0; i < 100_000; i++) {
+            index.putIfAbsent(10_000_000 + i * 7, account);
+        }
+
+        boolean found = true;
+        for (int i = 0; i < 100_000; i++) {
+            found &= index.get(10_000_000 + i * 7) == account;
+        }
+        System.out.println(found);                                   // true
+        System.out.println(index.size());                            // 100000
+    }
+
+    private static void testInvalidKeys() {
+        try {
+            new BankAccount("1111222\u0663", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"), new Name("Jane", "Doe"));
+        } catch (InvalidAccountNumberException e) {
+            System.out.println("rejected");                          // rejected
+        }
+        AccountIndex index = new AccountIndex();
+        try {
+            index.putIfAbsent(-1, account("11112222"));
+        } catch (IllegalArgumentException e) {
+            System.out.println(index.size());                        // 0
+        }
+    }
+
+    private static BankAccount account(String accountNumber) {
+        try {
+            return new BankAccount(accountNumber, MonetaryValue.ZERO, LocalDate.parse("2022-05-01"), new Name("Jane", "Doe"));
+        } catch (InvalidAccountNumberException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class TestAccountNumberAllocator {
+    public static void main(String[] args) throws InterruptedException {
+        testMarkUsed();
+        testRelease();
+        testAllocateIsUnique();
+        testRedrawOnCollision();
+        testConcurrentAllocate();
+    }
+
+    private static void testMarkUsed() {
+        AccountNumberAllocator allocator = new AccountNumberAllocator(new Random(33));
+        System.out.println(allocator.isUsed(11112222));     // false
+        System.out.println(allocator.markUsed(11112222));   // true
+        System.out.println(allocator.markUsed(11112222));   // false
+        System.out.println(allocator.isUsed(11112222));     // true
+        System.out.println(allocator.markUsed(42));         // true
+        System.out.println(allocator.isUsed(42));           // false
+    }
+
+    private static void testRelease() {
+        AccountNumberAllocator allocator = new AccountNumberAllocator(new Random(33));
+        int number = allocator.allocate();
+        System.out.println(allocator.isUsed(number));       // true
+        allocator.release(number);
+        System.out.println(allocator.isUsed(number));       // false
+    }
+
+    private static void testAllocateIsUnique() {
+        AccountNumberAllocator allocator = new AccountNumberAllocator(new Random(33));
+        Set<Integer> seen = new HashSet<>();
+        boolean ok = true;
+        for (int i = 0; i < 200_000; i++) {
+            int number = allocator.allocate();
+            ok &= number >= 10_000_000 && number <= 99_999_999 && seen.add(number);
+        }
+        System.out.println(ok);                             // true
+    }
+
+    private static void testRedrawOnCollision() {
+        // the numbers the old loop drew: nextInt(max - min) + min, redrawn while taken
+        Random old = new Random(33);
+        int first = old.nextInt(99_999_999 - 10_000_000) + 10_000_000;
+        int second = old.nextInt(99_999_999 - 10_000_000) + 10_000_000;
+
+        AccountNumberAllocator allocator = new AccountNumberAllocator(new Random(33));
+        allocator.markUsed(first);
+        System.out.println(allocator.allocate() == second); // true
+    }
+
+    private static void testConcurrentAllocate() throws InterruptedException {
+        AccountNumberAllocator allocator = new AccountNumberAllocator(new Random(33));
+        int threads = 4, perThread = 50_000;
+        int[][] results = new int[threads][perThread];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int[] out = results[t];
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    out[i] = allocator.allocate();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        for (int[] out : results) {
+            for (int number : out) {
+                seen.add(number);
+            }
+        }
+        System.out.println(seen.size() == threads * perThread); // true
+    }
+}
@@ -0,0 +1,73 @@
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestApplyBatch {
+    public static void main(String[] args) {
+        testApplyBatch(false);
+        testApplyBatch(true);
+        testLargeParallelBatch();
+    }
+
+    private static Bank createBank() {
+        Bank bank = new Bank();
+        try {
+            bank.addAccount(new BankAccount("11112222", new MonetaryValue(15000), LocalDate.parse("2020-08-23"), new Name("John", "Adam", "Smith")));
+            bank.addAccount(new CheckingAccount("22223333", new MonetaryValue(20000), LocalDate.parse("2021-07-14"), new Name("Dane", "Doe"), new MonetaryValue(5000)));
+            bank.addAccount(new CDAccount("33334444", new MonetaryValue(30000), LocalDate.now(), new Name("John", "Adam", "Smith"), Period.ofMonths(6)));
+        } catch (InvalidAccountNumberException | DuplicateAccountNumberException e) {
+            System.out.println("An exception should not occur here");
+        }
+        return bank;
+    }
+
+    private static void testApplyBatch(boolean parallel) {
+        Bank bank = createBank();
+        List<BankOperation> batch = List.of(
+            BankOperation.withdrawal("11112222", new MonetaryValue(20000)),   // INSUFFICIENT
+            BankOperation.deposit("11112222", new MonetaryValue(10000)),      // OK
+            BankOperation.withdrawal("11112222", new MonetaryValue(20000)),   // OK, after the deposit
+            BankOperation.withdrawal("22223333", new MonetaryValue(22500)),   // OK, uses the overdraft
+            BankOperation.deposit("22223333", new MonetaryValue(-100)),       // NEGATIVE
+            BankOperation.withdrawal("33334444", new MonetaryValue(100)),     // TERM_LOCKED
+            BankOperation.deposit("99999999", new MonetaryValue(100)),        // NO_ACCOUNT
+            BankOperation.deposit("1111222", new MonetaryValue(100)));        // NO_ACCOUNT
+
+        byte[] results = bank.applyBatch(batch, parallel);
+        StringBuilder line = new StringBuilder();
+        for (byte result : results) {
+            line.append(OperationStatus.toString(result)).append(' ');
+        }
+        System.out.println(line.toString().trim());
+
+        try {
+            System.out.println(bank.getBalance("11112222"));  // $50.00
+            System.out.println(bank.getBalance("22223333"));  // $-25.00
+        } catch (NonexistentAccountException e) {
+            System.out.println("A NonexistentAccountException should not occur here");
+        }
+    }
+
+    private static void testLargeParallelBatch() {
+        Bank bank = createBank();
+        List<BankOperation> batch = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            batch.add(BankOperation.deposit(i % 2 == 0 ? "11112222" : "22223333", new MonetaryValue(1)));
+        }
+
+        byte[] results = bank.applyBatch(batch.stream(), true);
+        int ok = 0;
+        for (byte result : results) {
+            ok += result == OperationStatus.OK ? 1 : 0;
+        }
+        System.out.println(ok);  // 100000
+
+        try {
+            System.out.println(bank.getBalance("11112222"));  // $650.00
+            System.out.println(bank.getBalance("22223333"));  // $700.00
+        } catch (NonexistentAccountException e) {
+            System.out.println("A NonexistentAccountException should not occur here");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+public class TestCentsParser {
+    public static void main(String[] args) {
+        testExactValues();
+        testByteRange();
+        testMalformed();
+    }
+
+    private static void testExactValues() {
+        System.out.println(CentsParser.parseCents("150.0"));     // 15000
+        System.out.println(CentsParser.parseCents("0.29"));      // 29
+        System.out.println(CentsParser.parseCents("-59.70"));    // -5970
+        System.out.println(CentsParser.parseCents("1.0E7"));     // 1000000000
+        System.out.println(CentsParser.parseCents("12"));        // 1200
+        System.out.println(MonetaryValue.parse("0.29"));         // $0.29
+        System.out.println(new MonetaryValue(0.29));             // $0.29
+    }
+
+    private static void testByteRange() {
+        byte[] line = "BankAccount,11112222,150.25,2020-08-23".getBytes();
+        System.out.println(CentsParser.parseCents(line, 21, 27)); // 15025
+        System.out.println(CentsParser.parseCents("x,-0.5,y", 2, 6)); // -50
+    }
+
+    private static void testMalformed() {
+        String[] inputs = {"", "-", "abc", "1.2.3", "1.005", "1e", "100000000000000000000"};
+        for (String input : inputs) {
+            try {
+                CentsParser.parseCents(input);
+                System.out.println("A NumberFormatException should occur here");
+            } catch (NumberFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TestCheckpoint {
+    private static final File SNAPSHOT = new File("test_checkpoint_snapshot.bin");
+    private static final File CHECKPOINTS = new File("test_checkpoint.bin");
+    private static final File JOURNAL = new File("test_checkpoint_journal.bin");
+
+    public static void main(String[] args) throws Exception {
+        deleteFiles();
+        testIncremental();
+        deleteFiles();
+        testBackground();
+        deleteFiles();
+        testDirtyAccounts();
+        testCompaction();
+        deleteFiles();
+    }
+
+    private static void testIncremental() throws Exception {
+        Bank bank = new Bank();
+        for (int i = 0; i < 1000; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(60_000_000 + i), new MonetaryValue(10_000),
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+        bank.saveSnapshot(SNAPSHOT);
+        bank.openJournal(JOURNAL);
+        bank.startCheckpoints(CHECKPOINTS, 1, TimeUnit.HOURS);
+
+        BankAccount direct = new BankAccount("70000001", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("John", "Smith"));
+        bank.deposit("60000001", new MonetaryValue(5.0));
+        bank.transfer("60000002", "60000003", new MonetaryValue(1.0));
+        bank.closeAccount("60000004");
+        bank.addAccount(new CDAccount("70000000", new MonetaryValue(50_000), LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Q", "Doe"), Period.ofMonths(12)));
+        bank.addAccount(direct);
+        System.out.println(bank.checkpoint());                                     // 6
+        System.out.println(JOURNAL.exists());                                      // false
+        System.out.println(Journal.segment(JOURNAL, 1).exists());                  // true
+        System.out.println(bank.checkpoint());                                     // 0
+
+        // a change made on the account itself isn't journaled, but is still checkpointed
+        direct.deposit(new MonetaryValue(7.0));
+        bank.deposit("60000001", new MonetaryValue(1.0));
+        System.out.println(bank.checkpoint());                                     // 2
+        System.out.println(CHECKPOINTS.length() < SNAPSHOT.length() / 10);         // true
+
+        // only in the journal
+        bank.withdraw("60000005", new MonetaryValue(2.0));
+        bank.closeAccount("70000000");
+
+        Bank recovered = Bank.recover(SNAPSHOT, CHECKPOINTS, JOURNAL);
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.println(recovered.getBalance("70000001"));                      // $7.00
+        System.out.println(recovered.getBalance("60000001"));                      // $106.00
+        recovered.closeJournal();
+        bank.stopCheckpoints();
+        bank.closeJournal();
+    }
+
+    private static void testBackground() throws Exception {
+        Bank bank = new Bank();
+        for (int i = 0; i < 16; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(50_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+        bank.saveSnapshot(SNAPSHOT);
+        bank.openJournal(JOURNAL);
+        bank.startCheckpoints(CHECKPOINTS, 2, TimeUnit.MILLISECONDS);
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 400; i++) {
+                    try {
+                        bank.deposit(String.valueOf(50_000_000 + i % 16), new MonetaryValue(1));
+                    } catch (NegativeMonetaryValueException | NonexistentAccountException e) {
+                        System.out.println("An exception should not occur here");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        bank.stopCheckpoints();
+
+        Bank recovered = Bank.recover(SNAPSHOT, CHECKPOINTS, JOURNAL);
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.println(recovered.getBalance("50000000"));                      // $2.00
+        recovered.closeJournal();
+        bank.closeJournal();
+    }
+
+    private static void testDirtyAccounts() {
+        DirtyAccounts dirty = new DirtyAccounts();
+        for (int key : new int[] {64, 0, 99_999_999, 63, 64, 12_345_678}) {
+            dirty.mark(key);
+        }
+        System.out.println(taken(dirty));                                          // [0, 63, 64, 12345678, 99999999]
+        System.out.println(taken(dirty));                                          // []
+        dirty.mark(5);
+        dirty.clear();
+        System.out.println(taken(dirty));                                          // []
+    }
+
+    private static List<Integer> taken(DirtyAccounts dirty) {
+        List<Integer> keys = new ArrayList<>();
+        for (int s = 0; s < dirty.summaryWords(); s++) {
+            for (long words = dirty.takeSummary(s); words != 0; words &= words - 1) {
+                int word = (s << 6) + Long.numberOfTrailingZeros(words);
+                for (long bits = dirty.take(word); bits != 0; bits &= bits - 1) {
+                    keys.add((word << 6) + Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void testCompaction() throws Exception {
+        Bank bank = new Bank();
+        for (int i = 0; i < 100; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(60_000_000 + i), new MonetaryValue(10_000),
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+        bank.saveSnapshot(SNAPSHOT);
+        bank.openJournal(JOURNAL);
+        bank.startCheckpoints(SNAPSHOT, CHECKPOINTS, 1, TimeUnit.HOURS);
+
+        List<Long> written = new ArrayList<>();
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 40; i++) {
+                bank.deposit(String.valueOf(60_000_000 + i), new MonetaryValue(1.0));
+            }
+            written.add(bank.checkpoint());
+        }
+        System.out.println(written);                                               // [40, 40, 40, 100]
+        System.out.println(CHECKPOINTS.length());                                  // 0
+        System.out.println(Checkpointer.compacted(SNAPSHOT).exists());             // false
+
+        bank.deposit("60000099", new MonetaryValue(1.0));
+        bank.closeAccount("60000098");
+        System.out.println(bank.checkpoint());                                     // 2
+        bank.withdraw("60000000", new MonetaryValue(2.0));
+        Bank recovered = Bank.recover(SNAPSHOT, CHECKPOINTS, JOURNAL);
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.println(recovered.getBalance("60000000"));                      // $102.00
+        recovered.closeJournal();
+        bank.stopCheckpoints();
+
+        // a compaction that stopped after its snapshot was on disk
+        bank.closeAccount("60000097");
+        bank.saveSnapshot(Checkpointer.compacted(SNAPSHOT));
+        recovered = Bank.recover(SNAPSHOT, CHECKPOINTS, JOURNAL);
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.println(CHECKPOINTS.exists() + " " + Checkpointer.compacted(SNAPSHOT).exists()); // false false
+        recovered.closeJournal();
+        bank.closeJournal();
+    }
+
+    private static void deleteFiles() {
+        for (File file : new File(".").listFiles()) {
+            if (file.getName().startsWith("test_checkpoint")) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConcurrentBank {
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws InterruptedException {
+        testConcurrentDeposits();
+        testConcurrentAddAccount();
+        testConcurrentWithdrawals();
+    }
+
+    private static void testConcurrentDeposits() throws InterruptedException {
+        Bank bank = new Bank();
+        for (int i = 0; i < 16; i++) {
+            addQuietly(bank, account(10_000_000 + i));
+        }
+
+        runInParallel(t -> {
+            for (int i = 0; i < 20_000; i++) {
+                try {
+                    bank.deposit(String.valueOf(10_000_000 + i % 16), new MonetaryValue(1));
+                } catch (NegativeMonetaryValueException | NonexistentAccountException e) {
+                    System.out.println("An exception should not occur here");
+                }
+            }
+        });
+
+        try {
+            System.out.println(bank.getBalance("10000000"));  // $100.00
+            System.out.println(bank.getBalance("10000015"));  // $100.00
+        } catch (NonexistentAccountException e) {
+            System.out.println("A NonexistentAccountException should not occur here");
+        }
+    }
+
+    private static void testConcurrentAddAccount() throws InterruptedException {
+        Bank bank = new Bank();
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+
+        runInParallel(t -> {
+            for (int i = 0; i < 1000; i++) {
+                try {
+                    bank.addAccount(account(20_000_000 + i));
+                    added.incrementAndGet();
+                } catch (DuplicateAccountNumberException e) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+
+        System.out.println(added.get());       // 1000
+        System.out.println(duplicates.get());  // 7000
+    }
+
+    private static void testConcurrentWithdrawals() throws InterruptedException {
+        BankAccount account;
+        try {
+            account = new CheckingAccount("30000000", new MonetaryValue(1000), LocalDate.parse("2022-05-01"), new Name("Jane", "Doe"), new MonetaryValue(500));
+        } catch (InvalidAccountNumberException e) {
+            throw new IllegalStateException(e);
+        }
+        AtomicInteger declined = new AtomicInteger();
+
+        runInParallel(t -> {
+            for (int i = 0; i < 1000; i++) {
+                try {
+                    account.withdraw(new MonetaryValue(1));
+                } catch (NegativeMonetaryValueException e) {
+                    System.out.println("A NegativeMonetaryValueException should not occur here");
+                } catch (InsufficientFundsException e) {
+                    declined.incrementAndGet();
+                }
+            }
+        });
+
+        System.out.println(account.getBalance());  // $-5.00
+        System.out.println(declined.get());        // 6500
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void runInParallel(Worker worker) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> worker.run(thread));
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static BankAccount account(int accountNumber) {
+        try {
+            return new BankAccount(String.valueOf(accountNumber), MonetaryValue.ZERO, LocalDate.parse("2022-05-01"), new Name("Jane", "Doe"));
+        } catch (InvalidAccountNumberException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void addQuietly(Bank bank, BankAccount account) {
+        try {
+            bank.addAccount(account);
+        } catch (DuplicateAccountNumberException e) {
+            System.out.println("A DuplicateAccountNumberException should not occur here");
+        }
+    }
+}
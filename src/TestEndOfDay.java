@@ -0,0 +1,107 @@
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestEndOfDay {
+    private static final MonthEndRates RATES = new MonthEndRates(new int[] {1, 12, 36}, new int[] {100, 250, 400},
+            2500, 1800);
+
+    public static void main(String[] args) throws Exception {
+        testBusinessDate();
+        testSeparateBanks();
+        testRollover();
+        testFailure();
+    }
+
+    private static void testBusinessDate() throws Exception {
+        BusinessDate date = new BusinessDate();
+        System.out.println(date.get().equals(LocalDate.now()));                       // true
+        date.set(LocalDate.parse("2026-01-30"));
+        System.out.println(date.advance());                                           // 2026-01-31
+        System.out.println(new BankAccount(new Name("Jane", "Doe")).getDateOpened().equals(LocalDate.now())); // true
+
+        date.follow(Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC));
+        System.out.println(date.get());                                               // 2026-03-01
+        System.out.println(new BusinessDate(Clock.fixed(Instant.parse("2026-04-01T00:00:00Z"), ZoneOffset.UTC)).get()); // 2026-04-01
+        try {
+            BusinessDate.SYSTEM.set(LocalDate.parse("2026-01-30"));
+        } catch (UnsupportedOperationException e) {
+            System.out.println(e.getMessage());                                       // This business date always follows the system clock
+        }
+    }
+
+    private static void testSeparateBanks() throws Exception {
+        BusinessDate early = new BusinessDate();
+        early.set(LocalDate.parse("2026-01-30"));
+        BusinessDate late = new BusinessDate();
+        late.set(LocalDate.parse("2026-02-01"));
+        List<String> statuses = new ArrayList<>();
+        for (Bank bank : new Bank[] {new Bank(early), new Bank(late), Bank.offHeap(early), Bank.offHeap(late)}) {
+            bank.addAccount(new CDAccount("40000001", new MonetaryValue(1000.0), LocalDate.parse("2025-10-31"),
+                    new Name("Jane", "Doe"), Period.ofMonths(3)));
+            statuses.add(OperationStatus.toString(bank.tryWithdrawCents("40000001", 100)));
+        }
+        System.out.println(statuses);                               // [TERM_LOCKED, OK, TERM_LOCKED, OK]
+        System.out.println(early.get() + " " + late.get());         // 2026-01-30 2026-02-01
+    }
+
+    private static void testRollover() throws Exception {
+        File directory = new File("test_eod");
+        directory.mkdir();
+        Bank bank = new Bank();
+        bank.getBusinessDate().set(LocalDate.parse("2026-01-30"));
+        CDAccount cd = new CDAccount("40000001", new MonetaryValue(1000.0), LocalDate.parse("2025-10-31"),
+                new Name("Jane", "Doe"), Period.ofMonths(3));
+        bank.addAccount(cd);
+        bank.addAccount(new CheckingAccount("40000002", new MonetaryValue(-100.0), LocalDate.parse("2025-10-31"),
+                new Name("Jane", "Doe"), new MonetaryValue(100.0)));
+        EndOfDay eod = new EndOfDay(bank, RATES, directory, Duration.ofHours(1));
+
+        try {
+            bank.withdraw("40000001", new MonetaryValue(10.0));
+        } catch (WithdrawalDuringTermException e) {
+            System.out.println(e.getEndDate());                     // 2026-01-31
+        }
+
+        EndOfDayReport report = eod.rollover();
+        System.out.println(report.getDate() + " " + report.getMatured() + " " + report.getMonthEnd()); // 2026-01-30 1 null
+        System.out.println(bank.getBusinessDate().get());           // 2026-01-31
+        bank.withdraw("40000001", new MonetaryValue(10.0));
+        System.out.println(bank.getBalance("40000001"));            // $990.00
+
+        report = eod.rollover();
+        System.out.println(report.getDate() + " " + report.getMatured()); // 2026-01-31 0
+        System.out.println(report.getMonthEnd());                   // interest $0.82 to 1 accounts, fees $26.50 from 1 accounts
+        System.out.println(report.isWithinWindow());                // true
+        System.out.println(report.getTime(EndOfDay.Stage.SNAPSHOT).compareTo(report.getTotalTime()) <= 0); // true
+
+        File statements = new File(directory, "statements-2026-01-31.csv");
+        File snapshot = new File(directory, "snapshot-2026-01-31.bin");
+        System.out.println(statements.length() > 0);                // true
+        System.out.println(Bank.loadSnapshot(snapshot).getBalance("40000002")); // $-126.50
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static void testFailure() throws Exception {
+        Bank bank = new Bank();
+        bank.getBusinessDate().set(LocalDate.parse("2026-02-10"));
+        EndOfDay eod = new EndOfDay(bank, RATES, new File("no_such_directory"), Duration.ofHours(1));
+        try {
+            eod.rollover();
+        } catch (IOException e) {
+            System.out.println(e.getClass().getSimpleName());       // FileNotFoundException
+        }
+        System.out.println(bank.getBusinessDate().get());           // 2026-02-11
+    }
+}
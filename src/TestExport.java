@@ -0,0 +1,54 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestExport {
+    public static void main(String[] args) throws IOException {
+        testSameAsToString(new Bank(new File("input_accounts.csv")));
+        testSameAsToString(randomBank(200_000));
+        testSameAsToString(new Bank());
+    }
+
+    private static void testSameAsToString(Bank bank) throws IOException {
+        File file = new File("test_export.csv");
+        file.deleteOnExit();
+        byte[] expected = (bank.toString() + System.lineSeparator()).getBytes();
+        bank.printToFile(file.getPath());
+        System.out.println(Arrays.equals(Files.readAllBytes(file.toPath()), expected));   // true
+        bank.printToFile(file.getPath(), true);
+        System.out.println(Arrays.equals(Files.readAllBytes(file.toPath()), expected));   // true (parallel)
+    }
+
+    // balances from cents to 10^13 dollars, names with and without middle names
+    private static Bank randomBank(int accounts) {
+        Bank bank = new Bank();
+        Random random = new Random(3);
+        String[] names = {"Jane", "Doe", "", "Zo\u00eb", "Smith"};
+        for (int i = 0; i < accounts; i++) {
+            String number = String.valueOf(10_000_000 + i);
+            long cents = (random.nextLong() % 1_000_000_000_000_000L) / (long) Math.pow(10, random.nextInt(16));
+            MonetaryValue balance = new MonetaryValue(cents);
+            LocalDate opened = LocalDate.ofEpochDay(random.nextInt(40_000) - 10_000);
+            Name name = new Name(names[random.nextInt(5)], names[random.nextInt(5)], names[random.nextInt(5)]);
+            try {
+                switch (i % 3) {
+                    case 0:
+                        bank.addAccount(new BankAccount(number, balance, opened, name));
+                        break;
+                    case 1:
+                        bank.addAccount(new CDAccount(number, balance, opened, name, Period.ofMonths(random.nextInt(60))));
+                        break;
+                    default:
+                        bank.addAccount(new CheckingAccount(number, balance, opened, name, new MonetaryValue(random.nextInt(100_000))));
+                }
+            } catch (InvalidAccountNumberException | DuplicateAccountNumberException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return bank;
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestJournal {
+    private static final File JOURNAL = new File("test_journal.bin");
+    private static final File SNAPSHOT = new File("test_journal_snapshot.bin");
+
+    public static void main(String[] args) throws Exception {
+        JOURNAL.deleteOnExit();
+        SNAPSHOT.deleteOnExit();
+        testReplay();
+        testTornRecord();
+        testConcurrentDeposits();
+        testCloseWhileDepositing();
+    }
+
+    private static void testReplay() throws Exception {
+        JOURNAL.delete();
+        Bank bank = new Bank(new File("input_accounts.csv"));
+        System.out.println(bank.openJournal(JOURNAL));                             // 0
+        bank.deposit("11112222", new MonetaryValue(100.0));
+        bank.withdraw("22223333", new MonetaryValue(225.0));
+        try {
+            bank.withdraw("11112222", new MonetaryValue(1000.0));
+        } catch (InsufficientFundsException e) {
+            System.out.println(e.getMessage());                                    // $250.00 is less than $1000.00
+        }
+        bank.transfer("11112222", "33334444", new MonetaryValue(50.0));
+        bank.addAccount(new CheckingAccount("44445555", new MonetaryValue(10.0), LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Q", "Doe"), new MonetaryValue(20.0)));
+        bank.closeAccount("33334444");
+        bank.applyBatch(Arrays.asList(BankOperation.deposit("44445555", new MonetaryValue(5.0)),
+                BankOperation.withdrawal("44445555", new MonetaryValue(1.0))));
+
+        // the first bank is never closed, as if the program had crashed
+        Bank recovered = new Bank(new File("input_accounts.csv"));
+        System.out.println(recovered.openJournal(JOURNAL));                        // 6
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.print(recovered);
+        recovered.closeJournal();
+    }
+
+    private static void testTornRecord() throws Exception {
+        Bank before = new Bank(new File("input_accounts.csv"));
+        before.openJournal(JOURNAL);
+        String expected = before.toString();
+        before.closeJournal();
+
+        try (FileOutputStream out = new FileOutputStream(JOURNAL, true)) {
+            out.write(new byte[] {0, 0, 0, 12, 1, 0, 0});                           // a record cut short
+        }
+        Bank after = new Bank(new File("input_accounts.csv"));
+        System.out.println(after.openJournal(JOURNAL));                            // 6
+        System.out.println(after.toString().equals(expected));                     // true
+        after.deposit("44445555", new MonetaryValue(1.0));
+        after.closeJournal();
+
+        Bank again = new Bank(new File("input_accounts.csv"));
+        System.out.println(again.openJournal(JOURNAL));                            // 7
+        System.out.println(again.getBalance("44445555"));                          // $15.00
+        again.closeJournal();
+    }
+
+    private static void testConcurrentDeposits() throws Exception {
+        JOURNAL.delete();
+        Bank bank = new Bank();
+        for (int i = 0; i < 16; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(50_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+        bank.saveSnapshot(SNAPSHOT);
+        bank.openJournal(JOURNAL);
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 400; i++) {
+                    try {
+                        bank.deposit(String.valueOf(50_000_000 + i % 16), new MonetaryValue(1));
+                    } catch (NegativeMonetaryValueException | NonexistentAccountException e) {
+                        System.out.println("An exception should not occur here");
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Bank recovered = Bank.recover(SNAPSHOT, JOURNAL);
+        System.out.println(recovered.toString().equals(bank.toString()));          // true
+        System.out.println(recovered.getBalance("50000000"));                      // $2.00
+        recovered.closeJournal();
+        bank.closeJournal();
+    }
+
+    private static void testCloseWhileDepositing() throws Exception {
+        Bank bank = new Bank();
+        for (int i = 0; i < 16; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(50_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+
+        AtomicInteger failures = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; !done.get(); i++) {
+                    try {
+                        bank.deposit(String.valueOf(50_000_000 + i % 16), new MonetaryValue(1));
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (int i = 0; i < 200; i++) {
+            JOURNAL.delete();
+            bank.openJournal(JOURNAL);
+            Thread.sleep(1);
+            bank.closeJournal();
+        }
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(failures.get());                                        // 0
+    }
+}
@@ -0,0 +1,54 @@
+import java.time.LocalDate;
+
+public class TestLargeMonetaryValue {
+    public static void main(String[] args) {
+        testLargeValues();
+        testCompareToDoesNotOverflow();
+        testOverflowIsDetected();
+        testValueOfSharesSmallValues();
+        testPrimitiveDepositAndWithdraw();
+    }
+
+    private static void testLargeValues() {
+        MonetaryValue mv = new MonetaryValue(2_000_000_000L).plus(new MonetaryValue(2_000_000_000L));
+        System.out.println(mv);                                    // $40000000.00
+        System.out.println(mv.getCents());                         // 4000000000
+        System.out.println(new MonetaryValue(-5970));              // $-59.70
+    }
+
+    private static void testCompareToDoesNotOverflow() {
+        MonetaryValue big = new MonetaryValue(Long.MAX_VALUE);
+        MonetaryValue small = new MonetaryValue(Long.MIN_VALUE);
+        System.out.println(big.compareTo(small) > 0);              // true
+        System.out.println(small.compareTo(big) < 0);              // true
+    }
+
+    private static void testOverflowIsDetected() {
+        try {
+            new MonetaryValue(Long.MAX_VALUE).plus(new MonetaryValue(1));
+            System.out.println("An ArithmeticException should occur here");
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());                    // long overflow
+        }
+    }
+
+    private static void testValueOfSharesSmallValues() {
+        System.out.println(MonetaryValue.valueOf(0) == MonetaryValue.ZERO);         // true
+        System.out.println(MonetaryValue.valueOf(500) == MonetaryValue.valueOf(500)); // true
+        System.out.println(MonetaryValue.valueOf(12_345_678).equals(new MonetaryValue(12_345_678))); // true
+    }
+
+    private static void testPrimitiveDepositAndWithdraw() {
+        try {
+            BankAccount account = new BankAccount("11112222", MonetaryValue.ZERO, LocalDate.parse("2022-04-23"), new Name("John", "Doe"));
+            account.depositCents(3_000_000_000_00L);
+            account.withdrawCents(1L);
+            System.out.println(account.getBalanceCents());         // 299999999999
+            account.withdrawCents(-1L);
+        } catch (NegativeMonetaryValueException e) {
+            System.out.println(e);                                 // NegativeMonetaryValueException: $-0.01
+        } catch (InvalidAccountNumberException | InsufficientFundsException e) {
+            System.out.println("An exception should not occur here");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+public class TestLoadRejects {
+    public static void main(String[] args) throws IOException {
+        testInputFile();
+        testReasons();
+    }
+
+    private static void testInputFile() throws IOException {
+        Bank bank = new Bank(new File("input_accounts.csv"));
+        LoadRejects rejects = bank.getLoadRejects();
+        System.out.println(rejects.size());                                  // 7
+        System.out.println(rejects.count(LoadRejects.DUPLICATE));            // 1
+        System.out.println(rejects.count(LoadRejects.BAD_ACCOUNT_NUMBER));   // 3
+        System.out.println(rejects.count(LoadRejects.BAD_NAME));             // 2
+        System.out.println(rejects.count(LoadRejects.BAD_TYPE));             // 1
+        System.out.println(rejects.lineNumber(0) + " " + rejects.offset(0)); // 4 167
+        System.out.println(Files.readAllLines(new File("input_accounts.csv.rejects").toPath()));
+        // [line,offset,reason, 4,167,DUPLICATE, 5,226,BAD_ACCOUNT_NUMBER, ...]
+    }
+
+    private static void testReasons() throws IOException {
+        File file = new File("test_rejects.csv");
+        file.deleteOnExit();
+        new File(file.getPath() + ".rejects").deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("BankAccount,11112222,150.0,2020-08-23,John Adam Smith");
+            out.println("CDAccount,33334444,300.0,2022-01-01,John Adam Smith");
+            out.println("");
+            out.println("BankAccount,44445555,1.005,2020-08-23,John Smith");
+            out.println("BankAccount,44445555,100.0,2020-02-30,John Smith");
+            out.println("CDAccount,55556666,300.0,2022-01-01,John Smith,six");
+            out.println("CheckingAccount,66667777,300.0,2022-01-01,John Smith,5O.0");
+            out.println("CheckingAccount,11112222,300.0,2022-01-01,John,50.0");
+            out.println("CDAccount,77778888,300.0,2022-01-01,John Smith,+6");
+        }
+
+        for (boolean parallel : new boolean[] {false, true}) {
+            LoadRejects rejects = new Bank(file, parallel).getLoadRejects();
+            StringBuilder reasons = new StringBuilder();
+            for (int i = 0; i < rejects.size(); i++) {
+                reasons.append(rejects.lineNumber(i)).append('=')
+                        .append(LoadRejects.toString(rejects.reason(i))).append(' ');
+            }
+            // 2=MISSING_FIELDS 4=BAD_BALANCE 5=BAD_DATE 6=BAD_TERM 7=BAD_OVERDRAFT 8=DUPLICATE
+            System.out.println(reasons.toString().trim());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestMaturity {
+    public static void main(String[] args) throws Exception {
+        testWithdrawal();
+        testProcessMaturities();
+        testSchedule();
+    }
+
+    private static void testWithdrawal() throws Exception {
+        LocalDate today = LocalDate.now();
+        CDAccount matured = new CDAccount("38000001", new MonetaryValue(100.0), today.minusMonths(6),
+                new Name("Jane", "Doe"), Period.ofMonths(6));
+        CDAccount locked = new CDAccount("38000002", new MonetaryValue(100.0), today.minusMonths(6).plusDays(1),
+                new Name("Jane", "Doe"), Period.ofMonths(6));
+        matured.withdraw(new MonetaryValue(10.0));
+        System.out.println(matured.getBalance());                            // $90.00
+        try {
+            locked.withdraw(new MonetaryValue(10.0));
+        } catch (WithdrawalDuringTermException e) {
+            System.out.println(e.getEndDate().isAfter(today));               // true
+        }
+    }
+
+    private static void testProcessMaturities() throws Exception {
+        LocalDate start = LocalDate.now().minusMonths(1);
+        CDAccount second = cd("39000001", start.plusDays(2));
+        CDAccount first = cd("39000002", start.plusDays(1));
+        LocalDate date = LocalDate.ofEpochDay(second.getMaturityDay());
+
+        Bank bank = new Bank();
+        List<String> events = new ArrayList<>();
+        bank.addMaturityListener((accounts, on) -> {
+            StringBuilder event = new StringBuilder(on.equals(date) ? "on date:" : "on ?:");
+            for (CDAccount account : accounts) {
+                event.append(' ').append(account.getAccountNumber());
+            }
+            events.add(event.toString());
+        });
+
+        bank.addAccount(second);
+        bank.addAccount(first);
+        bank.addAccount(cd("39000003", start.plusMonths(2)));
+        bank.addAccount(cd("39000004", start.plusDays(1)));
+        bank.addAccount(cd("39000005", start.minusDays(1)));
+        bank.closeAccount("39000004");
+        bank.addAccount(new BankAccount("39000004", MonetaryValue.ZERO, start, new Name("Jane", "Doe")));
+
+        System.out.println(bank.processMaturities().size());                 // 0
+        System.out.println(bank.processMaturities(date).size());             // 2
+        System.out.println(bank.processMaturities(date).size());             // 0
+        System.out.println(events);                                          // [on date: 39000002 39000001]
+    }
+
+    private static void testSchedule() {
+        MaturitySchedule schedule = new MaturitySchedule();
+        long[] days = {20_000, 19_000, 20_000, -5, 21_000, 19_500};
+        for (int i = 0; i < days.length; i++) {
+            schedule.add(days[i], 40_000_000 + i);
+        }
+        StringBuilder due = new StringBuilder();
+        for (long entry : schedule.takeDue(20_000)) {
+            due.append(MaturitySchedule.day(entry)).append('/').append(MaturitySchedule.key(entry) - 40_000_000).append(' ');
+        }
+        System.out.println(due.toString().trim());                           // -5/3 19000/1 19500/5 20000/0 20000/2
+        System.out.println(schedule.size());                                 // 1
+    }
+
+    private static CDAccount cd(String accountNumber, LocalDate opened) throws InvalidAccountNumberException {
+        return new CDAccount(accountNumber, new MonetaryValue(100.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(1));
+    }
+}
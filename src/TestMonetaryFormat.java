@@ -0,0 +1,125 @@
+import java.lang.management.ManagementFactory;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Random;
+
+public class TestMonetaryFormat {
+    private static final long[] EDGES = {
+        0, 1, -1, 9, 10, 29, -2550, 5970, -5970, 15000, 99_999_999_999L, 999_999_999, 1_000_000_000,
+        -1_000_000_000, 1_234_500_000, 10_000_000_000_001L, 999_999_999_999_999L, 1_000_000_000_000_000L,
+        -1_000_000_000_000_000L, Long.MAX_VALUE, Long.MIN_VALUE,
+    };
+
+    public static void main(String[] args) throws Exception {
+        testExamples();
+        testAgainstStrings();
+        testBuffers();
+        testAccounts();
+        testAllocation();
+    }
+
+    private static void testExamples() {
+        System.out.println(new MonetaryValue(-5970));                                      // $-59.70
+        System.out.println(new MonetaryValue(-5970).appendTo(new StringBuilder("balance ")));  // balance $-59.70
+        System.out.println(new MonetaryValue(Long.MIN_VALUE));                             // $-92233720368547758.08
+        StringBuilder line = new StringBuilder();
+        for (long cents : new long[] {15000, -2550, 29, 1_000_000_000, 1_234_500_000}) {
+            new MonetaryValue(cents).appendDecimalTo(line).append(' ');
+        }
+        System.out.println(line.toString().trim());                                        // 150.0 -25.5 0.29 1.0E7 1.2345E7
+    }
+
+    private static void testAgainstStrings() {
+        Random random = new Random(42);
+        int mismatches = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            long cents = i < EDGES.length ? EDGES[i] : random.nextLong() >> random.nextInt(64);
+            MonetaryValue value = new MonetaryValue(cents);
+            if (!value.toString().equals(oldToString(cents))
+                    || !value.appendDecimalTo(new StringBuilder()).toString().equals(Double.toString(cents / 100.0))) {
+                mismatches++;
+            }
+        }
+        System.out.println(mismatches); // 0
+    }
+
+    private static void testBuffers() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        int mismatches = 0;
+        for (long cents : EDGES) {
+            buffer.clear();
+            new MonetaryValue(cents).writeTo(buffer).put((byte) ',');
+            new MonetaryValue(cents).writeDecimalTo(buffer);
+            String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+            if (!text.equals(oldToString(cents) + "," + cents / 100.0)) {
+                mismatches++;
+            }
+        }
+        System.out.println(mismatches); // 0
+
+        ByteBuffer small = ByteBuffer.allocate(8);
+        small.put((byte) '>');
+        try {
+            new MonetaryValue(-123_456_789).writeTo(small);
+        } catch (BufferOverflowException e) {
+            System.out.println(small.position()); // 1
+        }
+        new MonetaryValue(-5970).writeDecimalTo(small);
+        System.out.println(new String(small.array(), 0, small.position(), StandardCharsets.US_ASCII)); // >-59.7
+    }
+
+    private static void testAccounts() throws Exception {
+        Bank bank = new Bank();
+        bank.addAccount(new BankAccount("11112222", new MonetaryValue(150.0), LocalDate.parse("2020-08-23"),
+                new Name("John", "Adam", "Smith")));
+        bank.addAccount(new CheckingAccount("22223333", new MonetaryValue(-59.7), LocalDate.parse("2021-07-14"),
+                new Name("Dane", "Doe"), new MonetaryValue(100.0)));
+        bank.addAccount(new CDAccount("33334444", new MonetaryValue(12_345_678.9), LocalDate.parse("2022-01-03"),
+                new Name("Zoe", "Doe"), Period.ofMonths(6)));
+        System.out.print(bank);
+        // BankAccount,11112222,150.0,2020-08-23,John Adam Smith
+        // CheckingAccount,22223333,-59.7,2021-07-14,Dane Doe,100.0
+        // CDAccount,33334444,1.23456789E7,2022-01-03,Zoe Doe,6
+        System.out.println(bank.fetchaccount(22223333)); // CheckingAccount,22223333,-59.7,2021-07-14,Dane Doe,100.0
+
+        BankAccount accented = new BankAccount("44445555", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Zo\u00eb", "Doe"));
+        bank.addAccount(accented);
+        System.out.println(bank.fetchaccount(44445555).toString().endsWith(",Zo\u00eb Doe")); // true
+    }
+
+    private static void testAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MonetaryValue[] values = new MonetaryValue[EDGES.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new MonetaryValue(EDGES[i] / 10_000);
+        }
+        StringBuilder text = new StringBuilder(64);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long length = 0;
+        for (int round = 0; round < 2; round++) {
+            long thread = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 1_000_000; i++) {
+                MonetaryValue value = values[i % values.length];
+                text.setLength(0);
+                buffer.clear();
+                value.appendDecimalTo(value.appendTo(text));
+                value.writeDecimalTo(value.writeTo(buffer));
+                length += text.length() + buffer.position();
+            }
+            if (round == 1) {
+                System.out.println(length > 0);                                              // true
+                System.out.println(threads.getThreadAllocatedBytes(thread) - before < 64 * 1024); // true
+            }
+        }
+    }
+
+    private static String oldToString(long cents) {
+        long dollarsPart = Math.abs(cents / 100), centsPart = Math.abs(cents % 100);
+        return "$" + (cents < 0 ? "-" : "") + dollarsPart + "." + (centsPart < 10 ? "0" : "") + centsPart;
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestMonthEnd {
+    private static final MonthEndRates RATES = new MonthEndRates(new int[] {1, 12, 36}, new int[] {100, 250, 400},
+            2500, 1800);
+
+    public static void main(String[] args) throws Exception {
+        for (Bank bank : Arrays.asList(new Bank(), Bank.offHeap())) {
+            testRates(bank);
+        }
+        testRounding();
+        testJournal();
+        testInvalidRates();
+        testReplacedAccounts();
+        testOverflow();
+    }
+
+    private static void testRates(Bank bank) throws Exception {
+        LocalDate opened = LocalDate.parse("2020-01-01");
+        bank.addAccount(new CDAccount("35000001", new MonetaryValue(1000.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(12)));
+        bank.addAccount(new CDAccount("35000002", new MonetaryValue(500.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(6)));
+        bank.addAccount(new CDAccount("35000003", new MonetaryValue(10000.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(60)));
+        bank.addAccount(new CheckingAccount("35000004", new MonetaryValue(-100.0), opened, new Name("Jane", "Doe"),
+                new MonetaryValue(100.0)));
+        bank.addAccount(new CheckingAccount("35000005", new MonetaryValue(20.0), opened, new Name("Jane", "Doe"),
+                new MonetaryValue(100.0)));
+        bank.addAccount(new BankAccount("35000006", new MonetaryValue(30.0), opened, new Name("Jane", "Doe")));
+
+        System.out.println(bank.applyMonthEnd(RATES));  // interest $35.83 to 3 accounts, fees $26.50 from 1 accounts
+        System.out.println(bank.getBalance("35000001")); // $1002.08
+        System.out.println(bank.getBalance("35000002")); // $500.42
+        System.out.println(bank.getBalance("35000003")); // $10033.33
+        System.out.println(bank.getBalance("35000004")); // $-126.50
+        System.out.println(bank.getBalance("35000005")); // $20.00
+        System.out.println(bank.getBalance("35000006")); // $30.00
+    }
+
+    private static void testRounding() throws Exception {
+        Bank bank = new Bank();
+        LocalDate opened = LocalDate.parse("2020-01-01");
+        bank.addAccount(new CDAccount("36000001", new MonetaryValue(6.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(6)));
+        bank.addAccount(new CDAccount("36000002", new MonetaryValue(18.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(6)));
+        bank.addAccount(new CDAccount("36000003", MonetaryValue.valueOf(100_000_000_000_000_000L), opened,
+                new Name("Jane", "Doe"), Period.ofMonths(60)));
+        bank.applyMonthEnd(RATES);
+        System.out.println(bank.getBalance("36000001")); // $6.00
+        System.out.println(bank.getBalance("36000002")); // $18.02
+        System.out.println(bank.getBalance("36000003").getCents() - 100_000_000_000_000_000L); // 333333333333333
+    }
+
+    private static void testJournal() throws Exception {
+        File journal = new File("test_month_end_journal.bin");
+        journal.delete();
+        Bank bank = new Bank();
+        bank.openJournal(journal);
+        bank.addAccount(new CDAccount("37000001", new MonetaryValue(1000.0), LocalDate.parse("2020-01-01"),
+                new Name("Jane", "Doe"), Period.ofMonths(12)));
+        bank.applyMonthEnd(RATES);
+        bank.closeJournal();
+
+        Bank recovered = new Bank();
+        recovered.openJournal(journal);
+        System.out.println(recovered.getBalance("37000001")); // $1002.08
+        recovered.closeJournal();
+        journal.delete();
+    }
+
+    private static void testInvalidRates() {
+        try {
+            new MonthEndRates(new int[] {12, 6}, new int[] {100, 200}, 0, 0);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage()); // CD tiers must be in increasing order, with rates of 0 or more
+        }
+    }
+
+    private static void testReplacedAccounts() throws Exception {
+        Bank bank = new Bank();
+        LocalDate opened = LocalDate.parse("2020-01-01");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean wrong = new AtomicBoolean();
+        Thread swapper = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    for (int i = 0; i < 64; i++) {
+                        String number = String.valueOf(38_000_000 + i);
+                        bank.closeAccount(number);
+                        bank.addAccount(new CheckingAccount(number, new MonetaryValue(5.0), opened,
+                                new Name("Jane", "Doe"), MonetaryValue.ZERO));
+                        BankAccount checking = bank.closeAccount(number);
+                        wrong.compareAndSet(false, checking.getBalanceCents() != 500);
+                        bank.addAccount(new CDAccount(number, new MonetaryValue(1000.0), opened,
+                                new Name("Jane", "Doe"), Period.ofMonths(12)));
+                    }
+                }
+            } catch (Exception e) {
+                wrong.set(true);
+            }
+        });
+        for (int i = 0; i < 64; i++) {
+            bank.addAccount(new CDAccount(String.valueOf(38_000_000 + i), new MonetaryValue(1000.0), opened,
+                    new Name("Jane", "Doe"), Period.ofMonths(12)));
+        }
+        swapper.start();
+        for (int i = 0; i < 2000; i++) {
+            bank.applyMonthEnd(RATES);
+        }
+        done.set(true);
+        swapper.join();
+        System.out.println(wrong.get()); // false
+    }
+
+    private static void testOverflow() throws Exception {
+        Bank bank = new Bank();
+        LocalDate opened = LocalDate.parse("2020-01-01");
+        bank.addAccount(new CDAccount("39000001", MonetaryValue.valueOf(Long.MAX_VALUE - 100), opened,
+                new Name("Jane", "Doe"), Period.ofMonths(60)));
+        bank.addAccount(new CDAccount("39000002", new MonetaryValue(1000.0), opened, new Name("Jane", "Doe"),
+                Period.ofMonths(12)));
+        System.out.println(bank.applyMonthEnd(RATES));  // interest $2.08 to 1 accounts, fees $0.00 from 0 accounts, 1 skipped
+        System.out.println(bank.getBalance("39000001").getCents() == Long.MAX_VALUE - 100); // true
+    }
+}
@@ -0,0 +1,103 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TestNameArena {
+    private static final String PETROV = "\u041f\u0435\u0442\u0440\u043e\u0432";
+
+    public static void main(String[] args) throws Exception {
+        testViews();
+        testSorting();
+        testFallback();
+        testProbes();
+        testBank();
+    }
+
+    private static void testViews() {
+        NameArena arena = new NameArena();
+        NameView john = arena.root().at(arena.intern(new Name("John", "Adam", "Smith")));
+        NameView jane = arena.root().at(arena.intern(new Name("Jane", "Doe")));
+        System.out.println(john + "|" + john.getFirst() + "|" + john.getMiddle() + "|" + john.getLast()); // John Adam Smith|John|Adam|Smith
+        System.out.println(jane + "|" + jane.getMiddle().isEmpty() + "|" + jane.getLast()); // Jane Doe|true|Doe
+        System.out.println(arena.intern(new Name("John", "Adam", "Smith")) == john.offset()); // true
+        System.out.println(arena.intern(john) == john.offset());                 // true
+        System.out.println(arena.size());                                        // 2
+        System.out.println(john.equals(new Name("John", "Adam", "Smith"))
+                && new Name("John", "Adam", "Smith").equals(john));              // true
+        System.out.println(john.hashCode() == new Name("John", "Adam", "Smith").hashCode()
+                && jane.hashCode() == new Name("Jane", "Doe").hashCode());       // true
+        System.out.println(arena.root().at(arena.intern(new Name("Zo\u00eb", "Doe"))).getFirst().equals("Zo\u00eb")); // true
+        try {
+            john.setFirst("Jack");
+        } catch (UnsupportedOperationException e) {
+            System.out.println(e.getMessage());                                  // A name in an arena can't be changed
+        }
+    }
+
+    private static void testSorting() {
+        Name[] plain = {
+            new Name("John", "Darren", "Doe"), new Name("John", "Doe"), new Name("Jane", "Doe"),
+            new Name("Al", "Smith"), new Name("Alan", "Smith"), new Name("Jean", "Zola"),
+            new Name("\u00c9lodie", "Abel"), new Name("John", "Adam", "Doe"),
+        };
+        NameArena arena = new NameArena();
+        List<Name> views = new ArrayList<>();
+        for (Name name : plain) {
+            views.add(arena.root().at(arena.intern(name)));
+        }
+        Arrays.sort(plain);
+        views.sort(null);
+        System.out.println(Arrays.asList(plain).equals(views));                  // true
+        System.out.println(views.get(views.size() - 1));                         // Jean Zola
+        System.out.println(views.get(0).compareTo(new Name("Jean", "Zola")) < 0); // true
+    }
+
+    private static void testFallback() {
+        NameArena arena = new NameArena();
+        System.out.println(arena.intern(new Name("Ivan", PETROV)));            // -1
+        char[] longName = new char[256];
+        Arrays.fill(longName, 'a');
+        System.out.println(arena.intern(new Name(new String(longName), "Doe"))); // -1
+        System.out.println(arena.size());                                        // 0
+    }
+
+    private static void testProbes() {
+        Random random = new Random(7);
+        boolean found = true;
+        for (int trial = 0; trial < 50; trial++) {
+            NameArena arena = new NameArena();
+            List<Name> names = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                Name name = new Name(letters(random, 1 + random.nextInt(20)), letters(random, 1 + random.nextInt(60)));
+                names.add(name);
+                found &= arena.root().at(arena.intern(name)).equals(name);
+            }
+            for (Name name : names) {
+                found &= arena.root().at(arena.intern(name)).equals(name);
+            }
+        }
+        System.out.println(found);                                               // true
+    }
+
+    private static String letters(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    private static void testBank() throws Exception {
+        Bank bank = new Bank();
+        bank.addAccount(new BankAccount("41000001", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Doe")));
+        bank.addAccount(new BankAccount("41000002", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Ivan", PETROV)));
+        System.out.println(bank.fetchaccount(41000001).getName() instanceof NameView); // true
+        System.out.println(bank.fetchaccount(41000002).getName() instanceof NameView); // false
+        System.out.println(bank.fetchaccount(41000002).getName().getLast().equals(PETROV)); // true
+        System.out.println(bank.fetchaccount(41000001));                          // BankAccount,41000001,0.0,2022-05-01,Jane Doe
+    }
+}
@@ -0,0 +1,93 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestNamePool {
+    public static void main(String[] args) throws Exception {
+        testPool();
+        testBank();
+        testChurn();
+        testReadWhileRebuilding();
+    }
+
+    private static void testPool() {
+        NamePool pool = new NamePool();
+        Name john = pool.intern(new Name("John", "Adam", "Smith"));
+        Name dane = new Name("Dane", new String("Smith"));
+        System.out.println(pool.intern(new Name("John", "Adam", "Smith")) == john); // true
+        Name pooled = pool.intern(dane);
+        System.out.println(pooled == dane);                                      // false
+        System.out.println(pooled.getLast() == john.getLast());                  // true
+        System.out.println(dane.getLast() == john.getLast());                    // false
+        dane.setLast("Jones");
+        System.out.println(pool.intern(new Name("Dane", "Smith")) == pooled);    // true
+        System.out.println(pooled);                                              // Dane Smith
+        System.out.println(new Name("Jane", "Doe").hashCode() == new Name("Jane", "Doe").hashCode()); // true
+        System.out.println(pool.size());                                         // 2
+    }
+
+    private static void testBank() throws Exception {
+        Bank bank = new Bank(new File("input_accounts.csv"));
+        BankAccount first = bank.fetchaccount(11112222);
+        BankAccount cd = bank.fetchaccount(33334444);
+        System.out.println(offset(first) == offset(cd));                         // true
+
+        BankAccount added = new BankAccount("77778888", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Dane", "Doe"));
+        bank.addAccount(added);
+        System.out.println(offset(added) == offset(bank.fetchaccount(22223333))); // true
+        System.out.println(added.getName());                                     // Dane Doe
+        new File("input_accounts.csv.rejects").delete();
+    }
+
+    private static void testChurn() throws Exception {
+        Bank bank = new Bank();
+        for (int i = 0; i < 5000; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(50_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Holder" + i, "Doe")));
+            bank.closeAccount(String.valueOf(50_000_000 + i));
+        }
+        BankAccount kept = new BankAccount("59999999", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Doe"));
+        bank.addAccount(kept);
+        BankAccount other = new BankAccount("59999998", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Doe"));
+        bank.addAccount(other);
+        System.out.println(offset(kept) == offset(other));                       // true
+        System.out.println(bank.getBalance("59999999"));                         // $0.00
+    }
+
+    private static void testReadWhileRebuilding() throws Exception {
+        Bank bank = new Bank();
+        BankAccount kept = new BankAccount("69999999", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                new Name("Jane", "Q", "Public"));
+        bank.addAccount(kept);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger wrong = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                try {
+                    if (!kept.getName().toString().equals("Jane Q Public")) {
+                        wrong.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    wrong.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50_000; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(60_000_000 + i), MonetaryValue.ZERO,
+                    LocalDate.parse("2022-05-01"), new Name("Holder" + i, "Doe")));
+            bank.closeAccount(String.valueOf(60_000_000 + i));
+        }
+        done.set(true);
+        reader.join();
+        System.out.println(wrong.get());                                         // 0
+    }
+
+    private static int offset(BankAccount account) {
+        return ((NameView) account.getName()).offset();
+    }
+}
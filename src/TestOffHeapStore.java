@@ -0,0 +1,150 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TestOffHeapStore {
+    public static void main(String[] args) throws Exception {
+        testSameAsHeap();
+        testAccounts();
+        testJournal();
+        testCloseOrder();
+        testFarDates();
+    }
+
+    private static void testSameAsHeap() throws Exception {
+        Bank heap = new Bank();
+        Bank offHeap = Bank.offHeap();
+        for (Bank bank : Arrays.asList(heap, offHeap)) {
+            for (BankAccount account : accounts()) {
+                bank.addAccount(account);
+            }
+            bank.deposit("31000001", new MonetaryValue(25.5));
+            bank.withdraw("31000002", new MonetaryValue(130.0));
+            bank.transfer("31000001", "31000004", new MonetaryValue(10.0));
+            bank.closeAccount("31000003");
+            bank.addAccount(new BankAccount("31000005", new MonetaryValue(7.0), LocalDate.parse("2023-03-03"),
+                    new Name("Ana", "Lima")));
+        }
+        System.out.println(offHeap.toString().equals(heap.toString()));   // true
+        System.out.print(offHeap);
+        System.out.println(offHeap.getBalance("31000002"));                // $-30.00
+        System.out.println(((CDAccount) offHeap.fetchaccount(31000004)).getMaturityDay()
+                == ((CDAccount) heap.fetchaccount(31000004)).getMaturityDay()); // true
+
+        try {
+            offHeap.withdraw("31000004", new MonetaryValue(1.0));
+        } catch (WithdrawalDuringTermException e) {
+            System.out.println("WithdrawalDuringTermException");           // WithdrawalDuringTermException
+        }
+        try {
+            offHeap.withdraw("31000002", new MonetaryValue(20.01));
+        } catch (InsufficientFundsException e) {
+            System.out.println(e);                                         // InsufficientFundsException: $-30.00 is less than $20.01
+        }
+        try {
+            offHeap.addAccount(new BankAccount("31000001", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                    new Name("Jane", "Doe")));
+        } catch (DuplicateAccountNumberException e) {
+            System.out.println(e);                                         // DuplicateAccountNumberException: 31000001
+        }
+    }
+
+    private static void testAccounts() throws Exception {
+        Bank bank = Bank.offHeap();
+        BankAccount added = new CheckingAccount("32000001", new MonetaryValue(5.0), LocalDate.parse("2022-05-01"),
+                new Name("Zo\u00eb", "", "\u738b"), new MonetaryValue(50.0));
+        bank.addAccount(added);
+        added.deposit(new MonetaryValue(1.0));
+        System.out.println(bank.getBalance("32000001"));                   // $5.00
+
+        BankAccount closed = bank.closeAccount("32000001");
+        System.out.println(closed.equals(new CheckingAccount("32000001", new MonetaryValue(5.0),
+                LocalDate.parse("2022-05-01"), new Name("Zo\u00eb", "", "\u738b"), new MonetaryValue(50.0)))); // true
+        closed.deposit(new MonetaryValue(1.0));
+        System.out.println(closed.getBalance());                           // $6.00
+
+        for (int i = 0; i < 70_000; i++) {
+            bank.addAccount(new BankAccount(String.valueOf(40_000_000 + i), new MonetaryValue(i),
+                    LocalDate.parse("2022-05-01"), new Name("Jane", "Doe")));
+        }
+        System.out.println(bank.getBalance("40069999"));                   // $699.99
+        bank.closeAccount("40000000");
+        System.out.println(bank.toString().startsWith("BankAccount,40069999,")); // true
+    }
+
+    private static void testJournal() throws Exception {
+        File journal = new File("test_offheap_journal.bin");
+        journal.delete();
+        Bank bank = Bank.offHeap();
+        bank.openJournal(journal);
+        for (BankAccount account : accounts()) {
+            bank.addAccount(account);
+        }
+        bank.deposit("31000001", new MonetaryValue(3.0));
+        bank.closeAccount("31000002");
+        bank.closeJournal();
+
+        Bank recovered = Bank.offHeap();
+        System.out.println(recovered.openJournal(journal));                // 6
+        System.out.println(recovered.toString().equals(bank.toString()));  // true
+        recovered.closeJournal();
+        journal.delete();
+    }
+
+    private static List<BankAccount> accounts() throws InvalidAccountNumberException {
+        return Arrays.asList(
+                new BankAccount("31000001", new MonetaryValue(100.0), LocalDate.parse("2020-08-23"),
+                        new Name("John", "Adam", "Smith")),
+                new CheckingAccount("31000002", new MonetaryValue(100.0), LocalDate.parse("2021-01-15"),
+                        new Name("Jane", "Doe"), new MonetaryValue(50.0)),
+                new BankAccount("31000003", MonetaryValue.ZERO, LocalDate.parse("2019-02-28"),
+                        new Name("Bartholomew", "Alexander", "Montgomery-Fitzwilliam")),
+                new CDAccount("31000004", new MonetaryValue(500.0), LocalDate.now(),
+                        new Name("Maria", "Garcia"), Period.ofMonths(12)));
+    }
+
+    private static void testCloseOrder() throws Exception {
+        Bank heap = new Bank();
+        Bank offHeap = Bank.offHeap();
+        Set<String> open = new HashSet<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            String number = String.valueOf(50_000_000 + random.nextInt(1000));
+            if (open.contains(number) && random.nextInt(3) == 0) {
+                heap.closeAccount(number);
+                offHeap.closeAccount(number);
+                open.remove(number);
+            } else if (open.add(number)) {
+                for (Bank bank : Arrays.asList(heap, offHeap)) {
+                    bank.addAccount(new BankAccount(number, new MonetaryValue(i), LocalDate.parse("2022-05-01"),
+                            new Name("Jane", "Doe")));
+                }
+            }
+        }
+        System.out.println(offHeap.toString().equals(heap.toString()));   // true
+        System.out.println(heap.getTotalBalance().equals(offHeap.getTotalBalance())); // true
+    }
+
+    private static void testFarDates() throws Exception {
+        Bank heap = new Bank();
+        Bank offHeap = Bank.offHeap();
+        for (Bank bank : Arrays.asList(heap, offHeap)) {
+            bank.addAccount(new BankAccount("33000001", new MonetaryValue(1.0), LocalDate.parse("+999999999-01-01"),
+                    new Name("John", "Smith")));
+            bank.addAccount(new CDAccount("33000002", new MonetaryValue(2.0), LocalDate.parse("-999999999-01-01"),
+                    new Name("Jane", "Doe"), Period.ofMonths(12)));
+        }
+        System.out.println(offHeap.toString().equals(heap.toString()));   // true
+        System.out.println(offHeap.fetchaccount(33000001).getDateOpened()); // +999999999-01-01
+        System.out.println(((CDAccount) offHeap.fetchaccount(33000002)).getMaturityDay()
+                == ((CDAccount) heap.fetchaccount(33000002)).getMaturityDay()); // true
+        System.out.println(offHeap.getTotalBalance());                     // $3.00
+        BankAccount closed = offHeap.closeAccount("33000001");
+        System.out.println(closed.getDateOpened());                        // +999999999-01-01
+    }
+}
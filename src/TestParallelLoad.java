@@ -0,0 +1,58 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.Random;
+
+public class TestParallelLoad {
+    public static void main(String[] args) throws IOException {
+        testSameAsSequential(new File("input_accounts.csv"));
+        testSameAsSequential(generate(300_000));
+    }
+
+    private static void testSameAsSequential(File file) {
+        String[] sequential = load(file, false);
+        String[] parallel = load(file, true);
+        System.out.println(sequential[0].equals(parallel[0]));   // true (same messages, same order)
+        System.out.println(sequential[1].equals(parallel[1]));   // true (same accounts, same order)
+        System.out.println(sequential[2].equals(parallel[2]));   // true (same rejects, same order)
+    }
+
+    private static String[] load(File file, boolean parallel) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(messages));
+        Bank bank;
+        try {
+            bank = new Bank(file, parallel);
+        } finally {
+            System.setOut(console);
+        }
+        StringBuilder rejects = new StringBuilder();
+        LoadRejects loadRejects = bank.getLoadRejects();
+        for (int i = 0; i < loadRejects.size(); i++) {
+            rejects.append(loadRejects.lineNumber(i)).append(',').append(loadRejects.offset(i)).append(',')
+                    .append(LoadRejects.toString(loadRejects.reason(i))).append('\n');
+        }
+        return new String[] {messages.toString(), bank.toString(), rejects.toString()};
+    }
+
+    // about 15 MB, with duplicate account numbers far apart and some bad lines
+    private static File generate(int lines) throws IOException {
+        File file = File.createTempFile("accounts", ".csv");
+        file.deleteOnExit();
+        new File(file.getPath() + ".rejects").deleteOnExit();
+        Random random = new Random(7);
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (int i = 0; i < lines; i++) {
+                int number = 10_000_000 + random.nextInt(lines);
+                String name = random.nextInt(50) == 0 ? "Cher" : "Jane Q Doe";
+                String date = random.nextInt(50) == 0 ? "2020-13-01" : "2020-08-23";
+                out.println("CheckingAccount," + number + "," + random.nextInt(100_000) / 100.0 + ","
+                        + date + "," + name + ",50.0");
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,59 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.time.Period;
+
+public class TestSnapshot {
+    public static void main(String[] args) throws IOException {
+        testRoundTrip();
+        testNotASnapshot();
+    }
+
+    private static void testRoundTrip() throws IOException {
+        Bank bank = new Bank(new File("input_accounts.csv"));
+        try {
+            bank.addAccount(new CheckingAccount("00000042", new MonetaryValue(-1234), LocalDate.parse("1969-12-31"),
+                    new Name("Zo\u00eb", "", "\u738b"), new MonetaryValue(5000)));
+            bank.addAccount(new CDAccount("99999999", new MonetaryValue(Long.MAX_VALUE), LocalDate.parse("2022-01-01"),
+                    new Name("Jane", "Doe"), Period.ofMonths(18)));
+        } catch (InvalidAccountNumberException | DuplicateAccountNumberException e) {
+            System.out.println("An exception should not occur here");
+        }
+
+        File file = new File("test_snapshot.bin");
+        file.deleteOnExit();
+        bank.saveSnapshot(file);
+        Bank loaded = Bank.loadSnapshot(file);
+        System.out.println(loaded.toString().equals(bank.toString()));   // true
+        System.out.print(loaded);
+        try {
+            System.out.println(loaded.getBalance("00000042"));           // $-12.34
+            loaded.addAccount(new BankAccount("11112222", MonetaryValue.ZERO, LocalDate.parse("2022-05-01"),
+                    new Name("Jane", "Doe")));
+        } catch (NonexistentAccountException | InvalidAccountNumberException e) {
+            System.out.println("An exception should not occur here");
+        } catch (DuplicateAccountNumberException e) {
+            System.out.println(e);                                        // DuplicateAccountNumberException: 11112222
+        }
+    }
+
+    private static void testNotASnapshot() throws IOException {
+        try {
+            Bank.loadSnapshot(new File("input_accounts.csv"));
+        } catch (IOException e) {
+            System.out.println(e.getMessage());                           // Not a bank snapshot: input_accounts.csv
+        }
+
+        File file = new File("test_snapshot.bin");
+        new Bank(new File("input_accounts.csv")).saveSnapshot(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        try {
+            Bank.loadSnapshot(file);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());                           // Corrupt bank snapshot: test_snapshot.bin
+        }
+    }
+}
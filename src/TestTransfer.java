@@ -0,0 +1,104 @@
+import java.time.LocalDate;
+import java.time.Period;
+
+public class TestTransfer {
+    public static void main(String[] args) throws InterruptedException {
+        Bank bank = createBank();
+        testTransfer(bank);
+        testTransferErrors(bank);
+        testOpposingTransfers(bank);
+    }
+
+    private static Bank createBank() {
+        Bank bank = new Bank();
+        try {
+            bank.addAccount(new BankAccount("11112222", new MonetaryValue(10000), LocalDate.parse("2020-08-23"), new Name("John", "Adam", "Smith")));
+            bank.addAccount(new CheckingAccount("22223333", new MonetaryValue(20000), LocalDate.parse("2021-07-14"), new Name("Dane", "Doe"), new MonetaryValue(5000)));
+            bank.addAccount(new CDAccount("33334444", new MonetaryValue(30000), LocalDate.now(), new Name("John", "Adam", "Smith"), Period.ofMonths(6)));
+        } catch (InvalidAccountNumberException | DuplicateAccountNumberException e) {
+            System.out.println("An exception should not occur here");
+        }
+        return bank;
+    }
+
+    private static void testTransfer(Bank bank) {
+        try {
+            // 22223333 is a CheckingAccount with balance of 200 and overdraft limit of 50
+            bank.transfer("22223333", "11112222", new MonetaryValue(22500));
+            System.out.println(bank.getBalance("22223333"));  // $-25.00
+            System.out.println(bank.getBalance("11112222"));  // $325.00
+        } catch (Exception e) {
+            System.out.println("An exception should not occur here");
+        }
+    }
+
+    private static void testTransferErrors(Bank bank) {
+        try {
+            bank.transfer("11112222", "22223333", new MonetaryValue(-100));
+        } catch (NegativeMonetaryValueException e) {
+            System.out.println(e);
+        } catch (Exception e) {
+            System.out.println("Only a NegativeMonetaryValueException should occur here");
+        }
+
+        try {
+            bank.transfer("11112222", "99999999", new MonetaryValue(100));
+        } catch (NonexistentAccountException e) {
+            System.out.println(e);
+        } catch (Exception e) {
+            System.out.println("Only a NonexistentAccountException should occur here");
+        }
+
+        try {
+            bank.transfer("11112222", "22223333", new MonetaryValue(40000));
+        } catch (InsufficientFundsException e) {
+            System.out.println(e);
+        } catch (Exception e) {
+            System.out.println("Only an InsufficientFundsException should occur here");
+        }
+
+        try {
+            bank.transfer("33334444", "11112222", new MonetaryValue(100));
+        } catch (WithdrawalDuringTermException e) {
+            System.out.println("WithdrawalDuringTermException");
+        } catch (Exception e) {
+            System.out.println("Only a WithdrawalDuringTermException should occur here");
+        }
+
+        try {
+            System.out.println(bank.getBalance("11112222"));  // $325.00
+            System.out.println(bank.getBalance("22223333"));  // $-25.00
+            System.out.println(bank.getBalance("33334444"));  // $300.00
+        } catch (NonexistentAccountException e) {
+            System.out.println("A NonexistentAccountException should not occur here");
+        }
+    }
+
+    private static void testOpposingTransfers(Bank bank) throws InterruptedException {
+        Thread forth = new Thread(() -> repeatTransfer(bank, "11112222", "22223333"));
+        Thread back = new Thread(() -> repeatTransfer(bank, "22223333", "11112222"));
+        forth.start();
+        back.start();
+        forth.join();
+        back.join();
+
+        try {
+            long total = bank.getBalance("11112222").getCents() + bank.getBalance("22223333").getCents();
+            System.out.println(MonetaryValue.valueOf(total));  // $300.00
+        } catch (NonexistentAccountException e) {
+            System.out.println("A NonexistentAccountException should not occur here");
+        }
+    }
+
+    private static void repeatTransfer(Bank bank, String from, String to) {
+        for (int i = 0; i < 100_000; i++) {
+            try {
+                bank.transfer(from, to, new MonetaryValue(1));
+            } catch (InsufficientFundsException e) {
+                // fine: the other thread has moved the money away
+            } catch (Exception e) {
+                System.out.println("Only an InsufficientFundsException should occur here");
+            }
+        }
+    }
+}
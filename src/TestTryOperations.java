@@ -0,0 +1,115 @@
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.Period;
+
+public class TestTryOperations {
+    public static void main(String[] args) throws Exception {
+        testAccount();
+        testBank();
+        testExceptions();
+        testAllocation();
+    }
+
+    private static Bank createBank() throws Exception {
+        Bank bank = new Bank();
+        bank.addAccount(new BankAccount("11112222", new MonetaryValue(150.0), LocalDate.parse("2020-08-23"),
+                new Name("John", "Adam", "Smith")));
+        bank.addAccount(new CheckingAccount("22223333", new MonetaryValue(200.0), LocalDate.parse("2021-07-14"),
+                new Name("Dane", "Doe"), new MonetaryValue(50.0)));
+        bank.addAccount(new CDAccount("33334444", new MonetaryValue(300.0), LocalDate.now(),
+                new Name("John", "Adam", "Smith"), Period.ofMonths(6)));
+        return bank;
+    }
+
+    private static void testAccount() throws Exception {
+        BankAccount account = new BankAccount("11112222", new MonetaryValue(150.0), LocalDate.parse("2020-08-23"),
+                new Name("John", "Doe"));
+        System.out.println(OperationStatus.toString(account.tryWithdrawCents(20000)));          // INSUFFICIENT
+        System.out.println(OperationStatus.toString(account.tryWithdraw(new MonetaryValue(50.0)))); // OK
+        System.out.println(OperationStatus.toString(account.tryDepositCents(-1)));              // NEGATIVE
+        System.out.println(OperationStatus.toString(account.tryDeposit(new MonetaryValue(1.0)))); // OK
+        System.out.println(account.getBalance());                                               // $101.00
+
+        CDAccount cd = new CDAccount("33334444", new MonetaryValue(300.0), LocalDate.now(), new Name("John", "Doe"),
+                Period.ofMonths(6));
+        System.out.println(OperationStatus.toString(cd.tryWithdrawCents(100)));                 // TERM_LOCKED
+        System.out.println(OperationStatus.toString(cd.tryDepositCents(100)));                  // OK
+
+        CheckingAccount overdrawn = new CheckingAccount("22223333", new MonetaryValue(-2), LocalDate.parse("2021-07-14"),
+                new Name("Dane", "Doe"), new MonetaryValue(50.0));
+        System.out.println(OperationStatus.toString(overdrawn.tryWithdrawCents(Long.MAX_VALUE))); // INSUFFICIENT
+        System.out.println(OperationStatus.toString(account.tryDepositCents(Long.MAX_VALUE)));  // OVERFLOW
+        System.out.println(overdrawn.getBalance() + " " + account.getBalance());               // $-0.02 $101.00
+        try {
+            account.depositCents(Long.MAX_VALUE);
+        } catch (ArithmeticException e) {
+            System.out.println(e.getMessage());                                                 // The balance would overflow
+        }
+    }
+
+    private static void testBank() throws Exception {
+        Bank bank = createBank();
+        StringBuilder line = new StringBuilder();
+        byte[] statuses = {
+            bank.tryWithdrawCents("11112222", 20000),
+            bank.tryDepositCents("11112222", 10000),
+            bank.tryWithdraw("11112222", new MonetaryValue(200.0)),
+            bank.tryWithdrawCents("22223333", 22500),
+            bank.tryDeposit("22223333", new MonetaryValue(-1.0)),
+            bank.tryWithdrawCents("33334444", 100),
+            bank.tryDepositCents("99999999", 100),
+            bank.tryWithdrawCents("1111222", 100),
+            bank.tryDepositCents("11112222", Long.MAX_VALUE),
+            bank.tryWithdrawCents("22223333", Long.MAX_VALUE),
+        };
+        for (byte status : statuses) {
+            line.append(OperationStatus.toString(status)).append(' ');
+        }
+        System.out.println(line.toString().trim()); // INSUFFICIENT OK OK OK NEGATIVE TERM_LOCKED NO_ACCOUNT NO_ACCOUNT OVERFLOW INSUFFICIENT
+        System.out.println(bank.getBalance("11112222")); // $50.00
+        System.out.println(bank.getBalance("22223333")); // $-25.00
+    }
+
+    private static void testExceptions() throws Exception {
+        Bank bank = createBank();
+        try {
+            bank.withdraw("11112222", new MonetaryValue(200.0));
+        } catch (InsufficientFundsException e) {
+            System.out.println(e.getMessage()); // $150.00 is less than $200.00
+        }
+        try {
+            bank.withdraw("33334444", new MonetaryValue(1.0));
+        } catch (WithdrawalDuringTermException e) {
+            System.out.println(e.getEndDate().equals(LocalDate.now().plusMonths(6))); // true
+        }
+        try {
+            bank.deposit("11112222", new MonetaryValue(-1.0));
+        } catch (NegativeMonetaryValueException e) {
+            System.out.println(e.getMessage()); // $-1.00
+        }
+        try {
+            bank.withdraw("99999999", new MonetaryValue(1.0));
+        } catch (NonexistentAccountException e) {
+            System.out.println(e.getMessage()); // 99999999
+        }
+    }
+
+    private static void testAllocation() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Bank bank = createBank();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 200_000; i++) {
+            bank.tryWithdrawCents("11112222", 1_000_000);
+            bank.tryWithdrawCents("33334444", 100);
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        int declined = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            declined += bank.tryWithdrawCents("11112222", 1_000_000) == OperationStatus.INSUFFICIENT ? 1 : 0;
+            declined += bank.tryWithdrawCents("33334444", 100) == OperationStatus.TERM_LOCKED ? 1 : 0;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        System.out.println(declined);                  // 2000000
+        System.out.println(allocated < 64 * 1024);     // true
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the throughput of {@code Bank.transfer} with random transfers between
+ * accounts, for an increasing number of threads. At the end of each run the total
+ * amount of money in the bank is checked, since transfers must never create or
+ * destroy money.
+ * <p>
+ * Usage: {@code java TransferBenchmark [accounts] [transfersPerThread] [maxThreads] [journal]}.
+ * With "journal", every transfer is recorded in a journal (see {@code Bank.openJournal})
+ * in a temporary file, so the timings include waiting for the disk.
+ */
+public class TransferBenchmark {
+    /**
+     * Runs the benchmark.
+     * @param args The number of accounts, the number of transfers made by each thread,
+     *             the largest number of threads to try, and optionally "journal"
+     * @throws InterruptedException If interrupted while waiting for the threads
+     * @throws IOException If the journal can't be created
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int transfers = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        String[] numbers = new String[accounts];
+        Bank bank = createBank(numbers);
+        if (args.length > 3 && args[3].equals("journal")) {
+            File journal = File.createTempFile("transfers", ".journal");
+            journal.deleteOnExit();
+            bank.openJournal(journal);
+        }
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long start = System.nanoTime();
+            runTransfers(bank, numbers, threads, transfers);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%2d threads: %,12.0f transfers/s, total $%,.2f%n",
+                    threads, threads * transfers / seconds, total(bank, numbers) / 100.0);
+        }
+    }
+
+    /**
+     * Creates a bank with one checking account (balance $1,000.00, overdraft limit
+     * $100.00) per element of {@code numbers}, filling in their account numbers.
+     * @param numbers The array to fill with the account numbers
+     * @return The bank
+     */
+    private static Bank createBank(String[] numbers) {
+        Bank bank = new Bank();
+        LocalDate opened = LocalDate.parse("2022-01-01");
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = String.valueOf(10_000_000 + i);
+            try {
+                bank.addAccount(new CheckingAccount(numbers[i], new MonetaryValue(100_000),
+                        opened, new Name("Jane", "Doe"), new MonetaryValue(10_000)));
+            } catch (InvalidAccountNumberException | DuplicateAccountNumberException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return bank;
+    }
+
+    /**
+     * Makes random transfers of up to $20.00 on several threads at once. Declined
+     * transfers count towards the total too.
+     * @param bank The bank
+     * @param numbers The account numbers to pick from
+     * @param threads The number of threads
+     * @param transfers The number of transfers each thread makes
+     * @throws InterruptedException If interrupted while waiting for the threads
+     */
+    private static void runTransfers(Bank bank, String[] numbers, int threads, int transfers)
+            throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transfers; i++) {
+                    String from = numbers[random.nextInt(numbers.length)];
+                    String to = numbers[random.nextInt(numbers.length)];
+                    try {
+                        bank.transfer(from, to, new MonetaryValue(random.nextInt(2000)));
+                    } catch (InsufficientFundsException ex) {
+                        // declined; that's part of normal traffic
+                    } catch (NegativeMonetaryValueException | NonexistentAccountException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Returns the total of the balances of the specified accounts.
+     * @param bank The bank
+     * @param numbers The account numbers
+     * @return The total balance, in cents
+     */
+    private static long total(Bank bank, String[] numbers) {
+        long cents = 0;
+        for (String number : numbers) {
+            try {
+                cents += bank.getBalance(number).getCents();
+            } catch (NonexistentAccountException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return cents;
+    }
+}